@@ -0,0 +1,196 @@
+package com.filesearch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the search engines over the {@link TreeFixture} trees.
+ *
+ * Each operation is one file of the tree ({@link OperationsPerInvocation}),
+ * so scores read as files searched per second, and with the gc profiler
+ * (enabled in build.gradle) gc.alloc.rate.norm reads as bytes allocated
+ * per file. Every engine looks for the same two names, one of them in
+ * every directory that holds files and one nowhere, and must find the same
+ * files; a setup check fails the run otherwise.
+ *
+ * Run with {@code gradle jmh}, or a single engine with
+ * {@code gradle jmh -Pjmh.includes=SearchBenchmark.cached}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(TreeFixture.FILES)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SearchBenchmark {
+
+    private static final String[] TARGETS = {TreeFixture.MARKER, "readme.md"};
+
+    @Param({"WIDE", "DEEP", "BALANCED", "MANY_SMALL_DIRS"})
+    public TreeFixture.Shape shape;
+
+    private Path root;
+    private FileSearcher sequential;
+    private FileSearcher parallel;
+    private FileSearcher cached;
+    private FileSearcher indexed;
+    private Path indexFile;
+    private FileNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = TreeFixture.get(shape);
+
+        sequential = new FileSearcher(false);
+        parallel = new FileSearcher(false);
+        parallel.setThreads(Runtime.getRuntime().availableProcessors());
+        cached = new FileSearcher(false);
+        cached.setListingCache(new DirectoryCache(100_000, 256L << 20));
+        cached.searchFiles(root.toString(), TARGETS);
+
+        indexFile = Files.createTempFile("filesearch-bench", ".idx");
+        FileNameIndex.build(root, indexFile);
+        index = FileNameIndex.open(indexFile);
+        indexed = new FileSearcher(false);
+        indexed.setIndex(index);
+
+        int expected = TreeFixture.markers(shape);
+        check("recursiveListFiles", expected, recursiveListFiles().size());
+        check("walkFileTree", expected, walkFileTree().size());
+        check("sequential", expected, sequential().size());
+        check("parallel", expected, parallel().size());
+        check("stream", expected, stream());
+        check("cached", expected, cached().size());
+        check("indexed", expected, indexed().size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        Files.deleteIfExists(indexFile);
+    }
+
+    private static void check(String engine, long expected, long found) {
+        if (found != expected) {
+            throw new IllegalStateException(engine + " found " + found + " files, expected " + expected);
+        }
+    }
+
+    /**
+     * The search as it was first written: a recursive walk over
+     * java.io.File listings, once per name searched for
+     */
+    @Benchmark
+    public List<String> recursiveListFiles() {
+        List<String> results = new ArrayList<>();
+        for (String target : TARGETS) {
+            searchRecursive(root.toFile(), target, results);
+        }
+        return results;
+    }
+
+    private static void searchRecursive(File currentDir, String fileName, List<String> results) {
+        if (!currentDir.canRead()) {
+            return;
+        }
+        File[] files = currentDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                searchRecursive(file, fileName, results);
+            } else if (file.getName().equalsIgnoreCase(fileName)) {
+                results.add(file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * The JDK's own NIO walk, for reference
+     */
+    @Benchmark
+    public List<String> walkFileTree() throws IOException {
+        List<String> results = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                String name = file.getFileName().toString();
+                for (String target : TARGETS) {
+                    if (name.equalsIgnoreCase(target)) {
+                        results.add(file.toString());
+                        break;
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return results;
+    }
+
+    /**
+     * One sequential walk for all names, on DirectoryStream listings
+     */
+    @Benchmark
+    public List<String> sequential() throws IOException {
+        return sequential.searchFiles(root.toString(), TARGETS);
+    }
+
+    /**
+     * The work-stealing walk, one thread per processor
+     */
+    @Benchmark
+    public List<String> parallel() throws IOException {
+        return parallel.searchFiles(root.toString(), TARGETS);
+    }
+
+    /**
+     * The lazy stream, drained
+     */
+    @Benchmark
+    public long stream() throws IOException {
+        try (Stream<Path> matches = sequential.search(root.toString(), TARGETS)) {
+            return matches.count();
+        }
+    }
+
+    /**
+     * The sequential walk over listings from a warm directory cache
+     */
+    @Benchmark
+    public List<String> cached() throws IOException {
+        return cached.searchFiles(root.toString(), TARGETS);
+    }
+
+    /**
+     * Lookups in a persistent name index, without a walk
+     */
+    @Benchmark
+    public List<String> indexed() throws IOException {
+        return indexed.searchFiles(root.toString(), TARGETS);
+    }
+}
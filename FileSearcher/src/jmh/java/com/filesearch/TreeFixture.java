@@ -0,0 +1,169 @@
+package com.filesearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * TreeFixture generates the synthetic directory trees the benchmarks search.
+ *
+ * Every shape holds exactly {@link #FILES} empty files, so scores per
+ * operation compare across shapes as scores per file. Trees are generated
+ * from a fixed seed and every directory gets the same fixed modification
+ * time, so two runs, on two machines, search identical trees, and the
+ * directory cache trusts their listings. A tree is generated once under the
+ * temporary directory and reused by later runs and forks.
+ */
+public final class TreeFixture {
+
+    /** Files in every tree */
+    static final int FILES = 20_000;
+
+    /** Name of the file at the start of every directory holding files */
+    static final String MARKER = "config.json";
+
+    /** Bump when the generated trees change, so stale trees are not reused */
+    private static final int VERSION = 1;
+
+    private static final long SEED = 20_240_601L;
+    private static final FileTime DIRECTORY_TIME = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+    private static final String[] WORDS = {"report", "index", "data", "main", "util", "test", "cache", "log"};
+    private static final String[] EXTENSIONS = {".txt", ".log", ".java", ".json", ".xml", ".md"};
+
+    /**
+     * Shape of a generated tree
+     */
+    public enum Shape {
+        /** 4 directories of 5,000 files each: few, huge listings */
+        WIDE,
+        /** A chain of 200 nested directories with 100 files each */
+        DEEP,
+        /** Fan-out of 10 over 3 levels, 20 files in each of the 1,000 leaves */
+        BALANCED,
+        /** 100 directories of 100 subdirectories with 2 files each: listing overhead dominates */
+        MANY_SMALL_DIRS
+    }
+
+    private TreeFixture() {
+    }
+
+    /**
+     * Gets the tree of a shape, generating it on first use
+     * @param shape the shape of the tree
+     * @return its root directory
+     * @throws IOException if the tree cannot be generated
+     */
+    static synchronized Path get(Shape shape) throws IOException {
+        Path base = Paths.get(System.getProperty("java.io.tmpdir"), "filesearch-bench");
+        String name = shape.name().toLowerCase() + "-v" + VERSION;
+        Path root = base.resolve(name);
+        Path complete = base.resolve(name + ".complete");
+        if (Files.exists(complete)) {
+            return root;
+        }
+
+        delete(root);
+        Files.createDirectories(root);
+        Random random = new Random(SEED + shape.ordinal());
+        switch (shape) {
+            case WIDE:
+                fill(random, root, 4, 5000);
+                break;
+            case DEEP:
+                Path level = root;
+                for (int i = 0; i < 200; i++) {
+                    level = Files.createDirectory(level.resolve("level" + i));
+                    files(random, level, 100);
+                }
+                break;
+            case BALANCED:
+                for (int i = 0; i < 10; i++) {
+                    for (int j = 0; j < 10; j++) {
+                        fill(random, root.resolve("a" + i).resolve("b" + j), 10, 20);
+                    }
+                }
+                break;
+            case MANY_SMALL_DIRS:
+                for (int i = 0; i < 100; i++) {
+                    fill(random, root.resolve("group" + i), 100, 2);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        // Fixed times once everything exists, since creating an entry touches its directory
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    Files.setLastModifiedTime(path, DIRECTORY_TIME);
+                }
+            }
+        }
+        Files.createFile(complete);
+        return root;
+    }
+
+    /**
+     * Creates a directory of subdirectories, each holding files
+     */
+    private static void fill(Random random, Path parent, int count, int files) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Path directory = Files.createDirectories(parent.resolve("dir" + i));
+            files(random, directory, files);
+        }
+    }
+
+    /**
+     * Creates empty files, the first one named {@link #MARKER}
+     */
+    private static void files(Random random, Path directory, int count) throws IOException {
+        Files.createFile(directory.resolve(MARKER));
+        for (int i = 1; i < count; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + "-" + Integer.toHexString(random.nextInt())
+                    + "-" + i + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            Files.createFile(directory.resolve(name));
+        }
+    }
+
+    /**
+     * Counts the directories holding files, which is also the number of
+     * {@link #MARKER} files in the tree
+     * @param shape the shape of the tree
+     * @return number of marker files
+     */
+    static int markers(Shape shape) {
+        switch (shape) {
+            case WIDE:
+                return 4;
+            case DEEP:
+                return 200;
+            case BALANCED:
+                return 1000;
+            default:
+                return 10_000;
+        }
+    }
+
+    private static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            List<Path> all = new ArrayList<>();
+            paths.forEach(all::add);
+            all.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+            for (Path path : all) {
+                Files.delete(path);
+            }
+        }
+    }
+}
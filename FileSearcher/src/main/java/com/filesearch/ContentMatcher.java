@@ -0,0 +1,339 @@
+package com.filesearch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * ContentMatcher finds search strings in file content, working on the raw
+ * bytes of a buffer so that files are never decoded into strings.
+ *
+ * Patterns are compiled once per search into the cheapest form that can
+ * answer them:
+ * <ul>
+ *   <li>a single literal uses Boyer-Moore-Horspool;</li>
+ *   <li>several literals use Set-Horspool, which shifts by the shortest of
+ *       them and only verifies the literals ending in the byte under the
+ *       window;</li>
+ *   <li>regular expressions (a {@code regex:} prefix) are run line by line,
+ *       together with any literals given alongside them, each as its own
+ *       {@link Pattern} so that its literal prefix, if any, is still found
+ *       with Boyer-Moore.</li>
+ * </ul>
+ * Literals are matched as UTF-8. Regular expressions see each byte as one
+ * character, so literal text in them matches its UTF-8 encoding but
+ * character classes only cover ASCII. Case-insensitive matching folds
+ * ASCII letters only.
+ */
+abstract class ContentMatcher {
+
+    private static final String REGEX_PREFIX = "regex:";
+
+    /**
+     * Longest literal pattern in bytes. The bytes a match could still start in
+     * are carried over between reads of {@link ContentScanner}; at half its
+     * buffer, every read still brings in at least half a buffer of new content.
+     */
+    static final int MAX_LITERAL_LENGTH = ContentScanner.BUFFER_SIZE / 2;
+
+    private static final byte[] IDENTITY = new byte[256];
+    private static final byte[] ASCII_LOWER = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            IDENTITY[i] = (byte) i;
+            ASCII_LOWER[i] = (byte) (i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+        }
+    }
+
+    /**
+     * Compiles content patterns into a matcher
+     * @param patterns literal strings, or regular expressions prefixed with {@code regex:}
+     * @param caseSensitive true for case-sensitive matching
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if no pattern is given, a pattern is empty,
+     *         a literal is longer than {@link #MAX_LITERAL_LENGTH} bytes,
+     *         or a regular expression is invalid
+     */
+    static ContentMatcher compile(String[] patterns, boolean caseSensitive) {
+        if (patterns.length == 0) {
+            throw new IllegalArgumentException("At least one content pattern is required");
+        }
+        List<byte[]> literals = new ArrayList<>();
+        List<String> expressions = new ArrayList<>();
+        boolean anyRegex = false;
+        for (String pattern : patterns) {
+            if (pattern.startsWith(REGEX_PREFIX)) {
+                String regex = pattern.substring(REGEX_PREFIX.length());
+                if (regex.isEmpty()) {
+                    throw new IllegalArgumentException("Content pattern must not be empty: " + pattern);
+                }
+                expressions.add(asBytes(regex));
+                anyRegex = true;
+            } else {
+                if (pattern.isEmpty()) {
+                    throw new IllegalArgumentException("Content pattern must not be empty");
+                }
+                byte[] literal = pattern.getBytes(StandardCharsets.UTF_8);
+                if (literal.length > MAX_LITERAL_LENGTH) {
+                    throw new IllegalArgumentException("Content pattern must not be longer than "
+                            + MAX_LITERAL_LENGTH + " bytes");
+                }
+                literals.add(literal);
+                expressions.add(Pattern.quote(asBytes(pattern)));
+            }
+        }
+
+        if (anyRegex) {
+            return new Expression(expressions, caseSensitive);
+        }
+        byte[] fold = caseSensitive ? IDENTITY : ASCII_LOWER;
+        return literals.size() == 1 ? new Literal(literals.get(0), fold) : new LiteralSet(literals, fold);
+    }
+
+    /**
+     * Searches a window of content from its position to its limit. When
+     * nothing is found and more content follows, the window's position is
+     * moved to the first byte that has to be searched again together with
+     * the next content, because a match may start there.
+     * @param window content to search
+     * @param endOfInput true if no content follows the window
+     * @return true if a pattern occurs in the window
+     */
+    abstract boolean find(ByteBuffer window, boolean endOfInput);
+
+    /**
+     * Reinterprets text as its UTF-8 bytes, one character per byte, the way
+     * {@link Expression} presents content to the regular expression
+     */
+    private static String asBytes(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] fold(byte[] bytes, byte[] fold) {
+        byte[] folded = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            folded[i] = fold[bytes[i] & 0xFF];
+        }
+        return folded;
+    }
+
+    /**
+     * One literal, searched with Boyer-Moore-Horspool: the window slides by
+     * how far the byte under its last position is from the end of the literal
+     */
+    private static final class Literal extends ContentMatcher {
+
+        private final byte[] needle;
+        private final byte[] fold;
+        private final int[] shift = new int[256];
+
+        Literal(byte[] needle, byte[] fold) {
+            this.needle = fold(needle, fold);
+            this.fold = fold;
+            int last = needle.length - 1;
+            Arrays.fill(shift, needle.length);
+            for (int i = 0; i < last; i++) {
+                // Both cases of a folded letter shift alike
+                for (int b = 0; b < 256; b++) {
+                    if (fold[b] == this.needle[i]) {
+                        shift[b] = last - i;
+                    }
+                }
+            }
+        }
+
+        @Override
+        boolean find(ByteBuffer window, boolean endOfInput) {
+            int last = needle.length - 1;
+            int limit = window.limit();
+            int i = window.position();
+            while (i + last < limit) {
+                int j = last;
+                while (fold[window.get(i + j) & 0xFF] == needle[j]) {
+                    if (j == 0) {
+                        return true;
+                    }
+                    j--;
+                }
+                i += shift[window.get(i + last) & 0xFF];
+            }
+            if (!endOfInput) {
+                window.position(Math.max(window.position(), limit - last));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Several literals, searched with Set-Horspool. The window is as long as
+     * the shortest literal and slides by the smallest Horspool shift of any
+     * literal; at each stop only the literals whose byte at that length
+     * equals the byte under the window are compared.
+     */
+    private static final class LiteralSet extends ContentMatcher {
+
+        private final byte[] fold;
+        private final int shortest;
+        private final int longest;
+        private final int[] shift = new int[256];
+        private final byte[][][] candidates = new byte[256][][];
+
+        LiteralSet(List<byte[]> literals, byte[] fold) {
+            this.fold = fold;
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            for (byte[] literal : literals) {
+                min = Math.min(min, literal.length);
+                max = Math.max(max, literal.length);
+            }
+            this.shortest = min;
+            this.longest = max;
+
+            Arrays.fill(shift, shortest);
+            List<List<byte[]>> buckets = new ArrayList<>();
+            for (int b = 0; b < 256; b++) {
+                buckets.add(new ArrayList<>());
+            }
+            for (byte[] literal : literals) {
+                byte[] folded = fold(literal, fold);
+                for (int i = 0; i < shortest - 1; i++) {
+                    for (int b = 0; b < 256; b++) {
+                        if (fold[b] == folded[i]) {
+                            shift[b] = Math.min(shift[b], shortest - 1 - i);
+                        }
+                    }
+                }
+                for (int b = 0; b < 256; b++) {
+                    if (fold[b] == folded[shortest - 1]) {
+                        buckets.get(b).add(folded);
+                    }
+                }
+            }
+            for (int b = 0; b < 256; b++) {
+                if (!buckets.get(b).isEmpty()) {
+                    candidates[b] = buckets.get(b).toArray(new byte[0][]);
+                }
+            }
+        }
+
+        @Override
+        boolean find(ByteBuffer window, boolean endOfInput) {
+            int last = shortest - 1;
+            int limit = window.limit();
+            int i = window.position();
+            while (i + last < limit) {
+                int tail = window.get(i + last) & 0xFF;
+                byte[][] bucket = candidates[tail];
+                if (bucket != null) {
+                    for (byte[] literal : bucket) {
+                        if (matchesAt(window, i, limit, literal)) {
+                            return true;
+                        }
+                    }
+                }
+                i += shift[tail];
+            }
+            if (!endOfInput) {
+                // Longer literals starting this close to the limit were not compared yet
+                window.position(Math.max(window.position(), limit - (longest - 1)));
+            }
+            return false;
+        }
+
+        private boolean matchesAt(ByteBuffer window, int start, int limit, byte[] literal) {
+            if (start + literal.length > limit) {
+                return false;
+            }
+            for (int j = 0; j < literal.length; j++) {
+                if (fold[window.get(start + j) & 0xFF] != literal[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Regular expressions, matched over whole lines so that a match never
+     * straddles two windows. The lines are copied into Latin-1 strings, one
+     * character per byte, in slices of at most {@link #SLICE} bytes; a line
+     * longer than that is searched in pieces.
+     */
+    private static final class Expression extends ContentMatcher {
+
+        /** Most bytes handed to the regular expression at once */
+        private static final int SLICE = 256 * 1024;
+
+        private final Pattern[] patterns;
+
+        Expression(List<String> expressions, boolean caseSensitive) {
+            int flags = Pattern.MULTILINE | (caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+            this.patterns = new Pattern[expressions.size()];
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = Pattern.compile(expressions.get(i), flags);
+            }
+        }
+
+        @Override
+        boolean find(ByteBuffer window, boolean endOfInput) {
+            int start = window.position();
+            int limit = window.limit();
+            int end = limit;
+            if (!endOfInput) {
+                end = lastNewline(window, start, limit);
+                if (end < 0) {
+                    if (start > 0 || limit < window.capacity()) {
+                        // The last line is incomplete; wait for more content
+                        return false;
+                    }
+                    end = limit;
+                }
+            }
+
+            ByteBuffer source = window.duplicate();
+            byte[] bytes = new byte[Math.min(SLICE, end - start)];
+            int from = start;
+            while (from < end) {
+                int to = Math.min(end, from + SLICE);
+                int next = to;
+                if (to < end) {
+                    int newline = lastNewline(window, from, to);
+                    if (newline >= 0) {
+                        to = newline;
+                        next = newline + 1;
+                    }
+                }
+                source.limit(to).position(from);
+                source.get(bytes, 0, to - from);
+                String text = new String(bytes, 0, to - from, StandardCharsets.ISO_8859_1);
+                for (Pattern pattern : patterns) {
+                    if (pattern.matcher(text).find()) {
+                        return true;
+                    }
+                }
+                from = next;
+            }
+
+            if (!endOfInput) {
+                window.position(end < limit ? end + 1 : limit);
+            }
+            return false;
+        }
+
+        /**
+         * @return index of the last newline in [from, to), or -1 if there is none
+         */
+        private static int lastNewline(ByteBuffer window, int from, int to) {
+            for (int i = to - 1; i >= from; i--) {
+                if (window.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.filesearch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ContentScanner reads files and checks whether their content matches.
+ *
+ * Small files are read through direct buffers taken from a pool shared by
+ * all searches, so no buffer is allocated per file and the bytes are not
+ * copied onto the heap. Large files are memory-mapped in windows and
+ * searched in place. Files with a NUL byte near the start are taken to be
+ * binary and do not match, as in grep.
+ */
+class ContentScanner {
+
+    /** Size of each pooled read buffer */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Files at least this large are memory-mapped instead of read */
+    static final long MAP_THRESHOLD = 1024 * 1024;
+
+    /** Bytes of a large file mapped at a time */
+    static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    /** Leading bytes checked for a NUL to detect binary files */
+    static final int BINARY_PROBE = 8 * 1024;
+
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED_BUFFER_COUNT = new AtomicInteger();
+
+    private final ContentMatcher matcher;
+
+    /**
+     * Constructor for ContentScanner
+     * @param matcher the compiled content patterns
+     */
+    ContentScanner(ContentMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Checks whether a file's content matches. Files that cannot be read are
+     * skipped like unreadable directories and do not match.
+     * @param file the file to read
+     * @return true if the file is text and a pattern occurs in it
+     */
+    boolean contains(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            return size >= MAP_THRESHOLD ? scanMapped(channel, size) : scanBuffered(channel);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private boolean scanMapped(FileChannel channel, long size) throws IOException {
+        long offset = 0;
+        while (true) {
+            long length = Math.min(MAP_WINDOW, size - offset);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            if (offset == 0 && isBinary(window)) {
+                return false;
+            }
+            boolean endOfInput = offset + length >= size;
+            if (matcher.find(window, endOfInput)) {
+                return true;
+            }
+            if (endOfInput) {
+                return false;
+            }
+            // The next window starts where a match could still begin
+            offset += window.position();
+        }
+    }
+
+    private boolean scanBuffered(FileChannel channel) throws IOException {
+        ByteBuffer buffer = borrowBuffer();
+        try {
+            boolean first = true;
+            while (true) {
+                boolean endOfInput = fill(channel, buffer);
+                buffer.flip();
+                if (first) {
+                    if (isBinary(buffer)) {
+                        return false;
+                    }
+                    first = false;
+                }
+                if (matcher.find(buffer, endOfInput)) {
+                    return true;
+                }
+                if (endOfInput) {
+                    return false;
+                }
+                // Carry the bytes a match could still start in over to the next read
+                buffer.compact();
+            }
+        } finally {
+            returnBuffer(buffer);
+        }
+    }
+
+    /**
+     * Reads until the buffer is full or the file ends
+     * @return true if the file ended
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBinary(ByteBuffer content) {
+        int end = Math.min(content.limit(), content.position() + BINARY_PROBE);
+        for (int i = content.position(); i < end; i++) {
+            if (content.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        POOLED_BUFFER_COUNT.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void returnBuffer(ByteBuffer buffer) {
+        if (POOLED_BUFFER_COUNT.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            BUFFERS.add(buffer);
+        } else {
+            POOLED_BUFFER_COUNT.decrementAndGet();
+        }
+    }
+}
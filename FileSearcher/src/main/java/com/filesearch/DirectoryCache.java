@@ -0,0 +1,290 @@
+package com.filesearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * DirectoryCache remembers the listings of directories a search has walked
+ * (each entry's name and type), so that walking an unchanged directory
+ * again costs one read of its attributes instead of listing it and reading
+ * the attributes of every entry.
+ *
+ * A listing stays valid while its directory's modification time and
+ * identity are unchanged: adding, removing or renaming an entry updates the
+ * modification time, so the next walk reads the directory afresh. Listings
+ * taken within {@link #RACY_MILLIS} of the directory's last modification
+ * are not trusted, since a change made in the same clock tick would leave
+ * the modification time as it was. Changes to the content of files do not
+ * touch their directory; they need no invalidation either, because the
+ * attributes of matching files are always read afresh.
+ *
+ * The cache is bounded by the number of listings and by an estimate of the
+ * memory they take, evicting the least recently used listing first. It is
+ * thread-safe and may be shared by any number of searchers.
+ */
+public class DirectoryCache {
+
+    /** Listings this close to their directory's modification time are re-read */
+    static final long RACY_MILLIS = 2000;
+
+    /** Estimated bytes per listing and per entry, besides the names' bytes and characters */
+    private static final int LISTING_OVERHEAD = 96;
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Type of a listed entry, as seen without following links
+     */
+    enum Kind {
+        FILE, DIRECTORY, SYMLINK, OTHER
+    }
+
+    /**
+     * The entries of one directory, together with the state of the
+     * directory they were read from
+     */
+    static final class Listing {
+
+        private final FileTime modified;
+        private final Object fileKey;
+        private final long listedAt;
+        private final List<Path> names = new ArrayList<>();
+        private final List<Kind> kinds = new ArrayList<>();
+        private final List<Object> directoryKeys = new ArrayList<>();
+        private long bytes = LISTING_OVERHEAD;
+        private boolean complete;
+
+        Listing(FileTime modified, Object fileKey, long listedAt) {
+            this.modified = modified;
+            this.fileKey = fileKey;
+            this.listedAt = listedAt;
+        }
+
+        /**
+         * Records one entry while the directory is being read
+         * @param name the entry's file name, kept as a path since not every
+         *        name read from the file system survives a trip through a string
+         * @param nameLength length of the name
+         * @param kind its type, links not followed
+         * @param directoryKey identity of a directory entry, or null
+         */
+        void add(Path name, int nameLength, Kind kind, Object directoryKey) {
+            names.add(name);
+            kinds.add(kind);
+            directoryKeys.add(directoryKey);
+            bytes += ENTRY_OVERHEAD + 3L * nameLength;
+        }
+
+        /**
+         * @return true if the entries came from the cache, false if the
+         *         caller is to read the directory and record them
+         */
+        boolean isComplete() {
+            return complete;
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        Path name(int i) {
+            return names.get(i);
+        }
+
+        Kind kind(int i) {
+            return kinds.get(i);
+        }
+
+        Object directoryKey(int i) {
+            return directoryKeys.get(i);
+        }
+
+        private boolean isValidFor(BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime())
+                    && Objects.equals(fileKey, attributes.fileKey())
+                    && listedAt - modified.toMillis() >= RACY_MILLIS;
+        }
+    }
+
+    private final int maxListings;
+    private final long maxBytes;
+
+    /** Listings by directory, least recently used first; guarded by this cache */
+    private final LinkedHashMap<Path, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for DirectoryCache
+     * @param maxListings most directories to hold listings for
+     * @param maxBytes most memory, estimated in bytes, that the listings may take
+     * @throws IllegalArgumentException if either bound is less than 1
+     */
+    public DirectoryCache(int maxListings, long maxBytes) {
+        if (maxListings < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Cache bounds must be at least 1: " + maxListings + ", " + maxBytes);
+        }
+        this.maxListings = maxListings;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up the listing of a directory, reading only the directory's own
+     * attributes to validate it
+     * @param directory the directory about to be walked
+     * @return a complete listing on a hit; on a miss an empty one for the
+     *         caller to fill and {@link #store}; null if the directory's
+     *         attributes cannot be read
+     */
+    Listing lookup(Path directory) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+        synchronized (this) {
+            Listing listing = listings.get(directory);
+            if (listing != null && listing.isValidFor(attributes)) {
+                hits++;
+                return listing;
+            }
+            misses++;
+        }
+        return new Listing(attributes.lastModifiedTime(), attributes.fileKey(), System.currentTimeMillis());
+    }
+
+    /**
+     * Keeps a listing the caller has filled, evicting the least recently
+     * used ones as needed
+     * @param directory the directory that was read
+     * @param listing its entries
+     */
+    synchronized void store(Path directory, Listing listing) {
+        listing.complete = true;
+        if (listing.bytes > maxBytes) {
+            remove(directory);
+            return;
+        }
+        Listing previous = listings.put(directory, listing);
+        bytes += listing.bytes - (previous == null ? 0 : previous.bytes);
+        Iterator<Listing> eldest = listings.values().iterator();
+        while (listings.size() > maxListings || bytes > maxBytes) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Gets the type of an entry from attributes read without following links
+     * @param attributes the entry's attributes, or null if they could not be read
+     * @return its type
+     */
+    static Kind kindOf(BasicFileAttributes attributes) {
+        if (attributes == null) {
+            return Kind.OTHER;
+        } else if (attributes.isSymbolicLink()) {
+            return Kind.SYMLINK;
+        } else if (attributes.isDirectory()) {
+            return Kind.DIRECTORY;
+        } else if (attributes.isRegularFile()) {
+            return Kind.FILE;
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * Drops the listing of one directory, if there is one
+     * @param directory the directory
+     */
+    public synchronized void remove(Path directory) {
+        Listing removed = listings.remove(directory);
+        if (removed != null) {
+            bytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * Drops every listing; the statistics are kept
+     */
+    public synchronized void clear() {
+        listings.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets the number of directories with a listing held
+     * @return listing count
+     */
+    public synchronized int size() {
+        return listings.size();
+    }
+
+    /**
+     * Gets the estimated memory the listings take
+     * @return estimated size in bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets how many walks of a directory were served from the cache
+     * @return hit count
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Gets how many walks of a directory had to read it, because it was not
+     * cached or had changed
+     * @return miss count
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Gets how many listings were dropped to stay within the bounds
+     * @return eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Gets the share of walks served from the cache
+     * @return hits divided by lookups, or 0 if there were none
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets the maximum number of listings held
+     * @return listing bound
+     */
+    public int getMaxListings() {
+        return maxListings;
+    }
+
+    /**
+     * Gets the maximum estimated memory of the listings held
+     * @return byte bound
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
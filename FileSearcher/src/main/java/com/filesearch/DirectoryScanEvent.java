@@ -0,0 +1,34 @@
+package com.filesearch;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for one directory scan that took longer than the threshold,
+ * pointing at slow mounts and huge directories in a recording
+ */
+@Name("com.filesearch.DirectoryScan")
+@Label("Directory Scan")
+@Category("File Search")
+@Description("A directory that was slow to list")
+@Threshold("10 ms")
+class DirectoryScanEvent extends Event {
+
+    @Label("Directory")
+    String directory;
+
+    @Label("Depth")
+    @Description("Levels below the search root")
+    int depth;
+
+    @Label("Entries")
+    int entries;
+
+    @Label("Cached")
+    @Description("Whether the listing came from the directory cache")
+    boolean cached;
+}
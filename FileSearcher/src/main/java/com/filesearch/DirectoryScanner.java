@@ -0,0 +1,15 @@
+package com.filesearch;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Scans one directory and reports its subdirectories
+ */
+interface DirectoryScanner {
+    /**
+     * @param directory the directory to scan
+     * @param subdirectories receives the subdirectories still to be walked
+     */
+    void scan(Path directory, List<Path> subdirectories);
+}
@@ -0,0 +1,103 @@
+package com.filesearch;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * DirectoryWalker visits a directory tree one directory at a time from an
+ * explicit frontier instead of the call stack, so the depth of the tree is
+ * limited only by memory. The frontier holds just the paths still to be read,
+ * never the listings of their ancestors.
+ */
+class DirectoryWalker {
+
+    /**
+     * A directory waiting to be read, with its depth below the search root
+     */
+    static final class Pending {
+        final Path path;
+        final int depth;
+
+        Pending(Path path, int depth) {
+            this.path = path;
+            this.depth = depth;
+        }
+    }
+
+    private final FileSearcher.TraversalOrder order;
+    private final int maxDepth;
+    private final Deque<Pending> frontier = new ArrayDeque<>();
+    private final List<Path> subdirectories = new ArrayList<>();
+    private int peakFrontier;
+
+    /**
+     * Constructor for DirectoryWalker
+     * @param root the directory to start from, at depth 0
+     * @param order the order in which directories are visited
+     * @param maxDepth deepest level below root whose directories are read
+     */
+    DirectoryWalker(Path root, FileSearcher.TraversalOrder order, int maxDepth) {
+        this.order = order;
+        this.maxDepth = maxDepth;
+        frontier.add(new Pending(root, 0));
+        peakFrontier = 1;
+    }
+
+    /**
+     * Reads the next directory of the walk
+     * @param scanner scans the directory and reports its subdirectories
+     * @return false if there was nothing left to read
+     */
+    boolean step(DirectoryScanner scanner) {
+        Pending directory = frontier.poll();
+        if (directory == null) {
+            return false;
+        }
+
+        subdirectories.clear();
+        scanner.scan(directory.path, subdirectories);
+        if (directory.depth < maxDepth) {
+            int depth = directory.depth + 1;
+            if (order == FileSearcher.TraversalOrder.BREADTH_FIRST) {
+                for (Path subdirectory : subdirectories) {
+                    frontier.addLast(new Pending(subdirectory, depth));
+                }
+            } else {
+                // Push in reverse so subdirectories are visited in listing order
+                for (int i = subdirectories.size() - 1; i >= 0; i--) {
+                    frontier.addFirst(new Pending(subdirectories.get(i), depth));
+                }
+            }
+            peakFrontier = Math.max(peakFrontier, frontier.size());
+        }
+        return true;
+    }
+
+    /**
+     * Reads every remaining directory of the walk
+     * @param scanner scans each directory and reports its subdirectories
+     */
+    void walk(DirectoryScanner scanner) {
+        while (step(scanner)) {
+            // Each step reads one directory
+        }
+    }
+
+    /**
+     * Abandons the directories not read yet
+     */
+    void clear() {
+        frontier.clear();
+    }
+
+    /**
+     * Gets the largest number of directories that were waiting at once
+     * @return peak frontier size
+     */
+    int getPeakFrontier() {
+        return peakFrontier;
+    }
+}
@@ -0,0 +1,397 @@
+package com.filesearch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DuplicateFinder finds files with identical content under a directory.
+ *
+ * Files are narrowed down in stages, each one only reading what the
+ * previous one could not rule out:
+ * <ol>
+ *   <li>the walk groups files by the size it already read for each of
+ *       them, so a file whose size is unique is never opened;</li>
+ *   <li>files sharing a size are told apart by a hash of their first and
+ *       last {@link #EDGE_BYTES} bytes, which settles files no larger than
+ *       both ends;</li>
+ *   <li>files still colliding get a full hash, streamed through large
+ *       buffers.</li>
+ * </ol>
+ * Hashing runs on a pool of worker threads, largest files first. Paths
+ * leading to the same file (hard links, or links when they are followed)
+ * are one file, not duplicates. The walk honours the searcher's settings,
+ * such as threads, exclude rules and link following.
+ */
+public class DuplicateFinder {
+
+    /** Bytes hashed at each end of a file before deciding whether to read all of it */
+    static final int EDGE_BYTES = 4096;
+
+    /** Size of each worker's buffer for full hashes */
+    private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+
+    private static final String DIGEST = "SHA-256";
+
+    private static final ThreadLocal<ByteBuffer> STREAM_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE));
+
+    /**
+     * A set of files with identical content
+     */
+    public static class Group {
+
+        private final long size;
+        private final List<Path> files;
+
+        Group(long size, List<Path> files) {
+            this.size = size;
+            this.files = files;
+        }
+
+        /**
+         * @return size of each file in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the files, in path order
+         */
+        public List<Path> getFiles() {
+            return Collections.unmodifiableList(files);
+        }
+
+        /**
+         * @return bytes that would be freed by keeping only one of the files
+         */
+        public long getWastedBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    /**
+     * One file that shares its size with another
+     */
+    private static final class Candidate {
+        final Path path;
+        final long size;
+        final Object fileKey;
+        String digest;
+
+        Candidate(Path path, long size, Object fileKey) {
+            this.path = path;
+            this.size = size;
+            this.fileKey = fileKey;
+        }
+    }
+
+    private final FileSearcher searcher;
+    private int threads;
+    private long minSize;
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder fullyHashed = new LongAdder();
+    private int candidates;
+
+    /**
+     * Constructor for DuplicateFinder
+     * @param searcher walks the tree; its case sensitivity applies to the name patterns
+     */
+    public DuplicateFinder(FileSearcher searcher) {
+        this.searcher = searcher;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.minSize = 1;
+    }
+
+    /**
+     * Finds the files with identical content among those matching the
+     * name patterns
+     * @param directoryPath the path to search in
+     * @param fileNames file names or patterns to consider; none for all files
+     * @return groups of identical files, the most wasted space first
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    public List<Group> findDuplicates(String directoryPath, String... fileNames) throws IOException {
+        bytesRead.reset();
+        fullyHashed.reset();
+        candidates = 0;
+
+        Map<Long, List<Candidate>> bySize = new ConcurrentHashMap<>();
+        searcher.search(directoryPath, fileNames.length == 0 ? new String[]{"*"} : fileNames,
+                (file, attributes, keys) -> {
+                    if (attributes == null || !attributes.isRegularFile() || attributes.size() < minSize) {
+                        return;
+                    }
+                    Candidate candidate = new Candidate(file, attributes.size(), attributes.fileKey());
+                    List<Candidate> sameSize = bySize.computeIfAbsent(attributes.size(),
+                            size -> Collections.synchronizedList(new ArrayList<>(1)));
+                    sameSize.add(candidate);
+                });
+
+        List<List<Candidate>> groups = new ArrayList<>();
+        for (List<Candidate> sameSize : bySize.values()) {
+            if (sameSize.size() > 1) {
+                List<Candidate> distinct = distinctFiles(sameSize);
+                if (distinct.size() > 1) {
+                    groups.add(distinct);
+                    candidates += distinct.size();
+                }
+            }
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "duplicate-hasher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            groups = refine(workers, groups, false);
+
+            // Files no larger than both ends were read whole by the first pass
+            List<List<Candidate>> settled = new ArrayList<>();
+            List<List<Candidate>> colliding = new ArrayList<>();
+            for (List<Candidate> group : groups) {
+                (group.get(0).size <= 2L * EDGE_BYTES ? settled : colliding).add(group);
+            }
+            settled.addAll(refine(workers, colliding, true));
+            return toGroups(settled);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Drops paths that lead to a file already in the list
+     */
+    private static List<Candidate> distinctFiles(List<Candidate> sameSize) {
+        List<Candidate> distinct = new ArrayList<>(sameSize.size());
+        Set<Object> seen = new HashSet<>();
+        for (Candidate candidate : sameSize) {
+            if (candidate.fileKey == null || seen.add(candidate.fileKey)) {
+                distinct.add(candidate);
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Hashes every candidate on the workers and splits each group by hash
+     * @param workers the hashing pool
+     * @param groups groups of files that may be identical
+     * @param full true to hash whole files, false to hash their ends
+     * @return the subgroups of two or more files with equal hashes
+     */
+    private List<List<Candidate>> refine(ExecutorService workers, List<List<Candidate>> groups, boolean full)
+            throws IOException {
+        List<Candidate> all = new ArrayList<>();
+        for (List<Candidate> group : groups) {
+            all.addAll(group);
+        }
+        // Largest first, so that no long file is left to start last
+        all.sort(Comparator.comparingLong((Candidate candidate) -> candidate.size).reversed());
+
+        List<Callable<Void>> tasks = new ArrayList<>(all.size());
+        for (Candidate candidate : all) {
+            tasks.add(() -> {
+                candidate.digest = hash(candidate.path, candidate.size, full);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> task : workers.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Duplicate search interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hashing failed", e.getCause());
+        }
+
+        List<List<Candidate>> refined = new ArrayList<>();
+        for (List<Candidate> group : groups) {
+            Map<String, List<Candidate>> byDigest = new LinkedHashMap<>();
+            for (Candidate candidate : group) {
+                if (candidate.digest != null) {
+                    byDigest.computeIfAbsent(candidate.digest, digest -> new ArrayList<>()).add(candidate);
+                }
+            }
+            for (List<Candidate> same : byDigest.values()) {
+                if (same.size() > 1) {
+                    refined.add(same);
+                }
+            }
+        }
+        return refined;
+    }
+
+    /**
+     * Hashes a file, or only its ends
+     * @param file the file to read
+     * @param size its size as seen by the walk
+     * @param full true to hash the whole file
+     * @return the hash in hexadecimal, or null if the file cannot be read
+     */
+    private String hash(Path file, long size, boolean full) {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (full) {
+                ByteBuffer buffer = STREAM_BUFFER.get();
+                buffer.clear();
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    bytesRead.add(buffer.remaining());
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+                fullyHashed.increment();
+            } else {
+                ByteBuffer ends = ByteBuffer.allocate((int) Math.min(size, 2L * EDGE_BYTES));
+                readFully(channel, ends, 0, (int) Math.min(size, EDGE_BYTES));
+                if (size > EDGE_BYTES) {
+                    long tail = Math.max(EDGE_BYTES, size - EDGE_BYTES);
+                    readFully(channel, ends, tail, (int) (size - tail));
+                }
+                ends.flip();
+                bytesRead.add(ends.remaining());
+                digest.update(ends);
+            }
+        } catch (IOException e) {
+            // Unreadable files are left out like unreadable directories
+            return null;
+        }
+        return toHex(digest.digest());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(buffer.position() + length);
+        long next = position;
+        while (slice.hasRemaining()) {
+            int read = channel.read(slice, next);
+            if (read < 0) {
+                // The file shrank since the walk; its hash will not match an unchanged copy
+                break;
+            }
+            next += read;
+        }
+        buffer.position(slice.position());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST + " is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static List<Group> toGroups(List<List<Candidate>> settled) {
+        List<Group> groups = new ArrayList<>();
+        for (List<Candidate> same : settled) {
+            List<Path> files = new ArrayList<>();
+            for (Candidate candidate : same) {
+                files.add(candidate.path);
+            }
+            Collections.sort(files);
+            groups.add(new Group(same.get(0).size, files));
+        }
+        groups.sort(Comparator.comparingLong(Group::getWastedBytes).reversed()
+                .thenComparing(group -> group.files.get(0)));
+        return groups;
+    }
+
+    /**
+     * Sets the number of threads that hash files
+     * @param threads number of hashing threads
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Gets the number of threads that hash files
+     * @return thread count, the number of processors by default
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the size below which files are ignored
+     * @param minSize smallest size in bytes to consider; 1 by default, which skips empty files
+     * @throws IllegalArgumentException if minSize is negative
+     */
+    public void setMinSize(long minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("Minimum size must not be negative: " + minSize);
+        }
+        this.minSize = minSize;
+    }
+
+    /**
+     * Gets the size below which files are ignored
+     * @return smallest size in bytes considered
+     */
+    public long getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Gets how many files of the last search shared their size with another file
+     * @return number of files whose ends were hashed
+     */
+    public int getCandidateCount() {
+        return candidates;
+    }
+
+    /**
+     * Gets how many files of the last search needed a full hash
+     * @return number of fully hashed files
+     */
+    public long getFullyHashedCount() {
+        return fullyHashed.sum();
+    }
+
+    /**
+     * Gets how many bytes of file content the last search read
+     * @return bytes read for hashing
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+}
@@ -0,0 +1,599 @@
+package com.filesearch;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileNameIndex is a persistent, locate-style index of the file names under
+ * one root directory.
+ *
+ * The index file holds a directory table (relative path, modification time
+ * and listing of every directory) and a name table of every file sorted by
+ * case-folded name. Both tables have offset arrays, so a query memory-maps
+ * the file and binary-searches it without loading it. A refresh re-lists only
+ * directories whose modification time changed since the last build and reuses
+ * the recorded listing of all others. Symbolic links are followed as by
+ * the default {@link FileSearcher} walk, each directory indexed once.
+ */
+public class FileNameIndex implements NameIndex, Closeable {
+
+    private static final int MAGIC = 0x464E4958; // "FNIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 44;
+
+    private final Path indexFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Path root;
+    private final long buildTime;
+    private final int directoryCount;
+    private final long directoryOffsetsOffset;
+    private final int nameCount;
+    private final long nameOffsetsOffset;
+
+    /**
+     * Summary of a build or refresh
+     */
+    public static class Summary {
+
+        private final int directories;
+        private final int directoriesListed;
+        private final int directoriesUnreadable;
+        private final int files;
+
+        Summary(int directories, int directoriesListed, int directoriesUnreadable, int files) {
+            this.directories = directories;
+            this.directoriesListed = directoriesListed;
+            this.directoriesUnreadable = directoriesUnreadable;
+            this.files = files;
+        }
+
+        /**
+         * @return number of directories in the index
+         */
+        public int getDirectories() {
+            return directories;
+        }
+
+        /**
+         * @return number of directories that had to be read from disk
+         */
+        public int getDirectoriesListed() {
+            return directoriesListed;
+        }
+
+        /**
+         * @return number of directories that could not be read, indexed as empty
+         */
+        public int getDirectoriesUnreadable() {
+            return directoriesUnreadable;
+        }
+
+        /**
+         * @return number of files in the index
+         */
+        public int getFiles() {
+            return files;
+        }
+    }
+
+    private FileNameIndex(Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        this.channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index file too large to map: " + indexFile);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a file name index: " + indexFile);
+            }
+            this.buildTime = buffer.getLong(8);
+            long rootOffset = buffer.getLong(16);
+            this.directoryCount = buffer.getInt(24);
+            this.directoryOffsetsOffset = buffer.getLong(28);
+            this.nameCount = buffer.getInt(36);
+            this.nameOffsetsOffset = directoryOffsetsOffset + (long) directoryCount * Long.BYTES;
+            this.root = Paths.get(readString((int) rootOffset));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing index for queries
+     * @param indexFile the index file
+     * @return the opened index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    public static FileNameIndex open(Path indexFile) throws IOException {
+        return new FileNameIndex(indexFile);
+    }
+
+    /**
+     * Walks a directory tree and writes a new index for it
+     * @param rootDirectory the directory to index
+     * @param indexFile the index file to write; replaced atomically
+     * @return summary of the build
+     * @throws IOException if the root is not a directory or the index cannot be written
+     */
+    public static Summary build(Path rootDirectory, Path indexFile) throws IOException {
+        Path rootPath = rootDirectory.toAbsolutePath().normalize();
+        if (!Files.isDirectory(rootPath)) {
+            throw new IOException("Directory does not exist or is not accessible: " + rootDirectory);
+        }
+        return scanAndWrite(rootPath, indexFile, new HashMap<>());
+    }
+
+    /**
+     * Brings an index up to date, re-listing only directories whose
+     * modification time differs from the one recorded in the index
+     * @param indexFile the index file to refresh; replaced atomically
+     * @return summary of the refresh
+     * @throws IOException if the index cannot be read or written
+     */
+    public static Summary refresh(Path indexFile) throws IOException {
+        Path rootPath;
+        Map<String, DirectoryRecord> previous = new HashMap<>();
+        try (FileNameIndex index = open(indexFile)) {
+            rootPath = index.root;
+            for (int id = 0; id < index.directoryCount; id++) {
+                DirectoryRecord record = index.readDirectory(id);
+                previous.put(record.relativePath, record);
+            }
+        }
+        return scanAndWrite(rootPath, indexFile, previous);
+    }
+
+    /**
+     * Gets the directory this index covers
+     * @return absolute root directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets when the index was built or last refreshed
+     * @return build time in milliseconds since the epoch
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * Gets the number of files in the index
+     * @return file count
+     */
+    public int getFileCount() {
+        return nameCount;
+    }
+
+    @Override
+    public boolean followsLinks() {
+        return true;
+    }
+
+    @Override
+    public boolean covers(Path directory) {
+        String relative = relativize(directory);
+        return relative != null && findDirectory(relative) >= 0;
+    }
+
+    @Override
+    public List<String> lookup(Path directory, String[] fileNames, boolean caseSensitive) {
+        String prefix = relativize(directory);
+        List<String> results = new ArrayList<>();
+        if (prefix == null) {
+            return results;
+        }
+
+        // Names differing only in case are one lookup when case is ignored
+        Set<String> names = new LinkedHashSet<>();
+        for (String fileName : fileNames) {
+            names.add(FileSearcher.foldName(fileName.trim(), caseSensitive));
+        }
+
+        for (String name : names) {
+            byte[] key = FileSearcher.foldCase(name).getBytes(StandardCharsets.UTF_8);
+            for (int i = lowerBound(key); i < nameCount; i++) {
+                int offset = nameOffset(i);
+                if (compareString(offset, key) != 0) {
+                    break;
+                }
+                int nameOffset = offset + 2 + Short.toUnsignedInt(buffer.getShort(offset));
+                String actualName = readString(nameOffset);
+                if (caseSensitive && !actualName.equals(name)) {
+                    continue;
+                }
+                int dirId = buffer.getInt(nameOffset + 2 + Short.toUnsignedInt(buffer.getShort(nameOffset)));
+                String dirPath = readString(directoryOffset(dirId));
+                if (isUnder(dirPath, prefix)) {
+                    results.add(root.resolve(dirPath).resolve(actualName).toString());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Searches from the index when it covers the directory, otherwise falls
+     * back to a live walk with {@link FileSearcher}
+     * @param directoryPath the directory to search in
+     * @param fileNames file names to search for
+     * @param caseSensitive true for case-sensitive matching
+     * @return absolute paths of the matching files
+     * @throws IOException if a live walk is needed and the directory cannot be accessed
+     */
+    public List<String> search(String directoryPath, String[] fileNames, boolean caseSensitive) throws IOException {
+        Path directory = Paths.get(directoryPath);
+        if (covers(directory)) {
+            return lookup(directory, fileNames, caseSensitive);
+        }
+        return new FileSearcher(caseSensitive).searchFiles(directoryPath, fileNames);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FileNameIndex[" + indexFile + " -> " + root + "]";
+    }
+
+    // ===== Building =====
+
+    /**
+     * Listing of one directory as recorded in the index
+     */
+    private static class DirectoryRecord {
+        /** Modification time recorded for unreadable directories, so that every refresh retries them */
+        static final long UNREAD = Long.MIN_VALUE;
+
+
+        final String relativePath;
+        final long modifiedNanos;
+        final List<String> names = new ArrayList<>();
+        final List<Boolean> directories = new ArrayList<>();
+
+        DirectoryRecord(String relativePath, long modifiedNanos) {
+            this.relativePath = relativePath;
+            this.modifiedNanos = modifiedNanos;
+        }
+    }
+
+    /**
+     * One file of the name table
+     */
+    private static class NameEntry {
+        final byte[] key;
+        final byte[] name;
+        final int directoryId;
+
+        NameEntry(byte[] key, byte[] name, int directoryId) {
+            this.key = key;
+            this.name = name;
+            this.directoryId = directoryId;
+        }
+    }
+
+    private static Summary scanAndWrite(Path rootPath, Path indexFile, Map<String, DirectoryRecord> previous)
+            throws IOException {
+        List<DirectoryRecord> records = new ArrayList<>();
+        int listed = 0;
+        int unreadable = 0;
+
+        // Links are followed as by the default walk, and a directory reached again
+        // through another link (a cycle or an alias) is indexed once
+        Set<Object> visited = new HashSet<>();
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.push(rootPath);
+        while (!pending.isEmpty()) {
+            Path directory = pending.pop();
+            String relative = rootPath.relativize(directory).toString();
+
+            long modified;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+                if (!visited.add(FileSearcher.directoryKey(directory, attributes))) {
+                    continue;
+                }
+                modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            } catch (IOException e) {
+                continue;
+            }
+
+            // Unchanged directories keep their recorded listing: one stat instead of a readdir
+            DirectoryRecord record = previous.get(relative);
+            if (record == null || record.modifiedNanos != modified) {
+                record = listDirectory(directory, relative, modified);
+                listed++;
+                if (record == null) {
+                    record = new DirectoryRecord(relative, DirectoryRecord.UNREAD);
+                    unreadable++;
+                }
+            }
+            records.add(record);
+
+            for (int i = 0; i < record.names.size(); i++) {
+                if (record.directories.get(i)) {
+                    pending.push(directory.resolve(record.names.get(i)));
+                }
+            }
+        }
+
+        return write(rootPath, indexFile, records, listed, unreadable);
+    }
+
+    /**
+     * Lists one directory
+     * @return its listing, or null if the directory cannot be read
+     */
+    private static DirectoryRecord listDirectory(Path directory, String relative, long modified) {
+        DirectoryRecord record = new DirectoryRecord(relative, modified);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                boolean isDirectory;
+                try {
+                    isDirectory = Files.readAttributes(entry, BasicFileAttributes.class).isDirectory();
+                } catch (IOException e) {
+                    isDirectory = false;
+                }
+                record.names.add(entry.getFileName().toString());
+                record.directories.add(isDirectory);
+            }
+        } catch (AccessDeniedException e) {
+            return null;
+        } catch (IOException | DirectoryIteratorException e) {
+            // Directory vanished while indexing; record it as empty
+        }
+        return record;
+    }
+
+    private static Summary write(Path rootPath, Path indexFile, List<DirectoryRecord> records, int listed,
+                                 int unreadable) throws IOException {
+        Comparator<byte[]> bytes = Arrays::compareUnsigned;
+        records.sort(Comparator.comparing(record -> utf8(record.relativePath), bytes));
+
+        List<NameEntry> names = new ArrayList<>();
+        for (int id = 0; id < records.size(); id++) {
+            DirectoryRecord record = records.get(id);
+            for (int i = 0; i < record.names.size(); i++) {
+                if (!record.directories.get(i)) {
+                    String name = record.names.get(i);
+                    names.add(new NameEntry(utf8(FileSearcher.foldCase(name)), utf8(name), id));
+                }
+            }
+        }
+        names.sort(Comparator.comparing(entry -> entry.key, bytes));
+
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.position(HEADER_SIZE);
+            CountingOutputStream counter = new CountingOutputStream(Channels.newOutputStream(out), HEADER_SIZE);
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(counter, 1 << 16));
+
+            long[] directoryOffsets = new long[records.size()];
+            for (int id = 0; id < records.size(); id++) {
+                DirectoryRecord record = records.get(id);
+                data.flush();
+                directoryOffsets[id] = counter.count;
+                writeString(data, utf8(record.relativePath));
+                data.writeLong(record.modifiedNanos);
+                data.writeInt(record.names.size());
+                for (int i = 0; i < record.names.size(); i++) {
+                    data.writeBoolean(record.directories.get(i));
+                    writeString(data, utf8(record.names.get(i)));
+                }
+            }
+
+            long[] nameOffsets = new long[names.size()];
+            for (int i = 0; i < names.size(); i++) {
+                NameEntry entry = names.get(i);
+                data.flush();
+                nameOffsets[i] = counter.count;
+                writeString(data, entry.key);
+                writeString(data, entry.name);
+                data.writeInt(entry.directoryId);
+            }
+
+            data.flush();
+            long rootOffset = counter.count;
+            writeString(data, utf8(rootPath.toString()));
+
+            data.flush();
+            long directoryOffsetsOffset = counter.count;
+            for (long offset : directoryOffsets) {
+                data.writeLong(offset);
+            }
+            for (long offset : nameOffsets) {
+                data.writeLong(offset);
+            }
+            data.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putLong(rootOffset)
+                    .putInt(records.size()).putLong(directoryOffsetsOffset).putInt(names.size());
+            header.flip();
+            out.write(header, 0);
+        }
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return new Summary(records.size(), listed, unreadable, names.size());
+    }
+
+    private static void writeString(DataOutputStream data, byte[] value) throws IOException {
+        if (value.length > 0xFFFF) {
+            throw new IOException("Name too long to index: " + value.length + " bytes");
+        }
+        data.writeShort(value.length);
+        data.write(value);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Output stream that tracks the file position of the bytes it has passed on
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        long count;
+
+        CountingOutputStream(OutputStream delegate, long start) {
+            this.delegate = delegate;
+            this.count = start;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+
+    // ===== Reading =====
+
+    private DirectoryRecord readDirectory(int id) {
+        int offset = directoryOffset(id);
+        String relative = readString(offset);
+        offset += 2 + Short.toUnsignedInt(buffer.getShort(offset));
+        DirectoryRecord record = new DirectoryRecord(relative, buffer.getLong(offset));
+        int count = buffer.getInt(offset + 8);
+        offset += 12;
+        for (int i = 0; i < count; i++) {
+            record.directories.add(buffer.get(offset) != 0);
+            record.names.add(readString(offset + 1));
+            offset += 3 + Short.toUnsignedInt(buffer.getShort(offset + 1));
+        }
+        return record;
+    }
+
+    private int directoryOffset(int id) {
+        return (int) buffer.getLong((int) (directoryOffsetsOffset + (long) id * Long.BYTES));
+    }
+
+    private int nameOffset(int index) {
+        return (int) buffer.getLong((int) (nameOffsetsOffset + (long) index * Long.BYTES));
+    }
+
+    private String readString(int offset) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the length-prefixed string at an offset with a key, as unsigned bytes
+     */
+    private int compareString(int offset, byte[] key) {
+        int length = Short.toUnsignedInt(buffer.getShort(offset));
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int diff = Byte.toUnsignedInt(buffer.get(offset + 2 + i)) - Byte.toUnsignedInt(key[i]);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = nameCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareString(nameOffset(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int findDirectory(String relative) {
+        byte[] key = utf8(relative);
+        int low = 0;
+        int high = directoryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareString(directoryOffset(mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Path of a directory relative to the index root, or null if it lies outside
+     */
+    private String relativize(Path directory) {
+        Path absolute = directory.toAbsolutePath().normalize();
+        if (!absolute.startsWith(root)) {
+            return null;
+        }
+        return root.relativize(absolute).toString();
+    }
+
+    private static boolean isUnder(String directory, String prefix) {
+        if (prefix.isEmpty() || directory.equals(prefix)) {
+            return true;
+        }
+        return directory.startsWith(prefix)
+                && directory.startsWith(File.separator, prefix.length());
+    }
+}
@@ -1,7 +1,18 @@
 package com.filesearch;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
 
 /**
  * Main application class for recursive file search
@@ -9,6 +20,9 @@ import java.util.Scanner;
  */
 public class FileSearchApp {
     
+    /** Name under which the metrics of a search are published over JMX */
+    private static final String JMX_NAME = "FileSearchApp";
+    
     /**
      * Main method - entry point of the application
      * @param args command line arguments
@@ -31,28 +45,388 @@ public class FileSearchApp {
         try {
             String directoryPath = args[0];
             boolean caseSensitive = false;
+            int threads = 1;
+            int maxDepth = Integer.MAX_VALUE;
+            FileSearcher.TraversalOrder order = FileSearcher.TraversalOrder.DEPTH_FIRST;
+            List<String> excludes = new ArrayList<>();
+            List<String> contents = new ArrayList<>();
+            boolean readIgnoreFiles = false;
+            boolean followLinks = true;
+            String indexFile = null;
+            String indexCommand = null;
+            boolean watch = false;
+            boolean duplicates = false;
+            MetadataFilter filter = null;
+            int limit = Integer.MAX_VALUE;
+            boolean firstMatchOnly = false;
+            Duration deadline = null;
+            boolean progress = false;
+            boolean archives = false;
             
-            // Check for case sensitivity option
-            int fileStartIndex = 1;
-            if (args[1].equalsIgnoreCase("-case") || args[1].equalsIgnoreCase("-c")) {
-                caseSensitive = true;
-                fileStartIndex = 2;
+            // Parse options; every other argument is a file name
+            List<String> fileNames = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i].toLowerCase()) {
+                    case "-case":
+                    case "-c":
+                        caseSensitive = true;
+                        break;
+                    case "-threads":
+                    case "-t":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-maxdepth":
+                    case "-d":
+                        maxDepth = Integer.parseInt(args[++i]);
+                        break;
+                    case "-bfs":
+                        order = FileSearcher.TraversalOrder.BREADTH_FIRST;
+                        break;
+                    case "-dfs":
+                        order = FileSearcher.TraversalOrder.DEPTH_FIRST;
+                        break;
+                    case "-exclude":
+                    case "-x":
+                        excludes.add(args[++i]);
+                        break;
+                    case "-content":
+                    case "-g":
+                        contents.add(args[++i]);
+                        break;
+                    case "-ignore-files":
+                    case "-i":
+                        readIgnoreFiles = true;
+                        break;
+                    case "-no-follow":
+                    case "-p":
+                        followLinks = false;
+                        break;
+                    case "-size":
+                        filter = both(filter, parseSize(args[++i]));
+                        break;
+                    case "-mtime":
+                        filter = both(filter, parseAge(args[++i], false));
+                        break;
+                    case "-ctime":
+                        filter = both(filter, parseAge(args[++i], true));
+                        break;
+                    case "-type":
+                        filter = both(filter, parseType(args[++i]));
+                        break;
+                    case "-user":
+                        filter = both(filter, MetadataFilter.ownedBy(args[++i]));
+                        break;
+                    case "-limit":
+                    case "-n":
+                        limit = Integer.parseInt(args[++i]);
+                        break;
+                    case "-first":
+                    case "-1":
+                        firstMatchOnly = true;
+                        break;
+                    case "-deadline":
+                        deadline = Duration.ofMillis(Math.round(Double.parseDouble(args[++i]) * 1000));
+                        break;
+                    case "-progress":
+                        progress = true;
+                        break;
+                    case "-archives":
+                    case "-z":
+                        archives = true;
+                        break;
+                    case "-duplicates":
+                    case "-dup":
+                        duplicates = true;
+                        break;
+                    case "-watch":
+                    case "-w":
+                        watch = true;
+                        break;
+                    case "-index":
+                    case "-build-index":
+                    case "-refresh-index":
+                        indexCommand = args[i].toLowerCase();
+                        indexFile = args[++i];
+                        break;
+                    default:
+                        fileNames.add(args[i]);
+                }
             }
             
-            // Extract file names
-            String[] fileNames = new String[args.length - fileStartIndex];
-            for (int i = fileStartIndex; i < args.length; i++) {
-                fileNames[i - fileStartIndex] = args[i];
+            if (watch) {
+                watchAndSearch(directoryPath, caseSensitive);
+            } else if ("-build-index".equals(indexCommand) || "-refresh-index".equals(indexCommand)) {
+                updateIndex(directoryPath, Paths.get(indexFile), "-build-index".equals(indexCommand));
+            } else if (indexFile != null) {
+                performIndexedSearch(directoryPath, fileNames.toArray(new String[0]), caseSensitive,
+                        Paths.get(indexFile));
+            } else {
+                FileSearcher searcher = new FileSearcher(caseSensitive);
+                searcher.setThreads(threads);
+                searcher.setMaxDepth(maxDepth);
+                searcher.setTraversalOrder(order);
+                searcher.setExcludePatterns(excludes.toArray(new String[0]));
+                searcher.setReadIgnoreFiles(readIgnoreFiles);
+                searcher.setFollowLinks(followLinks);
+                searcher.setContentPatterns(contents.toArray(new String[0]));
+                searcher.setFilter(filter);
+                searcher.setLimit(limit);
+                searcher.setFirstMatchOnly(firstMatchOnly);
+                searcher.setDeadline(deadline);
+                searcher.setSearchArchives(archives);
+                if (duplicates) {
+                    findDuplicates(directoryPath, fileNames.toArray(new String[0]), searcher);
+                } else {
+                    performSearch(directoryPath, fileNames.toArray(new String[0]), searcher, progress);
+                }
             }
             
-            performSearch(directoryPath, fileNames, caseSensitive);
-            
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             printUsage();
         }
     }
     
+    /**
+     * Adds a filter to those given so far
+     * @param filter filters given so far, or null
+     * @param next the filter to add
+     * @return a filter passing entries that pass both
+     */
+    private static MetadataFilter both(MetadataFilter filter, MetadataFilter next) {
+        return filter == null ? next : filter.and(next);
+    }
+    
+    /**
+     * Parses a size filter in the style of find: {@code +100M} for larger
+     * than 100 MiB, {@code -4k} for smaller than 4 KiB, {@code 512} for
+     * exactly 512 bytes. Suffixes k, M and G are powers of 1024.
+     * @param text the size argument
+     * @return the filter
+     */
+    private static MetadataFilter parseSize(String text) {
+        char sign = text.charAt(0);
+        String number = sign == '+' || sign == '-' ? text.substring(1) : text;
+        long unit = 1;
+        switch (Character.toUpperCase(number.charAt(number.length() - 1))) {
+            case 'K':
+                unit = 1L << 10;
+                break;
+            case 'M':
+                unit = 1L << 20;
+                break;
+            case 'G':
+                unit = 1L << 30;
+                break;
+            default:
+                break;
+        }
+        if (unit > 1) {
+            number = number.substring(0, number.length() - 1);
+        }
+        long count = Long.parseLong(number);
+        if (count < 0 || count > Long.MAX_VALUE / unit) {
+            throw new IllegalArgumentException("Invalid size: " + text);
+        }
+        long bytes = count * unit;
+        if (sign == '+') {
+            return MetadataFilter.largerThan(bytes);
+        } else if (sign == '-') {
+            return MetadataFilter.smallerThan(bytes);
+        }
+        return MetadataFilter.size(bytes, bytes);
+    }
+    
+    /**
+     * Parses an age filter in days in the style of find: {@code -1} for
+     * less than a day ago, {@code +7} for more than seven days ago,
+     * {@code 2} for between two and three days ago
+     * @param text the age argument
+     * @param creation true to filter on creation time, false on modification time
+     * @return the filter
+     */
+    private static MetadataFilter parseAge(String text, boolean creation) {
+        char sign = text.charAt(0);
+        long days = Long.parseLong(sign == '+' || sign == '-' ? text.substring(1) : text);
+        Instant now = Instant.now();
+        Instant from;
+        Instant to;
+        if (sign == '-') {
+            from = now.minus(Duration.ofDays(days));
+            to = null;
+        } else if (sign == '+') {
+            from = null;
+            to = now.minus(Duration.ofDays(days));
+        } else {
+            from = now.minus(Duration.ofDays(days + 1));
+            to = now.minus(Duration.ofDays(days));
+        }
+        return creation ? MetadataFilter.created(from, to) : MetadataFilter.modified(from, to);
+    }
+    
+    /**
+     * Parses a type filter: f for files, d for directories, l for links
+     * (with -no-follow), or several letters such as {@code fd}
+     * @param text the type letters
+     * @return the filter
+     */
+    private static MetadataFilter parseType(String text) {
+        List<MetadataFilter.Type> types = new ArrayList<>();
+        for (char letter : text.toCharArray()) {
+            switch (letter) {
+                case 'f':
+                    types.add(MetadataFilter.Type.FILE);
+                    break;
+                case 'd':
+                    types.add(MetadataFilter.Type.DIRECTORY);
+                    break;
+                case 'l':
+                    types.add(MetadataFilter.Type.SYMLINK);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown type: " + letter);
+            }
+        }
+        return MetadataFilter.type(types.toArray(new MetadataFilter.Type[0]));
+    }
+    
+    /**
+     * Builds a file name index for a directory, or refreshes an existing one
+     * @param directoryPath directory to index
+     * @param indexFile index file to write
+     * @param rebuild true to walk the whole tree, false to re-read only changed directories
+     * @throws Exception if the index cannot be built
+     */
+    private static void updateIndex(String directoryPath, Path indexFile, boolean rebuild) throws Exception {
+        long startTime = System.nanoTime();
+        FileNameIndex.Summary summary;
+        if (rebuild) {
+            summary = FileNameIndex.build(Paths.get(directoryPath), indexFile);
+        } else {
+            summary = FileNameIndex.refresh(indexFile);
+        }
+        double duration = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        System.out.println((rebuild ? "Built" : "Refreshed") + " index: " + indexFile);
+        System.out.println("Directories: " + summary.getDirectories()
+                + " (" + summary.getDirectoriesListed() + " read from disk)");
+        if (summary.getDirectoriesUnreadable() > 0) {
+            System.out.println("Warning: " + summary.getDirectoriesUnreadable()
+                    + " directories could not be read and were indexed as empty");
+        }
+        System.out.println("Files: " + summary.getFiles());
+        System.out.printf("Time taken: %.3f ms%n", duration);
+    }
+    
+    /**
+     * Indexes a directory in memory, keeps the index current while it changes,
+     * and answers searches typed on standard input until an empty line
+     * @param directoryPath directory to watch
+     * @param caseSensitive case sensitivity setting
+     * @throws Exception if the directory cannot be watched
+     */
+    private static void watchAndSearch(String directoryPath, boolean caseSensitive) throws Exception {
+        Scanner scanner = new Scanner(System.in);
+        try (WatchedNameIndex index = new WatchedNameIndex(Paths.get(directoryPath))) {
+            FileSearcher searcher = new FileSearcher(caseSensitive);
+            // The watched index does not descend into links; the walk must not either
+            searcher.setFollowLinks(false);
+            searcher.setIndex(index);
+            System.out.println("Watching " + index.getRoot() + " (" + index.getFileCount() + " files)");
+            
+            while (true) {
+                System.out.print("\nEnter file names to search (separated by commas), or empty line to quit: ");
+                if (!scanner.hasNextLine()) {
+                    break;
+                }
+                String line = scanner.nextLine().trim();
+                if (line.isEmpty()) {
+                    break;
+                }
+                
+                long startTime = System.nanoTime();
+                List<String> results = searcher.searchFiles(directoryPath, line.split(","));
+                double duration = (System.nanoTime() - startTime) / 1_000_000.0;
+                
+                for (int i = 0; i < results.size(); i++) {
+                    System.out.println((i + 1) + ". " + results.get(i));
+                }
+                System.out.printf("Found %d file(s) in %.3f ms%n", results.size(), duration);
+            }
+        }
+    }
+    
+    /**
+     * Answers a search from a file name index, walking the directory live
+     * when the index does not cover it
+     * @param directoryPath directory to search in
+     * @param fileNames files to search for
+     * @param caseSensitive case sensitivity setting
+     * @param indexFile index file to query
+     */
+    private static void performIndexedSearch(String directoryPath, String[] fileNames, boolean caseSensitive,
+                                             Path indexFile) {
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            boolean covered = index.covers(Paths.get(directoryPath));
+            System.out.println("\nSearching for files in: " + directoryPath);
+            System.out.println("Index: " + indexFile + (covered ? "" : " (not covered, walking live)"));
+            System.out.println("Files to find: " + String.join(", ", fileNames));
+            System.out.println("=" .repeat(50));
+            
+            long startTime = System.nanoTime();
+            List<String> results = index.search(directoryPath, fileNames, caseSensitive);
+            double duration = (System.nanoTime() - startTime) / 1_000_000.0;
+            
+            for (int i = 0; i < results.size(); i++) {
+                System.out.println((i + 1) + ". " + results.get(i));
+            }
+            System.out.println("\n" + "=" .repeat(50));
+            System.out.printf("Time taken: %.3f ms%n", duration);
+            System.out.println(results.isEmpty() ? "No files found." : "Found " + results.size() + " file(s)");
+            
+        } catch (Exception e) {
+            System.err.println("Search failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Finds files with identical content and prints them in groups
+     * @param directoryPath directory to search in
+     * @param fileNames files or patterns to compare; none for all files
+     * @param searcher configured searcher that walks the tree
+     */
+    private static void findDuplicates(String directoryPath, String[] fileNames, FileSearcher searcher) {
+        try {
+            DuplicateFinder finder = new DuplicateFinder(searcher);
+            System.out.println("\nFinding duplicate files in: " + directoryPath);
+            System.out.println("=" .repeat(50));
+            
+            long startTime = System.nanoTime();
+            List<DuplicateFinder.Group> groups = finder.findDuplicates(directoryPath, fileNames);
+            double duration = (System.nanoTime() - startTime) / 1_000_000.0;
+            
+            long wasted = 0;
+            for (DuplicateFinder.Group group : groups) {
+                System.out.println("\n" + group.getFiles().size() + " files of " + group.getSize() + " bytes:");
+                for (Path file : group.getFiles()) {
+                    System.out.println("  " + file);
+                }
+                wasted += group.getWastedBytes();
+            }
+            
+            System.out.println("\n" + "=" .repeat(50));
+            System.out.printf("Time taken: %.3f ms%n", duration);
+            System.out.println("Files sharing a size: " + finder.getCandidateCount()
+                    + " (" + finder.getFullyHashedCount() + " hashed in full, "
+                    + finder.getBytesRead() + " bytes read)");
+            System.out.println(groups.isEmpty() ? "No duplicates found."
+                    : "Found " + groups.size() + " group(s) of duplicates, " + wasted + " bytes wasted");
+            
+        } catch (Exception e) {
+            System.err.println("Duplicate search failed: " + e.getMessage());
+        }
+    }
+    
     /**
      * Starts interactive mode for user input
      */
@@ -75,7 +449,7 @@ public class FileSearchApp {
             String fileInput = scanner.nextLine();
             String[] fileNames = fileInput.split(",");
             
-            performSearch(directoryPath, fileNames, caseSensitive);
+            performSearch(directoryPath, fileNames, new FileSearcher(caseSensitive), false);
             
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
@@ -88,37 +462,78 @@ public class FileSearchApp {
      * Performs the file search operation
      * @param directoryPath directory to search in
      * @param fileNames files to search for
-     * @param caseSensitive case sensitivity setting
+     * @param searcher configured searcher to run
+     * @param progress true to print progress every second and publish metrics over JMX
      */
-    private static void performSearch(String directoryPath, String[] fileNames, boolean caseSensitive) {
+    private static void performSearch(String directoryPath, String[] fileNames, FileSearcher searcher,
+                                      boolean progress) {
         try {
-            FileSearcher searcher = new FileSearcher(caseSensitive);
-            
             System.out.println("\nSearching for files in: " + directoryPath);
-            System.out.println("Case sensitive: " + caseSensitive);
+            System.out.println("Case sensitive: " + searcher.isCaseSensitive());
+            System.out.println("Threads: " + searcher.getThreads());
+            if (searcher.getMaxDepth() != Integer.MAX_VALUE) {
+                System.out.println("Max depth: " + searcher.getMaxDepth());
+            }
+            if (!searcher.getExcludePatterns().isEmpty()) {
+                System.out.println("Excluding: " + String.join(", ", searcher.getExcludePatterns()));
+            }
+            if (searcher.isReadIgnoreFiles()) {
+                System.out.println("Honouring .gitignore and .ignore files");
+            }
             System.out.println("Files to find: " + String.join(", ", fileNames));
+            if (!searcher.getContentPatterns().isEmpty()) {
+                System.out.println("Containing: " + String.join(", ", searcher.getContentPatterns()));
+            }
             System.out.println("=" .repeat(50));
             
-            List<String> results = searcher.searchFiles(directoryPath, fileNames);
+            // Print each hit as soon as it is found instead of after the whole walk
+            AtomicInteger found = new AtomicInteger();
+            SearchMetrics metrics = searcher.getMetrics();
+            ScheduledExecutorService reporter = progress ? startProgress(metrics) : null;
+            long startTime = System.nanoTime();
+            try {
+                searcher.search(directoryPath, fileNames,
+                        file -> System.out.println(found.incrementAndGet() + ". " + file));
+            } finally {
+                if (reporter != null) {
+                    reporter.shutdownNow();
+                    SearchMetrics.unregister(JMX_NAME);
+                }
+            }
+            double duration = (System.nanoTime() - startTime) / 1_000_000.0;
             
             // Display summary
             System.out.println("\n" + "=" .repeat(50));
-            System.out.println("SEARCH COMPLETED");
+            System.out.println(searcher.isCompleted() ? "SEARCH COMPLETED" : "SEARCH STOPPED EARLY (partial results)");
             System.out.println("=" .repeat(50));
+            System.out.printf("Time taken: %.3f ms%n", duration);
+            if (searcher.getPrunedDirectoryCount() > 0) {
+                System.out.println("Directories pruned: " + searcher.getPrunedDirectoryCount());
+            }
+            if (searcher.getRepeatedDirectoryCount() > 0) {
+                System.out.println("Link cycles and aliases skipped: " + searcher.getRepeatedDirectoryCount());
+            }
+            if (progress) {
+                System.out.println("Directories scanned: " + metrics.getDirectoriesVisited()
+                        + ", entries examined: " + metrics.getEntriesVisited()
+                        + ", deepest level: " + metrics.getMaxDepthReached());
+                System.out.printf("Directory scan time: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                        metrics.getListingLatencyP50() / 1e6, metrics.getListingLatencyP99() / 1e6,
+                        metrics.getListingLatencyMax() / 1e6);
+            }
+            if (metrics.getErrors() > 0) {
+                System.out.println("Errors: " + metrics.getErrorsByType());
+            }
             
-            if (results.isEmpty()) {
+            if (found.get() == 0) {
                 System.out.println("No files found.");
             } else {
-                System.out.println("Found " + results.size() + " file(s):");
-                for (int i = 0; i < results.size(); i++) {
-                    System.out.println((i + 1) + ". " + results.get(i));
-                }
+                System.out.println("Found " + found.get() + " file(s)");
                 
-                // Count occurrences for each file
+                // Counts were kept during the walk; no second pass over the results
                 System.out.println("\nOccurrence count:");
-                for (String fileName : fileNames) {
-                    int count = searcher.countFileOccurrences(fileName.trim());
-                    System.out.println("  " + fileName + ": " + count + " time(s)");
+                for (Map.Entry<String, Long> count : searcher.getOccurrenceCounts().entrySet()) {
+                    System.out.println("  " + count.getKey() + ": " + count.getValue() + " time(s)");
                 }
             }
             
@@ -127,15 +542,88 @@ public class FileSearchApp {
         }
     }
     
+    /**
+     * Publishes a searcher's metrics over JMX and prints a progress line to
+     * standard error every second while the search runs
+     * @param metrics the searcher's metrics
+     * @return the reporting thread, to be shut down when the search is done
+     */
+    private static ScheduledExecutorService startProgress(SearchMetrics metrics) {
+        try {
+            SearchMetrics.unregister(JMX_NAME);
+            metrics.register(JMX_NAME);
+        } catch (JMException e) {
+            System.err.println("Warning: Cannot publish metrics over JMX: " + e.getMessage());
+        }
+        
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startTime = System.nanoTime();
+        long[] last = {startTime, metrics.getEntriesVisited()};
+        reporter.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            long entries = metrics.getEntriesVisited();
+            double rate = (entries - last[1]) * 1e9 / Math.max(1, now - last[0]);
+            last[0] = now;
+            last[1] = entries;
+            System.err.printf("[%.0fs] %,d entries (%,.0f/s), %,d directories, depth %d, %,d matches, %,d errors%n",
+                    (now - startTime) / 1e9, entries, rate, metrics.getDirectoriesVisited(),
+                    metrics.getCurrentDepth(), metrics.getMatches(), metrics.getErrors());
+        }, 1, 1, TimeUnit.SECONDS);
+        return reporter;
+    }
+    
     /**
      * Prints usage instructions
      */
     private static void printUsage() {
         System.out.println("\nUsage:");
-        System.out.println("  java FileSearchApp <directory> [-case] <file1> [file2 ...]");
+        System.out.println("  java FileSearchApp <directory> [options] <file1|pattern> [file2 ...]");
+        System.out.println("\nOptions:");
+        System.out.println("  -case, -c           Case-sensitive matching");
+        System.out.println("  -threads, -t <n>    Walk the tree with n threads (default 1)");
+        System.out.println("  -maxdepth, -d <n>   Search at most n levels of subdirectories");
+        System.out.println("  -bfs, -dfs          Visit directories breadth-first or depth-first (default)");
+        System.out.println("  -exclude, -x <glob> Skip matching entries and subtrees (.gitignore syntax, repeatable)");
+        System.out.println("  -ignore-files, -i   Honour .gitignore and .ignore files found while searching");
+        System.out.println("  -content, -g <text> Only files containing text (regex:... for a regex, repeatable)");
+        System.out.println("  -no-follow, -p      Do not follow symbolic links (followed once each by default)");
+        System.out.println("  -size [+-]<n>[kMG]  Larger (+) or smaller (-) than, or exactly, n bytes");
+        System.out.println("  -mtime [+-]<days>   Modified less (-) or more (+) than days ago");
+        System.out.println("  -ctime [+-]<days>   Created less (-) or more (+) than days ago");
+        System.out.println("  -type f|d|l         Files, directories, or links (with -no-follow)");
+        System.out.println("  -user <name>        Owned by user");
+        System.out.println("  -limit, -n <n>      Stop after n matches");
+        System.out.println("  -first, -1          Stop at the first match");
+        System.out.println("  -deadline <seconds> Stop after this long, keeping the matches found so far");
+        System.out.println("  -progress           Print progress every second and publish metrics over JMX");
+        System.out.println("  -archives, -z       Search inside zip, jar, war and ear files (reported as archive!/entry)");
+        System.out.println("  -duplicates, -dup   Group files with identical content (all files if none given)");
+        System.out.println("  -watch, -w          Index in memory, follow changes, read queries from stdin");
+        System.out.println("  -index <file>       Answer from a file name index");
+        System.out.println("  -build-index <file> Index the directory into file");
+        System.out.println("  -refresh-index <file> Re-read changed directories into an existing index");
+        System.out.println("\nPatterns:");
+        System.out.println("  *.log, config-*.yaml  Globs (quote them in the shell)");
+        System.out.println("  ^core\\.\\d+$, regex:...  Regular expressions");
         System.out.println("\nExamples:");
         System.out.println("  java FileSearchApp /home/user/documents -case readme.txt");
         System.out.println("  java FileSearchApp C:\\Projects config.xml pom.xml");
+        System.out.println("  java FileSearchApp /data -threads 8 core.log");
+        System.out.println("  java FileSearchApp ~/src -x .git -x node_modules/ -i package.json");
+        System.out.println("  java FileSearchApp /var/log '*.log' '^core\\.\\d+$'");
+        System.out.println("  java FileSearchApp ~/src '*.java' -g TODO -g 'regex:FIXME\\(\\w+\\)'");
+        System.out.println("  java FileSearchApp /var/log '*.log' -size +100M -mtime -1");
+        System.out.println("  java FileSearchApp / -threads 8 -first libssl.so.3");
+        System.out.println("  java FileSearchApp /data -limit 10 -deadline 2.5 '*.csv'");
+        System.out.println("  java FileSearchApp /mnt/nfs -threads 16 -progress '*.iso'");
+        System.out.println("  java FileSearchApp ~/.m2/repository -archives -threads 8 'LoggerFactory.class'");
+        System.out.println("  java FileSearchApp ~/photos -duplicates '*.jpg'");
+        System.out.println("  java FileSearchApp /data -build-index data.idx");
+        System.out.println("  java FileSearchApp /data/logs -index data.idx core.log");
         System.out.println("  java FileSearchApp (for interactive mode)");
     }
 }
\ No newline at end of file
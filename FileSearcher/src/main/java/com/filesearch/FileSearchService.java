@@ -0,0 +1,302 @@
+package com.filesearch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FileSearchService runs searches for many callers at once on one shared,
+ * fixed-size pool of worker threads.
+ *
+ * The service holds no per-query state of its own: each query gets a fresh
+ * searcher configured from its {@link SearchOptions} and returns an
+ * immutable {@link SearchResult}, so one instance can be shared freely.
+ *
+ * Queries are walked in slices of a few directories. The pool takes slices
+ * first in, first out, and a query keeps at most its fair share of the pool
+ * (the pool size divided by the number of running queries) queued at a
+ * time, so a huge query spreads over idle workers but cannot starve small
+ * queries submitted after it.
+ *
+ * A query stops early, with the files found so far, at its limit or its
+ * deadline (see {@link SearchOptions}), or when cancelled through the
+ * {@link SearchHandle} returned by {@link #start}. Closing the service
+ * fails every query still queued or running with an IOException.
+ */
+public class FileSearchService implements Closeable {
+
+    /** Directories a worker scans for one query before moving on to the next slice */
+    static final int SLICE_DIRECTORIES = 16;
+
+    private final ThreadPoolExecutor workers;
+    private final int threads;
+    /** Queries being walked, so that closing the service can fail them */
+    private final Set<Query> activeQueries = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor for FileSearchService
+     * @param threads number of worker threads shared by all queries
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public FileSearchService(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+        AtomicInteger created = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "file-search-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Searches for files and waits for the result
+     * @param directoryPath the path to search in
+     * @param fileNames file names or patterns to search for
+     * @param options settings of this query
+     * @return the result of the query
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    public SearchResult search(String directoryPath, String[] fileNames, SearchOptions options) throws IOException {
+        try {
+            return submit(directoryPath, fileNames, options).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Search interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Search failed", cause);
+        }
+    }
+
+    /**
+     * Starts a search on the shared pool and returns at once
+     * @param directoryPath the path to search in
+     * @param fileNames file names or patterns to search for
+     * @param options settings of this query
+     * @return the result, completed exceptionally with an IOException if the
+     *         directory doesn't exist or cannot be accessed
+     */
+    public CompletableFuture<SearchResult> submit(String directoryPath, String[] fileNames, SearchOptions options) {
+        return start(directoryPath, fileNames, options).getResult();
+    }
+
+    /**
+     * Starts a search on the shared pool and returns a handle that can stop it
+     * @param directoryPath the path to search in
+     * @param fileNames file names or patterns to search for
+     * @param options settings of this query
+     * @return handle to the running query and its result
+     */
+    public SearchHandle start(String directoryPath, String[] fileNames, SearchOptions options) {
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        FileSearcher searcher = options.newSearcher();
+        try {
+            Query query = new Query(directoryPath, fileNames.clone(), searcher, options.getMaxDepth(), result);
+            if (query.scanner == null) {
+                query.finish();
+            } else {
+                activeQueries.add(query);
+                query.schedule();
+            }
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return new SearchHandle(result, searcher);
+    }
+
+    /**
+     * Gets the number of worker threads
+     * @return thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Gets the number of queries being walked
+     * @return running query count
+     */
+    public int getActiveQueryCount() {
+        return activeQueries.size();
+    }
+
+    /**
+     * Stops the workers; queries still queued or running fail
+     */
+    @Override
+    public void close() {
+        List<Runnable> dropped = workers.shutdownNow();
+        for (Runnable slice : dropped) {
+            ((Query) slice).drop();
+        }
+        for (Query query : activeQueries) {
+            query.abort();
+        }
+    }
+
+    /**
+     * One running query: its own searcher, frontier and results
+     */
+    private final class Query implements Runnable {
+
+        private final String directoryPath;
+        private final FileSearcher searcher;
+        private final DirectoryScanner scanner;
+        private final int maxDepth;
+        private final CompletableFuture<SearchResult> result;
+        private final Queue<String> found = new ConcurrentLinkedQueue<>();
+        private final long startTime = System.nanoTime();
+
+        /** Directories still to scan; guarded by this query */
+        private final Deque<DirectoryWalker.Pending> frontier = new ArrayDeque<>();
+        /** Slices queued or running; guarded by this query */
+        private int slices;
+        private boolean failed;
+
+        Query(String directoryPath, String[] fileNames, FileSearcher searcher, int maxDepth,
+              CompletableFuture<SearchResult> result) throws IOException {
+            this.directoryPath = directoryPath;
+            this.searcher = searcher;
+            this.maxDepth = maxDepth;
+            this.result = result;
+            this.scanner = searcher.prepareWalk(directoryPath, fileNames,
+                    (file, attributes, keys) -> found.add(file.toString()));
+            frontier.add(new DirectoryWalker.Pending(Paths.get(directoryPath).toAbsolutePath(), 0));
+        }
+
+        /**
+         * Queues as many slices as the query's fair share of the pool allows
+         */
+        synchronized void schedule() {
+            int share = Math.max(1, threads / Math.max(1, activeQueries.size()));
+            int wanted = Math.min(share, (frontier.size() + SLICE_DIRECTORIES - 1) / SLICE_DIRECTORIES);
+            while (slices < wanted && !failed) {
+                slices++;
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    slices--;
+                    fail(new IOException("Search service is closed"));
+                    if (slices == 0) {
+                        activeQueries.remove(this);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Forgets a queued slice the closed pool will never run
+         */
+        synchronized void drop() {
+            slices--;
+            abort();
+        }
+
+        /**
+         * Fails the query because the service closed; slices still running
+         * end it when they finish
+         */
+        synchronized void abort() {
+            fail(new IOException("Search service is closed"));
+            searcher.cancel();
+            if (slices == 0) {
+                activeQueries.remove(this);
+            }
+        }
+
+        /**
+         * Scans one slice of directories
+         */
+        @Override
+        public void run() {
+            List<DirectoryWalker.Pending> slice = new ArrayList<>(SLICE_DIRECTORIES);
+            synchronized (this) {
+                if (searcher.isStopped()) {
+                    // Limit, deadline or cancellation: the directories left are not read
+                    frontier.clear();
+                }
+                while (slice.size() < SLICE_DIRECTORIES && !frontier.isEmpty() && !failed) {
+                    slice.add(frontier.pollLast());
+                }
+            }
+
+            List<DirectoryWalker.Pending> discovered = new ArrayList<>();
+            List<Path> subdirectories = new ArrayList<>();
+            try {
+                for (DirectoryWalker.Pending directory : slice) {
+                    subdirectories.clear();
+                    scanner.scan(directory.path, subdirectories);
+                    if (directory.depth < maxDepth) {
+                        for (Path subdirectory : subdirectories) {
+                            discovered.add(new DirectoryWalker.Pending(subdirectory, directory.depth + 1));
+                        }
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                // Failed here rather than thrown, so the slice is still accounted for below
+                synchronized (this) {
+                    fail(e);
+                }
+            }
+
+            boolean done;
+            boolean succeeded;
+            synchronized (this) {
+                frontier.addAll(discovered);
+                slices--;
+                done = slices == 0 && (frontier.isEmpty() || failed);
+                succeeded = !failed;
+                if (!done) {
+                    schedule();
+                }
+            }
+            if (done) {
+                activeQueries.remove(this);
+                if (succeeded) {
+                    finish();
+                }
+            }
+        }
+
+        private void fail(Throwable cause) {
+            failed = true;
+            frontier.clear();
+            result.completeExceptionally(cause);
+        }
+
+        void finish() {
+            result.complete(new SearchResult(directoryPath, new ArrayList<>(found),
+                    searcher.getOccurrenceCounts(), searcher.getPrunedDirectoryCount(),
+                    searcher.getRepeatedDirectoryCount(), System.nanoTime() - startTime,
+                    searcher.isCompleted()));
+        }
+    }
+}
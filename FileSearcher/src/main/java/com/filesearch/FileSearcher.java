@@ -1,21 +1,102 @@
 package com.filesearch;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jdk.jfr.FlightRecorder;
 
 /**
  * FileSearcher class provides recursive file search functionality
  * with support for multiple files, case sensitivity options, and counting.
+ * Results can be collected into a list, pushed to a callback as they are
+ * found, or pulled lazily from a stream. With a {@link NameIndex} set,
+ * searches in the directories it covers are answered without a walk.
+ * With content patterns set, files matching by name are also read, and
+ * only those containing one of the patterns are reported. A
+ * {@link MetadataFilter} narrows matches by size, times, type or owner.
+ * A search can stop early, with the matches found so far, after a number
+ * of matches, at a deadline, or when cancelled from another thread.
+ * Every search adds to {@link SearchMetrics}, which can be read from JMX.
+ * Zip and jar archives can be searched too, entries reported as
+ * {@code archive!/entry}.
  */
 public class FileSearcher {
     
+    /** Extensions of the files searched as archives, see {@link #setSearchArchives} */
+    private static final String[] ARCHIVE_EXTENSIONS = {".zip", ".jar", ".war", ".ear"};
+    
+    /** Archives nested deeper than this in other archives are not opened */
+    private static final int MAX_ARCHIVE_NESTING = 8;
+    
+    /**
+     * Order in which a sequential walk visits directories
+     */
+    public enum TraversalOrder {
+        /** Finish each subtree before its next sibling, in listing order */
+        DEPTH_FIRST,
+        /** Finish each level of the tree before the next one */
+        BREADTH_FIRST
+    }
+    
     private boolean caseSensitive;
     private List<String> searchResults;
+    private Map<String, LongAdder> occurrenceCounts;
+    private boolean countsCaseSensitive;
+    private int threads;
+    private TraversalOrder traversalOrder;
+    private int maxDepth;
+    private List<String> excludePatterns;
+    private boolean readIgnoreFiles;
+    private LongAdder prunedDirectories;
+    private boolean followLinks;
+    private LongAdder repeatedDirectories;
+    private NameIndex index;
+    private List<String> contentPatterns;
+    private MetadataFilter filter;
+    private DirectoryCache listingCache;
+    private int limit;
+    private boolean firstMatchOnly;
+    private Duration deadline;
+    private volatile SearchControl control;
+    private SearchMetrics metrics;
+    private boolean searchArchives;
     
     /**
      * Constructor for FileSearcher
@@ -24,93 +105,929 @@ public class FileSearcher {
     public FileSearcher(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
         this.searchResults = new ArrayList<>();
+        // Filled before each walk and only read during it, so workers can share it
+        this.occurrenceCounts = new LinkedHashMap<>();
+        this.countsCaseSensitive = caseSensitive;
+        this.threads = 1;
+        this.traversalOrder = TraversalOrder.DEPTH_FIRST;
+        this.maxDepth = Integer.MAX_VALUE;
+        this.excludePatterns = new ArrayList<>();
+        this.readIgnoreFiles = false;
+        this.prunedDirectories = new LongAdder();
+        this.followLinks = true;
+        this.repeatedDirectories = new LongAdder();
+        this.index = null;
+        this.contentPatterns = new ArrayList<>();
+        this.filter = null;
+        this.listingCache = null;
+        this.limit = Integer.MAX_VALUE;
+        this.firstMatchOnly = false;
+        this.deadline = null;
+        this.control = null;
+        this.metrics = new SearchMetrics();
+        this.searchArchives = false;
     }
     
     /**
-     * Searches for multiple files in the specified directory and its subdirectories
+     * Searches for multiple files in the specified directory and its subdirectories.
+     * The tree is walked once for all names: each entry's name is looked up in a
+     * hash set of the (case-folded) targets, and hits are tallied per name.
+     * Besides plain names, globs such as {@code *.log} or {@code config-*.yaml}
+     * and regular expressions such as {@code ^core\.\d+$} are accepted; see
+     * {@link NameMatcher}. A file matching several patterns is reported once
+     * and counted under each of them.
      * @param directoryPath the path to search in
-     * @param fileNames array of file names to search for
+     * @param fileNames array of file names or patterns to search for
      * @return List of found file paths
      * @throws IOException if directory doesn't exist or cannot be accessed
      */
     public List<String> searchFiles(String directoryPath, String[] fileNames) throws IOException {
+        Queue<String> found = new ConcurrentLinkedQueue<>();
+        search(directoryPath, fileNames, file -> found.add(file.toString()));
+        
+        searchResults.addAll(found);
+        return new ArrayList<>(searchResults);
+    }
+    
+    /**
+     * Searches for files and hands each match to a callback as soon as it is found,
+     * without accumulating results. With more than one thread the callback is
+     * invoked concurrently from the walking threads and must be thread-safe; the
+     * same holds for content searches, which report from their reading threads.
+     * Occurrence counts are kept; {@link #getSearchResults()} is left empty.
+     * @param directoryPath the path to search in
+     * @param fileNames array of file names or patterns to search for
+     * @param onMatch receives the path of every matching file
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    public void search(String directoryPath, String[] fileNames, Consumer<Path> onMatch) throws IOException {
+        search(directoryPath, fileNames, (file, attributes, keys) -> onMatch.accept(file));
+    }
+    
+    /**
+     * Searches for files and hands each match to a sink together with the
+     * attributes the walk read for it, so callers that need sizes or times
+     * do not read them again. Threading is as for {@link #search(String, String[], Consumer)}.
+     * @param directoryPath the path to search in
+     * @param fileNames array of file names or patterns to search for
+     * @param onMatch receives every matching file
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    void search(String directoryPath, String[] fileNames, MatchSink onMatch) throws IOException {
+        Path root = startSearch(directoryPath);
+        NameMatcher targets = prepareTargets(fileNames);
+        ContentScanner contents = prepareContents();
+        if (targets.getKeys().isEmpty()) {
+            return;
+        }
+        SearchEvent event = FlightRecorder.isInitialized() ? new SearchEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        
+        // Counted for this search alone: the metrics may be shared with other searches
+        LongAdder matched = new LongAdder();
+        SearchControl control = this.control;
+        MatchSink sink = (file, attributes, keys) -> {
+            if (control.admit()) {
+                countMatch(keys);
+                matched.increment();
+                onMatch.accept(file, attributes, keys);
+            }
+        };
+        ContentStage contentStage = null;
+        if (contents != null) {
+            contentStage = new ContentStage(contents, sink, threads, control);
+            sink = contentStage;
+        }
+        
+        Walk walk = null;
+        try {
+            if (canUseIndex(root, targets)) {
+                Class<? extends BasicFileAttributes> attributeType = attributeType(root);
+                for (Path file : indexedMatches(root, fileNames)) {
+                    if (control.isStopped()) {
+                        break;
+                    }
+                    BasicFileAttributes attributes = readAttributes(file, followLinks, attributeType);
+                    if (passesFilter(file, attributes)) {
+                        sink.accept(file, attributes, targets.match(file.getFileName().toString()));
+                    }
+                }
+            } else {
+                walk = new Walk(root, targets, sink);
+                if (threads > 1) {
+                    searchParallel(root, walk);
+                } else {
+                    new DirectoryWalker(root, traversalOrder, maxDepth).walk(walk);
+                }
+            }
+        } finally {
+            if (contentStage != null) {
+                contentStage.finish();
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.directory = root.toString();
+                    event.patterns = String.join(", ", targets.getKeys());
+                    event.threads = threads;
+                    event.directories = walk == null ? 0 : walk.directories.sum();
+                    event.entries = walk == null ? 0 : walk.entries.sum();
+                    event.matches = matched.sum();
+                    event.errors = walk == null ? 0 : walk.errors.sum();
+                    event.completed = isCompleted();
+                    event.commit();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Prepares a search to be walked by someone else, such as the shared pool
+     * of a {@link FileSearchService}: validates the directory, compiles the
+     * targets and resets the counts. Content is checked inline by the
+     * returned scanner, on whichever thread scans.
+     * @param directoryPath the path to search in
+     * @param fileNames file names or patterns to search for
+     * @param onMatch receives every matching file; must be thread-safe if
+     *        directories are scanned concurrently
+     * @return scanner for the search's directories, starting with the absolute
+     *         search directory; null if there is nothing to search for
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    DirectoryScanner prepareWalk(String directoryPath, String[] fileNames, MatchSink onMatch) throws IOException {
+        Path root = startSearch(directoryPath);
+        NameMatcher targets = prepareTargets(fileNames);
+        ContentScanner contents = prepareContents();
+        if (targets.getKeys().isEmpty()) {
+            return null;
+        }
+        SearchControl control = this.control;
+        return new Walk(root, targets, (file, attributes, keys) -> {
+            if ((contents == null || contents.contains(file)) && control.admit()) {
+                countMatch(keys);
+                onMatch.accept(file, attributes, keys);
+            }
+        });
+    }
+    
+    /**
+     * Returns a lazily walked stream of matching files. Directories are only read
+     * as the stream is consumed, so memory stays bounded by the directories still
+     * pending, and a short-circuiting operation such as findFirst stops the walk.
+     * The walk is sequential regardless of the thread setting. Close the stream
+     * (for example with try-with-resources) to release it early. The limit,
+     * deadline and {@link #cancel()} end the stream as they end other searches.
+     * @param directoryPath the path to search in
+     * @param fileNames file names or patterns to search for
+     * @return stream of matching file paths
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    public Stream<Path> search(String directoryPath, String... fileNames) throws IOException {
+        Path root = startSearch(directoryPath);
+        NameMatcher targets = prepareTargets(fileNames);
+        ContentScanner contents = prepareContents();
+        
+        if (canUseIndex(root, targets)) {
+            Class<? extends BasicFileAttributes> attributeType = attributeType(root);
+            SearchControl control = this.control;
+            return indexedMatches(root, fileNames).stream()
+                    .filter(file -> passesFilter(file, readAttributes(file, followLinks, attributeType)))
+                    .filter(file -> contents == null || contents.contains(file))
+                    .takeWhile(file -> !control.isStopped())
+                    .filter(file -> control.admit())
+                    .peek(file -> countMatch(targets.match(file.getFileName().toString())));
+        }
+        
+        SearchIterator iterator = new SearchIterator(root, targets, contents);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+    
+    /**
+     * Resets per-search state and validates the search root
+     * @param directoryPath the path to search in
+     * @return the absolute path of the directory; results are resolved against it
+     * @throws IOException if directory doesn't exist or cannot be accessed
+     */
+    private Path startSearch(String directoryPath) throws IOException {
         searchResults.clear();
+        occurrenceCounts.clear();
+        countsCaseSensitive = caseSensitive;
+        prunedDirectories.reset();
+        repeatedDirectories.reset();
         
         // Validate directory
-        Path dirPath = Paths.get(directoryPath);
+        Path dirPath = Paths.get(directoryPath).toAbsolutePath();
         if (!Files.exists(dirPath) || !Files.isDirectory(dirPath)) {
             throw new IOException("Directory does not exist or is not accessible: " + directoryPath);
         }
-        
-        // Search for each file
-        for (String fileName : fileNames) {
-            searchRecursive(dirPath.toFile(), fileName.trim());
+        control = new SearchControl(firstMatchOnly ? 1 : limit, deadline);
+        metrics.recordSearch();
+        return dirPath;
+    }
+    
+    /**
+     * Compiles the target names and patterns once, up front, and zeroes their counts
+     * @param fileNames file names or patterns to search for
+     * @return matcher for the targets
+     * @throws IllegalArgumentException if a pattern is invalid
+     */
+    private NameMatcher prepareTargets(String[] fileNames) {
+        NameMatcher targets = NameMatcher.compile(fileNames, caseSensitive);
+        for (String key : targets.getKeys()) {
+            occurrenceCounts.put(key, new LongAdder());
+        }
+        return targets;
+    }
+    
+    /**
+     * Compiles the content patterns, if any, for this search's case sensitivity
+     * @return scanner for the patterns, or null if files are matched by name only
+     * @throws IllegalArgumentException if a pattern is invalid
+     */
+    private ContentScanner prepareContents() {
+        if (contentPatterns.isEmpty()) {
+            return null;
+        }
+        return new ContentScanner(ContentMatcher.compile(contentPatterns.toArray(new String[0]), caseSensitive));
+    }
+    
+    /**
+     * Tallies one matching file under each pattern it matched. The counters
+     * exist before the walk starts, so parallel workers only bump an adder.
+     * @param keys keys of the matched patterns
+     */
+    private void countMatch(String[] keys) {
+        for (String key : keys) {
+            occurrenceCounts.get(key).increment();
+        }
+        metrics.recordMatch();
+    }
+    
+    /**
+     * Checks whether a search can be answered from the name index: the index
+     * must cover the directory, treat links as the walk would, and the search
+     * must not need anything a walk does beyond matching plain names
+     * @param root the directory to search
+     * @param targets the file names and patterns to search for
+     * @return true if the index can answer the search
+     */
+    private boolean canUseIndex(Path root, NameMatcher targets) {
+        return index != null && index.followsLinks() == followLinks
+                && targets.isLiteralOnly() && maxDepth == Integer.MAX_VALUE
+                && excludePatterns.isEmpty() && !readIgnoreFiles && !searchArchives
+                && (filter == null || !filter.matchesDirectories()) && index.covers(root);
+    }
+    
+    /**
+     * Checks a name match against the metadata filter, if any
+     * @param entry the matching entry
+     * @param attributes its attributes, or null if they could not be read
+     * @return true if the entry is to be reported
+     */
+    private boolean passesFilter(Path entry, BasicFileAttributes attributes) {
+        return filter == null || (attributes != null && filter.test(entry, attributes));
+    }
+    
+    /**
+     * Chooses the attributes read for each entry: POSIX attributes when the
+     * filter needs an owner and the file system has them, otherwise basic ones
+     * @param root the directory to search
+     * @return the attribute type to read
+     */
+    private Class<? extends BasicFileAttributes> attributeType(Path root) {
+        if (filter != null && filter.needsOwner()
+                && root.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return PosixFileAttributes.class;
+        }
+        return BasicFileAttributes.class;
+    }
+    
+    /**
+     * Answers a search from the index instead of walking the tree
+     * @param root the directory to search, covered by the index
+     * @param fileNames file names to search for
+     * @return paths of the matching files
+     */
+    private List<Path> indexedMatches(Path root, String[] fileNames) {
+        List<Path> matches = new ArrayList<>();
+        for (String file : index.lookup(root, fileNames, caseSensitive)) {
+            matches.add(Paths.get(file));
         }
+        return matches;
+    }
+    
+    /**
+     * Receives the files a search finds
+     */
+    interface MatchSink {
+        /**
+         * @param file the matching file
+         * @param attributes its attributes, read through links if links are followed;
+         *        null if they could not be read
+         * @param keys keys of the name patterns it matched
+         */
+        void accept(Path file, BasicFileAttributes attributes, String[] keys);
+    }
+    
+    /**
+     * Searches the tree on a ForkJoinPool with one worker per configured thread.
+     * Workers steal batches of pending directories from each other and report
+     * hits straight to the sink. The traversal order does not apply here.
+     * @param root the directory to search
+     * @param walk scans each directory, from any worker
+     */
+    private void searchParallel(Path root, Walk walk) {
+        Deque<DirectoryWalker.Pending> start = new ArrayDeque<>();
+        start.add(new DirectoryWalker.Pending(root, 0));
         
-        return new ArrayList<>(searchResults);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ParallelDirectoryTask(walk, start, maxDepth));
+        } finally {
+            pool.shutdown();
+        }
     }
     
     /**
-     * Recursive method to search for a file in directory and subdirectories
-     * @param currentDir the current directory to search
-     * @param fileName the file name to search for
+     * Reads the files that matched by name on threads of its own while the
+     * walk goes on, so reading content overlaps with listing directories,
+     * and passes on the files whose content matches. Its queue is bounded:
+     * when the readers fall behind, the walking thread reads the file itself.
      */
-    private void searchRecursive(File currentDir, String fileName) {
-        // Check if current directory is accessible
-        if (!currentDir.canRead()) {
-            System.out.println("Warning: Cannot read directory: " + currentDir.getAbsolutePath());
-            return;
+    private static final class ContentStage implements MatchSink {
+        
+        /** Files queued per reading thread before the walk slows down to help */
+        private static final int QUEUED_FILES_PER_THREAD = 64;
+        
+        private final ContentScanner contents;
+        private final MatchSink sink;
+        private final ThreadPoolExecutor readers;
+        private final SearchControl control;
+        private volatile RuntimeException failure;
+        
+        /**
+         * @param contents checks each file's content
+         * @param sink receives each file whose content matches
+         * @param threads number of reading threads
+         * @param control stops reading the files still queued when the search stops
+         */
+        ContentStage(ContentScanner contents, MatchSink sink, int threads, SearchControl control) {
+            this.contents = contents;
+            this.sink = sink;
+            this.control = control;
+            this.readers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads * QUEUED_FILES_PER_THREAD),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "content-reader");
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
         }
         
-        File[] files = currentDir.listFiles();
+        @Override
+        public void accept(Path file, BasicFileAttributes attributes, String[] keys) {
+            readers.execute(() -> {
+                try {
+                    if (failure == null && !control.isStopped() && contents.contains(file)) {
+                        sink.accept(file, attributes, keys);
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            });
+        }
         
-        if (files == null) {
-            return;
+        /**
+         * Waits for the files still queued to be read
+         * @throws InterruptedIOException if interrupted while waiting
+         */
+        void finish() throws InterruptedIOException {
+            readers.shutdown();
+            try {
+                readers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                readers.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Content search interrupted");
+            }
+            if (failure != null) {
+                throw failure;
+            }
         }
+    }
+    
+    /**
+     * One search's walk over the tree: scans directories for the targets and
+     * applies the exclude rules. Shared by every thread of a parallel search.
+     */
+    private class Walk implements DirectoryScanner {
+        
+        private final NameMatcher targets;
+        private final MatchSink sink;
+        private final IgnoreRules rootRules;
+        
+        /** Rules inherited from ignore files, held for subdirectories until they are scanned */
+        private final Map<Path, IgnoreRules> inheritedRules = new ConcurrentHashMap<>();
         
-        for (File file : files) {
-            if (file.isDirectory()) {
-                // Recursive call for subdirectories
-                searchRecursive(file, fileName);
+        /** Identities of the directories reached so far when links are followed, otherwise null */
+        private final Set<Object> visitedDirectories;
+        
+        /** Archives found but not scanned yet when archives are searched, otherwise null */
+        private final Set<Path> pendingArchives;
+        
+        private final Class<? extends BasicFileAttributes> attributeType;
+        private final boolean matchDirectories;
+        private final DirectoryCache cache;
+        private final SearchControl control;
+        private final SearchMetrics metrics;
+        private final int rootDepth;
+        
+        /** Counts of this walk alone, for its search event */
+        final LongAdder directories = new LongAdder();
+        final LongAdder entries = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        
+        /**
+         * @param root the directory to search
+         * @param targets the file names and patterns to search for
+         * @param sink receives each matching file and the keys of the patterns it matched
+         */
+        Walk(Path root, NameMatcher targets, MatchSink sink) {
+            this.targets = targets;
+            this.sink = sink;
+            this.rootRules = excludePatterns.isEmpty() && !readIgnoreFiles
+                    ? null
+                    : IgnoreRules.of(root, excludePatterns);
+            this.attributeType = attributeType(root);
+            this.matchDirectories = filter != null && filter.matchesDirectories();
+            this.cache = listingCache;
+            this.control = FileSearcher.this.control;
+            this.metrics = FileSearcher.this.metrics;
+            this.rootDepth = root.getNameCount();
+            if (followLinks) {
+                visitedDirectories = ConcurrentHashMap.newKeySet();
+                BasicFileAttributes attributes = readAttributes(root, true);
+                if (attributes != null) {
+                    visitedDirectories.add(directoryKey(root, attributes));
+                }
             } else {
-                // Check if file matches the search criteria
-                if (matchesFileName(file.getName(), fileName)) {
-                    String result = file.getAbsolutePath();
-                    searchResults.add(result);
-                    System.out.println("Found: " + result);
+                visitedDirectories = null;
+            }
+            this.pendingArchives = searchArchives ? ConcurrentHashMap.newKeySet() : null;
+        }
+        
+        /**
+         * Checks the files of one directory against the targets and collects its subdirectories.
+         * Each entry costs a single attribute read, which tells files from directories
+         * and feeds the metadata filter, and entry paths are resolved from the directory
+         * stream rather than rebuilt. With a listing cache, an unchanged directory is not
+         * read at all: its entries and their types come from the cache, and attributes
+         * are only read for links being followed and for entries whose name matches.
+         * Excluded subdirectories are dropped here, before anything below them is read.
+         * Archives are reported alongside subdirectories and scanned the same way,
+         * so separate archives are searched in parallel like separate directories.
+         * Once the search is stopped, scanning ends before the next entry and
+         * no more subdirectories are reported, so the walk winds down at once.
+         * @param currentDir the directory to scan
+         * @param subdirectories receives the subdirectories of currentDir
+         */
+        @Override
+        public void scan(Path currentDir, List<Path> subdirectories) {
+            if (control.isStopped()) {
+                return;
+            }
+            DirectoryScanEvent event = FlightRecorder.isInitialized() ? new DirectoryScanEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            long startTime = System.nanoTime();
+            int entryCount = 0;
+            long nameLength = 0;
+            long sinkNanos = 0;
+            boolean cached = false;
+            try {
+                if (pendingArchives != null && pendingArchives.remove(currentDir)) {
+                    long[] totals = new long[3];
+                    scanArchive(currentDir, currentDir.toString(), 0, totals);
+                    entryCount = (int) totals[0];
+                    nameLength = totals[1];
+                    sinkNanos = totals[2];
+                    return;
+                }
+                
+                IgnoreRules rules = null;
+                if (rootRules != null) {
+                    rules = inheritedRules.remove(currentDir);
+                    if (rules == null) {
+                        rules = rootRules;
+                    }
+                    if (readIgnoreFiles) {
+                        rules = rules.forDirectory(currentDir);
+                    }
+                }
+                
+                DirectoryCache.Listing listing = cache == null ? null : cache.lookup(currentDir);
+                if (listing != null && listing.isComplete()) {
+                    cached = true;
+                    for (int i = 0; i < listing.size() && !control.isStopped(); i++) {
+                        Path fileName = listing.name(i);
+                        String name = fileName.toString();
+                        entryCount++;
+                        nameLength += name.length();
+                        sinkNanos += visit(currentDir.resolve(fileName), name, listing.kind(i),
+                                listing.directoryKey(i), null, rules, subdirectories);
+                    }
+                    return;
+                }
+                
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(currentDir)) {
+                    for (Path entry : entries) {
+                        if (control.isStopped()) {
+                            // A partial listing is not cached
+                            return;
+                        }
+                        Path fileName = entry.getFileName();
+                        String name = fileName.toString();
+                        entryCount++;
+                        nameLength += name.length();
+                        BasicFileAttributes attributes = attributes(entry, false);
+                        DirectoryCache.Kind kind = DirectoryCache.kindOf(attributes);
+                        Object directoryKey = kind == DirectoryCache.Kind.DIRECTORY ? attributes.fileKey() : null;
+                        if (listing != null) {
+                            listing.add(fileName, name.length(), kind, directoryKey);
+                        }
+                        sinkNanos += visit(entry, name, kind, directoryKey, attributes, rules, subdirectories);
+                    }
+                    if (listing != null) {
+                        cache.store(currentDir, listing);
+                    }
+                } catch (AccessDeniedException e) {
+                    recordError(e);
+                    System.out.println("Warning: Cannot read directory: " + currentDir);
+                } catch (IOException e) {
+                    // Directory vanished or failed mid-listing; skip it as listFiles() did
+                    recordError(e);
+                } catch (DirectoryIteratorException e) {
+                    recordError(e.getCause());
+                }
+            } finally {
+                int depth = currentDir.getNameCount() - rootDepth;
+                // Time spent handing matches on is the consumer's, not the listing's
+                metrics.recordDirectory(depth, entryCount, nameLength, System.nanoTime() - startTime - sinkNanos);
+                directories.increment();
+                entries.add(entryCount);
+                if (event != null) {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.directory = currentDir.toString();
+                        event.depth = depth;
+                        event.entries = entryCount;
+                        event.cached = cached;
+                        event.commit();
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Counts an error in the metrics and in this walk's own counts
+         * @param error the exception that was handled
+         */
+        private void recordError(Throwable error) {
+            metrics.recordError(error);
+            errors.increment();
+        }
+        
+        /**
+         * Reads an entry's attributes, counting a failure as an error
+         * @param entry the directory entry
+         * @param follow true to read the attributes of a link's target
+         * @return the attributes, or null if they cannot be read
+         */
+        private BasicFileAttributes attributes(Path entry, boolean follow) {
+            try {
+                return follow
+                        ? Files.readAttributes(entry, attributeType)
+                        : Files.readAttributes(entry, attributeType, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                recordError(e);
+                return null;
+            }
+        }
+        
+        /**
+         * Matches the entries of an archive by name, and those of the archives
+         * nested in it. Opening an archive reads its central directory, which
+         * lists the entries with their sizes and times, so no entry is read;
+         * only a nested archive is read whole from its archive, since its own
+         * central directory lies inside it. Exclude rules apply to archives,
+         * not to their entries, and entries never match content patterns.
+         * @param archive the archive, on disk or inside another archive
+         * @param reported path of the archive in results; its entries are reported as reported!/entry
+         * @param nesting number of archives the archive lies in
+         * @param totals receives the number of entries examined, the total length of their
+         *        names and the nanoseconds spent in the sink
+         */
+        private void scanArchive(Path archive, String reported, int nesting, long[] totals) {
+            try (FileSystem zip = FileSystems.newFileSystem(archive, (ClassLoader) null)) {
+                Files.walkFileTree(zip.getPath("/"), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                        if (directory.getFileName() != null) {
+                            visitArchiveEntry(directory, attributes, reported, nesting, totals);
+                        }
+                        return control.isStopped() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    }
+                    
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        visitArchiveEntry(file, attributes, reported, nesting, totals);
+                        return control.isStopped() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    }
+                    
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        recordError(e);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException | ProviderNotFoundException e) {
+                // Damaged, or not a zip archive despite its name
+                recordError(e);
+            }
+        }
+        
+        /**
+         * Handles one entry of an archive
+         * @param entry the entry's path inside the archive
+         * @param attributes its attributes, from the central directory
+         * @param reported path of the archive in results
+         * @param nesting number of archives the archive lies in
+         * @param totals receives the entry's count, name length and time spent in the sink
+         */
+        private void visitArchiveEntry(Path entry, BasicFileAttributes attributes, String reported,
+                                       int nesting, long[] totals) {
+            String name = entry.getFileName().toString();
+            totals[0]++;
+            totals[1] += name.length();
+            String path = reported + "!" + entry;
+            
+            if (!attributes.isDirectory() || matchDirectories) {
+                String[] keys = targets.match(name);
+                if (keys != null) {
+                    Path file = Paths.get(path);
+                    if (passesFilter(file, attributes)) {
+                        totals[2] += deliver(file, attributes, keys);
+                    }
+                }
+            }
+            if (attributes.isRegularFile() && isArchive(name) && nesting < MAX_ARCHIVE_NESTING
+                    && !control.isStopped()) {
+                scanArchive(entry, path, nesting + 1, totals);
+            }
+        }
+        
+        /**
+         * Handles one entry of a directory
+         * @param entry the entry's path
+         * @param name its file name
+         * @param kind its type, links not followed
+         * @param directoryKey identity of a directory entry if known, otherwise null
+         * @param attributes its attributes read without following links, or null if not read
+         * @param rules exclude rules of the directory, or null for none
+         * @param subdirectories receives the entry if it is a directory to walk
+         * @return nanoseconds spent handing a match to the sink
+         */
+        private long visit(Path entry, String name, DirectoryCache.Kind kind, Object directoryKey,
+                           BasicFileAttributes attributes, IgnoreRules rules, List<Path> subdirectories) {
+            boolean directory = kind == DirectoryCache.Kind.DIRECTORY;
+            if (kind == DirectoryCache.Kind.SYMLINK && followLinks) {
+                attributes = attributes(entry, true);
+                directory = attributes != null && attributes.isDirectory();
+            }
+            if (rules != null && rules.isIgnored(entry, name, directory)) {
+                if (directory) {
+                    prunedDirectories.increment();
+                }
+                return 0;
+            }
+            
+            if (directory) {
+                // A directory reached before through another link is a cycle or an alias
+                if (visitedDirectories != null) {
+                    if (directoryKey == null) {
+                        directoryKey = directoryKey(entry, attributes != null ? attributes : readAttributes(entry, true));
+                    }
+                    if (!visitedDirectories.add(directoryKey)) {
+                        repeatedDirectories.increment();
+                        return 0;
+                    }
+                }
+                subdirectories.add(entry);
+                if (rules != rootRules) {
+                    inheritedRules.put(entry, rules);
+                }
+                if (!matchDirectories) {
+                    return 0;
+                }
+            } else if (pendingArchives != null && isArchive(name)
+                    && (kind == DirectoryCache.Kind.FILE || attributes != null && attributes.isRegularFile())) {
+                pendingArchives.add(entry);
+                subdirectories.add(entry);
+            }
+            
+            // Check if the entry matches the search criteria, its name first
+            String[] keys = targets.match(name);
+            if (keys != null) {
+                if (attributes == null) {
+                    attributes = attributes(entry, followLinks);
                 }
+                if (passesFilter(entry, attributes)) {
+                    return deliver(entry, attributes, keys);
+                }
+            }
+            return 0;
+        }
+        
+        /**
+         * Hands a match to the sink, which may run the caller's code or read
+         * the file's content on this thread
+         * @return nanoseconds spent in the sink
+         */
+        private long deliver(Path file, BasicFileAttributes attributes, String[] keys) {
+            long start = System.nanoTime();
+            sink.accept(file, attributes, keys);
+            return System.nanoTime() - start;
+        }
+    }
+    
+    /**
+     * Lazy walk that reads one directory at a time, only when
+     * the matches found so far have been consumed
+     */
+    private class SearchIterator implements Iterator<Path> {
+        
+        private final DirectoryWalker walker;
+        private final DirectoryScanner scanner;
+        private final Deque<Path> pendingMatches = new ArrayDeque<>();
+        private final SearchControl control;
+        private boolean exhausted;
+        
+        SearchIterator(Path root, NameMatcher targets, ContentScanner contents) {
+            this.walker = new DirectoryWalker(root, traversalOrder, maxDepth);
+            this.control = FileSearcher.this.control;
+            this.scanner = new Walk(root, targets, (file, attributes, keys) -> {
+                if ((contents == null || contents.contains(file)) && control.admit()) {
+                    countMatch(keys);
+                    pendingMatches.add(file);
+                }
+            });
+            this.exhausted = targets.getKeys().isEmpty();
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (pendingMatches.isEmpty() && !exhausted) {
+                exhausted = !walker.step(scanner) || control.isStopped();
+            }
+            return !pendingMatches.isEmpty();
+        }
+        
+        @Override
+        public Path next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pendingMatches.poll();
+        }
+        
+        void close() {
+            walker.clear();
+            pendingMatches.clear();
+        }
+    }
+    
+    /**
+     * Reads an entry's attributes once to decide whether to descend into it.
+     * Entries whose attributes cannot be read (such as broken links) are
+     * treated as files by the caller.
+     * @param entry the directory entry
+     * @param followLinks true to read the attributes of a link's target
+     * @return the attributes, or null if they cannot be read
+     */
+    private static BasicFileAttributes readAttributes(Path entry, boolean followLinks) {
+        return readAttributes(entry, followLinks, BasicFileAttributes.class);
+    }
+    
+    /**
+     * Reads an entry's attributes of the given type once
+     * @param entry the directory entry
+     * @param followLinks true to read the attributes of a link's target
+     * @param type the attributes to read, basic or POSIX
+     * @return the attributes, or null if they cannot be read
+     */
+    private static BasicFileAttributes readAttributes(Path entry, boolean followLinks,
+                                                      Class<? extends BasicFileAttributes> type) {
+        try {
+            return followLinks
+                    ? Files.readAttributes(entry, type)
+                    : Files.readAttributes(entry, type, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Checks whether a file is searched as an archive, by its extension
+     * @param fileName the file name
+     * @return true for zip, jar, war and ear files
+     */
+    static boolean isArchive(String fileName) {
+        for (String extension : ARCHIVE_EXTENSIONS) {
+            if (fileName.regionMatches(true, fileName.length() - extension.length(),
+                    extension, 0, extension.length())) {
+                return true;
             }
         }
+        return false;
+    }
+    
+    /**
+     * Identifies the physical directory behind a path: its file key (device
+     * and inode on Unix), or its real path where the file system has no keys
+     * @param directory the directory
+     * @param attributes its attributes, read through links, or null if they cannot be read
+     * @return identity of the directory
+     */
+    static Object directoryKey(Path directory, BasicFileAttributes attributes) {
+        Object key = attributes == null ? null : attributes.fileKey();
+        if (key != null) {
+            return key;
+        }
+        try {
+            return directory.toRealPath();
+        } catch (IOException e) {
+            return directory.toAbsolutePath().normalize();
+        }
+    }
+    
+    /**
+     * Folds a file name into its lookup key
+     * @param fileName the file name
+     * @param caseSensitive whether case is significant
+     * @return the name itself, or its case-folded form for case-insensitive lookups
+     */
+    static String foldName(String fileName, boolean caseSensitive) {
+        return caseSensitive ? fileName : foldCase(fileName);
     }
     
     /**
-     * Checks if the actual file name matches the search file name
-     * @param actualFileName the actual file name
-     * @param searchFileName the file name to search for
-     * @return true if matches, false otherwise
+     * Case-folds a string so that two strings fold equal exactly when
+     * String.equalsIgnoreCase considers them equal
+     * @param value the string to fold
+     * @return folded string
      */
-    private boolean matchesFileName(String actualFileName, String searchFileName) {
-        if (caseSensitive) {
-            return actualFileName.equals(searchFileName);
-        } else {
-            return actualFileName.equalsIgnoreCase(searchFileName);
+    static String foldCase(String value) {
+        char[] chars = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (folded != c) {
+                if (chars == null) {
+                    chars = value.toCharArray();
+                }
+                chars[i] = folded;
+            }
         }
+        return chars == null ? value : new String(chars);
     }
     
     /**
      * Counts occurrences of a specific file within the search results
-     * @param fileName the file name to count
+     * @param fileName the file name or pattern to count, as it was searched for
      * @return number of occurrences
      */
     public int countFileOccurrences(String fileName) {
-        int count = 0;
-        for (String result : searchResults) {
-            String resultFileName = Paths.get(result).getFileName().toString();
-            if (matchesFileName(resultFileName, fileName)) {
-                count++;
-            }
+        LongAdder count = occurrenceCounts.get(foldName(fileName.trim(), countsCaseSensitive));
+        return count == null ? 0 : (int) Math.min(count.sum(), Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Gets the number of matches for every name or pattern of the last search
+     * @return counts keyed by name or pattern, case-folded for case-insensitive
+     *         searches, in the order they were searched for
+     */
+    public Map<String, Long> getOccurrenceCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> count : occurrenceCounts.entrySet()) {
+            counts.put(count.getKey(), count.getValue().sum());
         }
-        return count;
+        return counts;
     }
     
     /**
@@ -129,6 +1046,354 @@ public class FileSearcher {
         this.caseSensitive = caseSensitive;
     }
     
+    /**
+     * Sets the number of threads used to walk the directory tree
+     * @param threads 1 for a sequential walk, more for a parallel work-stealing walk
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+    
+    /**
+     * Gets the number of threads used to walk the directory tree
+     * @return thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+    
+    /**
+     * Sets the order in which sequential and streaming searches visit directories
+     * @param traversalOrder depth-first (the default) or breadth-first
+     */
+    public void setTraversalOrder(TraversalOrder traversalOrder) {
+        if (traversalOrder == null) {
+            throw new IllegalArgumentException("Traversal order must not be null");
+        }
+        this.traversalOrder = traversalOrder;
+    }
+    
+    /**
+     * Gets the order in which sequential and streaming searches visit directories
+     * @return traversal order
+     */
+    public TraversalOrder getTraversalOrder() {
+        return traversalOrder;
+    }
+    
+    /**
+     * Limits how many levels of subdirectories below the search directory are searched
+     * @param maxDepth 0 to search only the directory itself, Integer.MAX_VALUE for no limit (the default)
+     * @throws IllegalArgumentException if maxDepth is negative
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth must not be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+    
+    /**
+     * Gets how many levels of subdirectories below the search directory are searched
+     * @return maximum depth, Integer.MAX_VALUE if unlimited
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+    
+    /**
+     * Sets patterns for entries the search skips, in .gitignore syntax
+     * (for example {@code .git}, {@code node_modules/}, {@code *.tmp} or
+     * {@code /build}). Excluded directories are not descended into.
+     * @param patterns exclude patterns; none to search everything
+     */
+    public void setExcludePatterns(String... patterns) {
+        this.excludePatterns = new ArrayList<>(Arrays.asList(patterns));
+    }
+    
+    /**
+     * Gets the patterns for entries the search skips
+     * @return exclude patterns
+     */
+    public List<String> getExcludePatterns() {
+        return new ArrayList<>(excludePatterns);
+    }
+    
+    /**
+     * Sets whether .gitignore and .ignore files found during the walk are honoured.
+     * Their rules apply to the directory holding them and everything below it,
+     * on top of the rules inherited from above. Ignore files outside the search
+     * directory are not read.
+     * @param readIgnoreFiles true to honour ignore files
+     */
+    public void setReadIgnoreFiles(boolean readIgnoreFiles) {
+        this.readIgnoreFiles = readIgnoreFiles;
+    }
+    
+    /**
+     * Gets whether ignore files found during the walk are honoured
+     * @return true if ignore files are honoured
+     */
+    public boolean isReadIgnoreFiles() {
+        return readIgnoreFiles;
+    }
+    
+    /**
+     * Sets whether symbolic links are followed. When they are (the default),
+     * every physical directory is scanned once: a link back to an ancestor
+     * or a second link to an already reached directory is skipped, also in
+     * parallel searches. When they are not, links are matched by name like
+     * files and never descended into.
+     * @param followLinks true to follow symbolic links
+     */
+    public void setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+    }
+    
+    /**
+     * Gets whether symbolic links are followed
+     * @return true if links are followed
+     */
+    public boolean isFollowLinks() {
+        return followLinks;
+    }
+    
+    /**
+     * Gets how many directories the last search skipped because they had
+     * already been reached through another path, such as a link cycle
+     * @return repeated directory count
+     */
+    public long getRepeatedDirectoryCount() {
+        return repeatedDirectories.sum();
+    }
+    
+    /**
+     * Gets how many directories the last search skipped because of exclude
+     * rules, without reading them
+     * @return pruned directory count
+     */
+    public long getPrunedDirectoryCount() {
+        return prunedDirectories.sum();
+    }
+    
+    /**
+     * Sets a name index to answer searches in the directories it covers.
+     * Searches outside the index, limited by a maximum depth or exclude rules,
+     * following links where the index does not or the other way round, or
+     * with no index set walk the tree.
+     * @param index the index to use, or null to always walk the tree
+     */
+    public void setIndex(NameIndex index) {
+        this.index = index;
+    }
+    
+    /**
+     * Gets the name index used to answer searches
+     * @return the index, or null if searches always walk the tree
+     */
+    public NameIndex getIndex() {
+        return index;
+    }
+    
+    /**
+     * Sets strings that files must contain to match, in addition to their
+     * name. A file matches if it contains any of them; use the name pattern
+     * {@code *} to search the content of every file. Plain strings are
+     * matched literally, and a {@code regex:} prefix marks a regular
+     * expression, matched within single lines. Matching follows the case
+     * sensitivity setting, for ASCII letters. Binary files never match.
+     * @param patterns content patterns; none to match by name only (the default)
+     */
+    public void setContentPatterns(String... patterns) {
+        this.contentPatterns = new ArrayList<>(Arrays.asList(patterns));
+    }
+    
+    /**
+     * Gets the strings that files must contain to match
+     * @return content patterns
+     */
+    public List<String> getContentPatterns() {
+        return new ArrayList<>(contentPatterns);
+    }
+    
+    /**
+     * Sets a filter on file metadata that matches must also pass. It is
+     * tested against the attributes each entry's walk step already read,
+     * after the name matched and before any content is read.
+     * @param filter the filter, or null to match by name only (the default)
+     */
+    public void setFilter(MetadataFilter filter) {
+        this.filter = filter;
+    }
+    
+    /**
+     * Gets the filter on file metadata that matches must pass
+     * @return the filter, or null if there is none
+     */
+    public MetadataFilter getFilter() {
+        return filter;
+    }
+    
+    /**
+     * Sets a cache of directory listings. Walks then read each directory
+     * that is unchanged since it was cached with a single attribute read.
+     * A cache may be shared by several searchers, including ones running
+     * at the same time.
+     * @param listingCache the cache, or null to read every directory (the default)
+     */
+    public void setListingCache(DirectoryCache listingCache) {
+        this.listingCache = listingCache;
+    }
+    
+    /**
+     * Gets the cache of directory listings
+     * @return the cache, or null if there is none
+     */
+    public DirectoryCache getListingCache() {
+        return listingCache;
+    }
+    
+    /**
+     * Sets the most matches a search reports. The search stops as soon as
+     * it has found them, on every thread.
+     * @param limit most matches to report, Integer.MAX_VALUE for no limit (the default)
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public void setLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+        }
+        this.limit = limit;
+    }
+    
+    /**
+     * Gets the most matches a search reports
+     * @return result limit, Integer.MAX_VALUE if unlimited
+     */
+    public int getLimit() {
+        return limit;
+    }
+    
+    /**
+     * Sets whether a search stops at the first match, to find out whether
+     * a file exists anywhere below the directory. This overrides the limit.
+     * @param firstMatchOnly true to stop at the first match
+     */
+    public void setFirstMatchOnly(boolean firstMatchOnly) {
+        this.firstMatchOnly = firstMatchOnly;
+    }
+    
+    /**
+     * Checks whether a search stops at the first match
+     * @return true if only the first match is reported
+     */
+    public boolean isFirstMatchOnly() {
+        return firstMatchOnly;
+    }
+    
+    /**
+     * Sets a deadline for each search, counted from the moment it starts.
+     * A search still walking at its deadline stops and keeps the matches
+     * found so far.
+     * @param deadline how long a search may run, or null for no deadline (the default)
+     * @throws IllegalArgumentException if deadline is negative
+     */
+    public void setDeadline(Duration deadline) {
+        if (deadline != null && deadline.isNegative()) {
+            throw new IllegalArgumentException("Deadline must not be negative: " + deadline);
+        }
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Gets how long a search may run
+     * @return the deadline, or null if there is none
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * Stops the search that is running, from any thread. The search returns
+     * normally with the matches found so far, and {@link #isCompleted()}
+     * returns false.
+     */
+    public void cancel() {
+        SearchControl current = control;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+    
+    /**
+     * Checks whether the last search walked the whole tree. It did not if it
+     * was stopped by the limit, the deadline or {@link #cancel()}; a search
+     * whose last match reached the limit counts as stopped, since it cannot
+     * tell whether more matches would have followed.
+     * @return true if the results of the last search are complete
+     */
+    public boolean isCompleted() {
+        SearchControl current = control;
+        return current == null || !current.wasStopped();
+    }
+    
+    /**
+     * Checks whether the search that is running has been stopped
+     * @return true if its workers are to stop
+     */
+    boolean isStopped() {
+        SearchControl current = control;
+        return current != null && current.isStopped();
+    }
+    
+    /**
+     * Sets the metrics that searches add their counts to, such as one
+     * instance shared by several searchers and registered with JMX
+     * @param metrics the metrics
+     * @throws IllegalArgumentException if metrics is null
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics must not be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Gets the metrics that searches add their counts to; each searcher
+     * has its own unless they are shared with {@link #setMetrics}
+     * @return the metrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Sets whether zip, jar, war and ear archives are searched as well as
+     * directories. Their entries are matched by name, and by metadata, from
+     * each archive's central directory without extracting anything, and are
+     * reported as {@code archive!/entry}, such as {@code /lib/app.jar!/META-INF/MANIFEST.MF};
+     * archives nested in archives are searched the same way. An archive
+     * counts as a level of subdirectories for the maximum depth, and separate
+     * archives are searched in parallel with more than one thread.
+     * @param searchArchives true to search inside archives
+     */
+    public void setSearchArchives(boolean searchArchives) {
+        this.searchArchives = searchArchives;
+    }
+    
+    /**
+     * Gets whether archives are searched
+     * @return true if entries of archives are searched
+     */
+    public boolean isSearchArchives() {
+        return searchArchives;
+    }
+    
     /**
      * Gets current case sensitivity setting
      * @return true if case-sensitive, false otherwise
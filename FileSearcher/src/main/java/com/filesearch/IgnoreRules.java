@@ -0,0 +1,270 @@
+package com.filesearch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * IgnoreRules decides which entries of a directory tree a search skips,
+ * using the syntax of .gitignore files.
+ *
+ * Each instance holds the rules of one directory's ignore files and links
+ * to the rules it inherits. The nearest source is consulted first, and
+ * within a source the last matching rule wins, so a nested ignore file can
+ * re-include with {@code !} what an outer one excluded. The exclude patterns
+ * given to the search are a source of their own, consulted before any
+ * ignore file as git does with command line excludes, so no ignore file can
+ * re-include what the search excluded. A pattern without a slash matches
+ * an entry's name at any depth; a pattern with a slash is anchored to the
+ * directory holding the rules. A trailing slash matches directories only.
+ */
+class IgnoreRules {
+
+    /** Ignore files read from each directory, in order of increasing precedence */
+    static final String[] IGNORE_FILES = {".gitignore", ".ignore"};
+
+    /**
+     * One parsed pattern
+     */
+    private static final class Rule {
+        final Pattern pattern;
+        final boolean negated;
+        final boolean directoryOnly;
+        final boolean anchored;
+
+        Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean anchored) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+            this.anchored = anchored;
+        }
+    }
+
+    private final IgnoreRules parent;
+    private final Path base;
+    private final List<Rule> rules;
+    private final boolean anchored;
+
+    /** The search's exclude patterns, consulted first; null within that source itself */
+    private final IgnoreRules excludes;
+
+    private IgnoreRules(IgnoreRules parent, Path base, List<Rule> rules, IgnoreRules excludes) {
+        this.parent = parent;
+        this.base = base;
+        this.rules = rules;
+        this.excludes = excludes;
+        boolean anyAnchored = false;
+        for (Rule rule : rules) {
+            anyAnchored |= rule.anchored;
+        }
+        this.anchored = anyAnchored;
+    }
+
+    /**
+     * Creates the outermost rules of a search
+     * @param base the directory anchored patterns are relative to
+     * @param patterns patterns in .gitignore syntax
+     * @return the rules
+     */
+    static IgnoreRules of(Path base, List<String> patterns) {
+        IgnoreRules excludes = new IgnoreRules(null, base, parse(patterns), null);
+        return new IgnoreRules(null, base, Collections.emptyList(), excludes);
+    }
+
+    /**
+     * Gets the rules in effect inside a directory, adding those of its
+     * ignore files to the inherited ones
+     * @param directory the directory about to be scanned
+     * @return rules for the directory's entries; this instance if it has no ignore files
+     */
+    IgnoreRules forDirectory(Path directory) {
+        List<String> lines = null;
+        for (String name : IGNORE_FILES) {
+            Path file = directory.resolve(name);
+            if (Files.isRegularFile(file)) {
+                try {
+                    if (lines == null) {
+                        lines = new ArrayList<>();
+                    }
+                    lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    // Unreadable ignore files are skipped like unreadable directories
+                }
+            }
+        }
+        if (lines == null) {
+            return this;
+        }
+        List<Rule> parsed = parse(lines);
+        return parsed.isEmpty() ? this : new IgnoreRules(this, directory, parsed, excludes);
+    }
+
+    /**
+     * Checks whether an entry is excluded
+     * @param entry the entry's path
+     * @param name the entry's file name
+     * @param isDirectory whether the entry is a directory
+     * @return true if the search should skip the entry
+     */
+    boolean isIgnored(Path entry, String name, boolean isDirectory) {
+        if (excludes != null) {
+            Boolean excluded = excludes.lastMatch(entry, name, isDirectory);
+            if (excluded != null) {
+                return excluded;
+            }
+        }
+        for (IgnoreRules source = this; source != null; source = source.parent) {
+            Boolean ignored = source.lastMatch(entry, name, isDirectory);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the rules of this source alone
+     * @return true if the last matching rule excludes the entry, false if it
+     *         re-includes it, null if no rule matches
+     */
+    private Boolean lastMatch(Path entry, String name, boolean isDirectory) {
+        String relative = anchored ? relativePath(base, entry) : null;
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.directoryOnly && !isDirectory) {
+                continue;
+            }
+            if (rule.pattern.matcher(rule.anchored ? relative : name).matches()) {
+                return !rule.negated;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether any rules are in effect
+     * @return true if no entry can be excluded
+     */
+    boolean isEmpty() {
+        return rules.isEmpty() && (excludes == null || excludes.isEmpty()) && (parent == null || parent.isEmpty());
+    }
+
+    private static String relativePath(Path base, Path entry) {
+        String relative = base.relativize(entry).toString();
+        return File.separatorChar == '/' ? relative : relative.replace(File.separatorChar, '/');
+    }
+
+    private static List<Rule> parse(List<String> lines) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String line : lines) {
+            String pattern = stripTrailingSpaces(line);
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+
+            boolean negated = pattern.startsWith("!");
+            if (negated || pattern.startsWith("\\!") || pattern.startsWith("\\#")) {
+                pattern = pattern.substring(1);
+            }
+            boolean directoryOnly = pattern.endsWith("/");
+            if (directoryOnly) {
+                pattern = pattern.substring(0, pattern.length() - 1);
+            }
+            boolean anchored = pattern.indexOf('/') >= 0;
+            if (pattern.startsWith("/")) {
+                pattern = pattern.substring(1);
+            }
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            parsed.add(new Rule(Pattern.compile(globToRegex(pattern)), negated, directoryOnly, anchored));
+        }
+        return parsed.isEmpty() ? Collections.emptyList() : parsed;
+    }
+
+    private static String stripTrailingSpaces(String line) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ' && !(end > 1 && line.charAt(end - 2) == '\\')) {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    /**
+     * Translates a .gitignore pattern into a regular expression over
+     * slash-separated relative paths
+     * @param glob the pattern, without negation, leading or trailing slash
+     * @return regular expression matching the whole path
+     */
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int length = glob.length();
+        for (int i = 0; i < length; i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    int stars = 1;
+                    while (i + 1 < length && glob.charAt(i + 1) == '*') {
+                        stars++;
+                        i++;
+                    }
+                    boolean wholeSegment = (i - stars < 0 || glob.charAt(i - stars) == '/')
+                            && (i + 1 == length || glob.charAt(i + 1) == '/');
+                    if (stars >= 2 && wholeSegment) {
+                        if (i + 1 == length) {
+                            regex.append(".*");
+                        } else {
+                            // "**/" matches zero or more whole directories
+                            regex.append("(?:.*/)?");
+                            i++;
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        regex.append("\\[");
+                        break;
+                    }
+                    regex.append('[');
+                    int start = i + 1;
+                    if (glob.charAt(start) == '!' || glob.charAt(start) == '^') {
+                        regex.append('^');
+                        start++;
+                    }
+                    for (int j = start; j < end; j++) {
+                        char member = glob.charAt(j);
+                        if (member != '-' && "\\[]^&".indexOf(member) >= 0) {
+                            regex.append('\\');
+                        }
+                        regex.append(member);
+                    }
+                    regex.append(']');
+                    i = end;
+                    break;
+                case '\\':
+                    if (i + 1 < length) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                    break;
+                default:
+                    if ("^$.|+(){}".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.filesearch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records durations in log-linear buckets, in the manner
+ * of an HDR histogram: every power of two is split into
+ * {@link #SUB_BUCKETS} equal buckets, so any recorded value is known to
+ * within about 3% whether it is a microsecond or a minute, in a fixed
+ * array of counters. Recording is lock-free and safe from any thread.
+ */
+final class LatencyHistogram {
+
+    /** Buckets per power of two; values below twice this are recorded exactly */
+    static final int SUB_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one value
+     * @param value the value, such as a duration in nanoseconds; negative values count as 0
+     */
+    void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        total.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * @return number of values recorded
+     */
+    long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * @return largest value recorded, or 0 if there is none
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return average of the values recorded, or 0 if there is none
+     */
+    double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Gets the value below or at which a share of the recorded values lie
+     * @param percentile the share in percent, such as 99
+     * @return the highest value of the bucket holding that rank, at most the
+     *         largest value recorded; 0 if nothing was recorded
+     * @throws IllegalArgumentException if percentile is not between 0 and 100
+     */
+    long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long count = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears every bucket
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Gets the bucket of a value: values below 2 * SUB_BUCKETS have one each,
+     * larger ones share a bucket with the values that agree in their top
+     * SUB_BUCKET_BITS + 1 bits
+     * @param value a non-negative value
+     * @return bucket index
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the largest value that falls into a bucket
+     * @param index bucket index
+     * @return highest value of the bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,402 @@
+package com.filesearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MetadataFilter narrows a search by file size, times, type and owner.
+ *
+ * Filters are tested against the attributes the walk already read for
+ * each entry, so they cost no extra file system access; only an owner
+ * filter makes the walk read POSIX attributes instead of basic ones, still
+ * in a single read. Filters combine with {@link #and}, {@link #or} and
+ * {@link #negate}. A combination tests its parts cheapest first and stops
+ * as soon as the outcome is known: type, then size, then times, then owner.
+ *
+ * A search reports files only, unless a filter asks for the
+ * {@link Type#DIRECTORY} type, in which case matching directories are
+ * reported too. When links are followed, attributes describe their
+ * targets, so {@link Type#SYMLINK} only matches when links are not followed.
+ * Entries whose attributes cannot be read never match.
+ */
+public abstract class MetadataFilter {
+
+    /**
+     * Kind of file system entry
+     */
+    public enum Type {
+        /** A regular file */
+        FILE,
+        /** A directory */
+        DIRECTORY,
+        /** A symbolic link, seen only when links are not followed */
+        SYMLINK,
+        /** Anything else, such as a device or pipe */
+        OTHER
+    }
+
+    /** Relative costs, used to order the parts of a combination */
+    private static final int TYPE_COST = 0;
+    private static final int SIZE_COST = 1;
+    private static final int TIME_COST = 2;
+    private static final int OWNER_COST = 3;
+
+    MetadataFilter() {
+    }
+
+    /**
+     * Tests one entry
+     * @param entry the entry's path
+     * @param attributes the attributes read during the walk
+     * @return true if the entry passes the filter
+     */
+    abstract boolean test(Path entry, BasicFileAttributes attributes);
+
+    /**
+     * @return relative cost of {@link #test}; cheaper filters run first
+     */
+    abstract int cost();
+
+    /**
+     * @return true if the walk should read POSIX attributes for this filter
+     */
+    boolean needsOwner() {
+        return false;
+    }
+
+    /**
+     * @return true if directories are to be tested and reported as well as files
+     */
+    boolean matchesDirectories() {
+        return false;
+    }
+
+    /**
+     * Matches entries whose size lies in a range
+     * @param min smallest size in bytes
+     * @param max largest size in bytes
+     * @return the filter
+     * @throws IllegalArgumentException if the range is empty or negative
+     */
+    public static MetadataFilter size(long min, long max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Invalid size range: " + min + " to " + max);
+        }
+        return new MetadataFilter() {
+            @Override
+            boolean test(Path entry, BasicFileAttributes attributes) {
+                long size = attributes.size();
+                return size >= min && size <= max;
+            }
+
+            @Override
+            int cost() {
+                return SIZE_COST;
+            }
+        };
+    }
+
+    /**
+     * Matches entries larger than a size
+     * @param bytes size in bytes the entry must exceed
+     * @return the filter
+     * @throws IllegalArgumentException if bytes is negative or no size exceeds it
+     */
+    public static MetadataFilter largerThan(long bytes) {
+        if (bytes < 0 || bytes == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("No entry can be larger than " + bytes + " bytes");
+        }
+        return size(bytes + 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Matches entries smaller than a size
+     * @param bytes size in bytes the entry must stay below
+     * @return the filter
+     * @throws IllegalArgumentException if bytes is not positive
+     */
+    public static MetadataFilter smallerThan(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("No entry can be smaller than " + bytes + " bytes");
+        }
+        return size(0, bytes - 1);
+    }
+
+    /**
+     * Matches entries last modified in a time range
+     * @param from earliest time, inclusive; null for no lower bound
+     * @param to latest time, exclusive; null for no upper bound
+     * @return the filter
+     */
+    public static MetadataFilter modified(Instant from, Instant to) {
+        return new TimeFilter(from, to, false);
+    }
+
+    /**
+     * Matches entries modified within a period before the filter was created
+     * @param period how far back to look, such as one day
+     * @return the filter
+     */
+    public static MetadataFilter modifiedWithin(Duration period) {
+        return modified(Instant.now().minus(period), null);
+    }
+
+    /**
+     * Matches entries created in a time range, as far as the file system
+     * records creation times; where it does not, the modification time is used
+     * @param from earliest time, inclusive; null for no lower bound
+     * @param to latest time, exclusive; null for no upper bound
+     * @return the filter
+     */
+    public static MetadataFilter created(Instant from, Instant to) {
+        return new TimeFilter(from, to, true);
+    }
+
+    /**
+     * Matches entries of the given types
+     * @param types the accepted types
+     * @return the filter
+     * @throws IllegalArgumentException if no type is given
+     */
+    public static MetadataFilter type(Type... types) {
+        if (types.length == 0) {
+            throw new IllegalArgumentException("At least one type is required");
+        }
+        Set<Type> accepted = EnumSet.copyOf(Arrays.asList(types));
+        return new MetadataFilter() {
+            @Override
+            boolean test(Path entry, BasicFileAttributes attributes) {
+                return accepted.contains(typeOf(attributes));
+            }
+
+            @Override
+            int cost() {
+                return TYPE_COST;
+            }
+
+            @Override
+            boolean matchesDirectories() {
+                return accepted.contains(Type.DIRECTORY);
+            }
+
+            @Override
+            public MetadataFilter negate() {
+                Set<Type> rest = EnumSet.complementOf(EnumSet.copyOf(accepted));
+                return rest.isEmpty() ? super.negate() : type(rest.toArray(new Type[0]));
+            }
+        };
+    }
+
+    /**
+     * Matches entries owned by a user
+     * @param owner the owner's user name
+     * @return the filter
+     */
+    public static MetadataFilter ownedBy(String owner) {
+        return new MetadataFilter() {
+            @Override
+            boolean test(Path entry, BasicFileAttributes attributes) {
+                if (attributes instanceof PosixFileAttributes) {
+                    return owner.equals(((PosixFileAttributes) attributes).owner().getName());
+                }
+                // Not a POSIX file system; the owner needs a read of its own
+                try {
+                    return owner.equals(Files.getOwner(entry).getName());
+                } catch (IOException | UnsupportedOperationException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            int cost() {
+                return OWNER_COST;
+            }
+
+            @Override
+            boolean needsOwner() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Matches entries that pass this filter and another
+     * @param other the other filter
+     * @return the combined filter
+     */
+    public MetadataFilter and(MetadataFilter other) {
+        return new Combination(true, this, other);
+    }
+
+    /**
+     * Matches entries that pass this filter or another
+     * @param other the other filter
+     * @return the combined filter
+     */
+    public MetadataFilter or(MetadataFilter other) {
+        return new Combination(false, this, other);
+    }
+
+    /**
+     * Matches entries that do not pass this filter. Negating a type filter
+     * accepts the other types, so directories are reported when the negated
+     * filter did not accept them and no longer when it did; negating a
+     * combination negates its parts.
+     * @return the negated filter
+     */
+    public MetadataFilter negate() {
+        MetadataFilter negated = this;
+        return new MetadataFilter() {
+            @Override
+            boolean test(Path entry, BasicFileAttributes attributes) {
+                return !negated.test(entry, attributes);
+            }
+
+            @Override
+            int cost() {
+                return negated.cost();
+            }
+
+            @Override
+            boolean needsOwner() {
+                return negated.needsOwner();
+            }
+
+            @Override
+            public MetadataFilter negate() {
+                return negated;
+            }
+        };
+    }
+
+    /**
+     * Gets the type of an entry
+     * @param attributes the entry's attributes
+     * @return its type
+     */
+    static Type typeOf(BasicFileAttributes attributes) {
+        if (attributes.isRegularFile()) {
+            return Type.FILE;
+        } else if (attributes.isDirectory()) {
+            return Type.DIRECTORY;
+        } else if (attributes.isSymbolicLink()) {
+            return Type.SYMLINK;
+        }
+        return Type.OTHER;
+    }
+
+    /**
+     * Modification or creation time in a half-open range
+     */
+    private static final class TimeFilter extends MetadataFilter {
+
+        private final FileTime from;
+        private final FileTime to;
+        private final boolean creation;
+
+        TimeFilter(Instant from, Instant to, boolean creation) {
+            this.from = from == null ? null : FileTime.from(from);
+            this.to = to == null ? null : FileTime.from(to);
+            this.creation = creation;
+        }
+
+        @Override
+        boolean test(Path entry, BasicFileAttributes attributes) {
+            FileTime time = creation ? attributes.creationTime() : attributes.lastModifiedTime();
+            return (from == null || time.compareTo(from) >= 0) && (to == null || time.compareTo(to) < 0);
+        }
+
+        @Override
+        int cost() {
+            return TIME_COST;
+        }
+    }
+
+    /**
+     * All or any of several filters, flattened and sorted cheapest first
+     */
+    private static final class Combination extends MetadataFilter {
+
+        private final boolean all;
+        private final MetadataFilter[] parts;
+
+        Combination(boolean all, MetadataFilter first, MetadataFilter second) {
+            this(all, new MetadataFilter[] {first, second});
+        }
+
+        private Combination(boolean all, MetadataFilter[] unflattened) {
+            this.all = all;
+            List<MetadataFilter> flattened = new ArrayList<>();
+            for (MetadataFilter part : unflattened) {
+                if (part instanceof Combination && ((Combination) part).all == all) {
+                    Collections.addAll(flattened, ((Combination) part).parts);
+                } else {
+                    flattened.add(part);
+                }
+            }
+            flattened.sort(Comparator.comparingInt(MetadataFilter::cost));
+            this.parts = flattened.toArray(new MetadataFilter[0]);
+        }
+
+        @Override
+        boolean test(Path entry, BasicFileAttributes attributes) {
+            for (MetadataFilter part : parts) {
+                if (part.test(entry, attributes) != all) {
+                    return !all;
+                }
+            }
+            return all;
+        }
+
+        @Override
+        int cost() {
+            int cost = 0;
+            for (MetadataFilter part : parts) {
+                cost = Math.max(cost, part.cost());
+            }
+            return cost;
+        }
+
+        @Override
+        boolean needsOwner() {
+            for (MetadataFilter part : parts) {
+                if (part.needsOwner()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean matchesDirectories() {
+            for (MetadataFilter part : parts) {
+                if (part.matchesDirectories()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public MetadataFilter negate() {
+            MetadataFilter[] negated = new MetadataFilter[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                negated[i] = parts[i].negate();
+            }
+            return new Combination(!all, negated);
+        }
+    }
+}
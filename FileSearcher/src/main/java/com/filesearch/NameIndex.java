@@ -0,0 +1,35 @@
+package com.filesearch;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * NameIndex answers file name searches without walking the directory tree.
+ * A {@link FileSearcher} with an index set uses it for every directory the
+ * index covers and walks the rest.
+ */
+public interface NameIndex {
+
+    /**
+     * Checks whether a directory is part of the indexed tree
+     * @param directory the directory to check
+     * @return true if searches in directory can be answered from the index
+     */
+    boolean covers(Path directory);
+
+    /**
+     * Tells how the index treats links to directories; a searcher only uses
+     * an index that does as it does, so both give the same answers
+     * @return true if the files behind links to directories are indexed
+     */
+    boolean followsLinks();
+
+    /**
+     * Answers a search from the index alone
+     * @param directory the directory to search in; must be covered by the index
+     * @param fileNames file names to search for
+     * @param caseSensitive true for case-sensitive matching
+     * @return absolute paths of the matching files under directory
+     */
+    List<String> lookup(Path directory, String[] fileNames, boolean caseSensitive);
+}
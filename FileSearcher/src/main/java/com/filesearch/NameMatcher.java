@@ -0,0 +1,412 @@
+package com.filesearch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * NameMatcher tests file names against a set of search patterns compiled
+ * once per search, so a single traversal evaluates all of them.
+ *
+ * Each pattern is classified by the cheapest structure that can answer it:
+ * <ul>
+ *   <li>plain names go into a hash set, as before;</li>
+ *   <li>extension globs such as {@code *.log} or {@code *.tar.gz} go into a
+ *       suffix table probed once per dot in the name;</li>
+ *   <li>substring globs such as {@code *core*} are combined into one
+ *       Aho-Corasick automaton that scans the name once for all of them;</li>
+ *   <li>other globs ({@code *}, {@code ?}, {@code [..]}, {@code {a,b}}) and
+ *       regular expressions (a {@code regex:} prefix, or a leading {@code ^})
+ *       are compiled to {@link Pattern}s.</li>
+ * </ul>
+ * A {@code glob:} prefix forces glob syntax. Regular expressions are searched
+ * within the name, so anchor them to match the whole name.
+ *
+ * Every pattern has a key, its case-folded text, under which its matches
+ * are counted.
+ */
+class NameMatcher {
+
+    private static final String GLOB_PREFIX = "glob:";
+    private static final String REGEX_PREFIX = "regex:";
+
+    private final boolean caseSensitive;
+    private final Set<String> keys = new LinkedHashSet<>();
+    private final Map<String, String[]> literals = new HashMap<>();
+    private final Map<String, String[]> suffixes = new HashMap<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<String> patternKeys = new ArrayList<>();
+    private final List<String> substringPatterns = new ArrayList<>();
+    private final List<String> substringKeys = new ArrayList<>();
+    private SubstringAutomaton substrings;
+    private int longestSuffix;
+
+    private NameMatcher(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    /**
+     * Compiles search patterns into a matcher
+     * @param fileNames file names or patterns to search for
+     * @param caseSensitive true for case-sensitive matching
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if a regular expression is invalid
+     */
+    static NameMatcher compile(String[] fileNames, boolean caseSensitive) {
+        NameMatcher matcher = new NameMatcher(caseSensitive);
+        for (String fileName : fileNames) {
+            matcher.add(fileName.trim());
+        }
+        if (!matcher.substringPatterns.isEmpty()) {
+            matcher.substrings = new SubstringAutomaton(matcher.substringPatterns, matcher.substringKeys);
+        }
+        return matcher;
+    }
+
+    private void add(String pattern) {
+        String key = FileSearcher.foldName(pattern, caseSensitive);
+        if (!keys.add(key)) {
+            return;
+        }
+
+        int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            addPattern(Pattern.compile(pattern.substring(REGEX_PREFIX.length()), flags), key);
+            return;
+        }
+        if (pattern.startsWith("^")) {
+            addPattern(Pattern.compile(pattern, flags), key);
+            return;
+        }
+
+        String glob = pattern.startsWith(GLOB_PREFIX) ? pattern.substring(GLOB_PREFIX.length()) : pattern;
+        String folded = FileSearcher.foldName(glob, caseSensitive);
+        String inner = glob.length() > 2 ? glob.substring(1, glob.length() - 1) : "";
+
+        if (!hasGlobSyntax(glob)) {
+            addKey(literals, folded, key);
+        } else if (glob.startsWith("*.") && !hasGlobSyntax(glob.substring(1))) {
+            String suffix = folded.substring(1);
+            addKey(suffixes, suffix, key);
+            longestSuffix = Math.max(longestSuffix, suffix.length());
+        } else if (glob.startsWith("*") && glob.endsWith("*") && !inner.isEmpty() && !hasGlobSyntax(inner)) {
+            substringPatterns.add(folded.substring(1, folded.length() - 1));
+            substringKeys.add(key);
+        } else {
+            addPattern(Pattern.compile(globToRegex(glob), flags), key);
+        }
+    }
+
+    private void addPattern(Pattern pattern, String key) {
+        patterns.add(pattern);
+        patternKeys.add(key);
+    }
+
+    private static void addKey(Map<String, String[]> table, String entry, String key) {
+        String[] existing = table.get(entry);
+        if (existing == null) {
+            table.put(entry, new String[] {key});
+        } else {
+            String[] merged = Arrays.copyOf(existing, existing.length + 1);
+            merged[existing.length] = key;
+            table.put(entry, merged);
+        }
+    }
+
+    /**
+     * Gets the keys of all patterns, in the order given
+     * @return pattern keys
+     */
+    Set<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Checks whether every pattern is a plain file name, so that a name
+     * index can answer the search
+     * @return true if there are only literal names
+     */
+    boolean isLiteralOnly() {
+        return suffixes.isEmpty() && substrings == null && patterns.isEmpty();
+    }
+
+    /**
+     * Finds the patterns a file name matches
+     * @param fileName the file name
+     * @return keys of the matching patterns, or null if none match
+     */
+    String[] match(String fileName) {
+        String folded = FileSearcher.foldName(fileName, caseSensitive);
+        String[] matched = literals.isEmpty() ? null : literals.get(folded);
+        if (isLiteralOnly()) {
+            return matched;
+        }
+
+        List<String> more = null;
+        if (!suffixes.isEmpty()) {
+            int stop = Math.max(0, folded.length() - longestSuffix);
+            for (int i = folded.lastIndexOf('.'); i >= stop; i = folded.lastIndexOf('.', i - 1)) {
+                String[] keys = suffixes.get(folded.substring(i));
+                if (keys != null) {
+                    more = append(more, keys);
+                }
+            }
+        }
+        if (substrings != null) {
+            more = substrings.match(folded, more);
+        }
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(fileName).find()) {
+                more = append(more, patternKeys.get(i));
+            }
+        }
+
+        if (more == null) {
+            return matched;
+        }
+        if (matched != null) {
+            more.addAll(0, Arrays.asList(matched));
+        }
+        return more.toArray(new String[0]);
+    }
+
+    private static List<String> append(List<String> list, String... keys) {
+        if (list == null) {
+            list = new ArrayList<>(keys.length);
+        }
+        list.addAll(Arrays.asList(keys));
+        return list;
+    }
+
+    /**
+     * Checks whether a pattern uses any glob syntax
+     * @param pattern the pattern
+     * @return true if it contains a glob metacharacter
+     */
+    static boolean hasGlobSyntax(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            switch (pattern.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case '{':
+                case '\\':
+                    return true;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Translates a glob to an equivalent regular expression matching a whole
+     * file name, with the syntax of {@link java.nio.file.FileSystem#getPathMatcher}
+     * @param glob the glob
+     * @return regular expression
+     * @throws IllegalArgumentException if a bracket expression or group is not closed
+     */
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder("^");
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                case '\\':
+                    if (++i == glob.length()) {
+                        throw new IllegalArgumentException("Trailing escape in pattern: " + glob);
+                    }
+                    appendLiteral(regex, glob.charAt(i));
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unclosed character class in pattern: " + glob);
+                    }
+                    regex.append('[');
+                    int start = i + 1;
+                    if (glob.charAt(start) == '!') {
+                        regex.append('^');
+                        start++;
+                    }
+                    for (int j = start; j < end; j++) {
+                        char member = glob.charAt(j);
+                        if (member == '-') {
+                            regex.append('-');
+                        } else {
+                            appendLiteral(regex, member);
+                        }
+                    }
+                    regex.append(']');
+                    i = end;
+                    break;
+                case '{':
+                    if (inGroup) {
+                        throw new IllegalArgumentException("Nested group in pattern: " + glob);
+                    }
+                    regex.append("(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    if (inGroup) {
+                        regex.append(')');
+                        inGroup = false;
+                    } else {
+                        appendLiteral(regex, c);
+                    }
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                default:
+                    appendLiteral(regex, c);
+            }
+        }
+        if (inGroup) {
+            throw new IllegalArgumentException("Unclosed group in pattern: " + glob);
+        }
+        return regex.append('$').toString();
+    }
+
+    private static void appendLiteral(StringBuilder regex, char c) {
+        if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+            regex.append('\\');
+        }
+        regex.append(c);
+    }
+
+    /**
+     * Aho-Corasick automaton over the substring patterns, resolved into a
+     * dense transition table so each character of a name costs one lookup
+     */
+    private static class SubstringAutomaton {
+
+        private final char[] alphabet;
+        private final int[] asciiColumns = new int[128];
+        private final int[][] transitions;
+        private final String[][] outputs;
+
+        SubstringAutomaton(List<String> patterns, List<String> keys) {
+            Set<Character> chars = new TreeSet<>();
+            for (String pattern : patterns) {
+                for (int i = 0; i < pattern.length(); i++) {
+                    chars.add(pattern.charAt(i));
+                }
+            }
+            alphabet = new char[chars.size()];
+            int column = 0;
+            for (char c : chars) {
+                alphabet[column++] = c;
+            }
+            Arrays.fill(asciiColumns, -1);
+            for (int i = 0; i < alphabet.length; i++) {
+                if (alphabet[i] < 128) {
+                    asciiColumns[alphabet[i]] = i;
+                }
+            }
+
+            // Trie of the patterns; -1 marks a missing edge
+            List<int[]> trie = new ArrayList<>();
+            List<List<String>> found = new ArrayList<>();
+            trie.add(newRow());
+            found.add(new ArrayList<>());
+            for (int p = 0; p < patterns.size(); p++) {
+                String pattern = patterns.get(p);
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    int col = columnOf(pattern.charAt(i));
+                    if (trie.get(state)[col] < 0) {
+                        trie.get(state)[col] = trie.size();
+                        trie.add(newRow());
+                        found.add(new ArrayList<>());
+                    }
+                    state = trie.get(state)[col];
+                }
+                found.get(state).add(keys.get(p));
+            }
+
+            // Breadth-first: fill missing edges from the failure state and inherit its outputs
+            int[] failure = new int[trie.size()];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int col = 0; col < alphabet.length; col++) {
+                int next = trie.get(0)[col];
+                if (next < 0) {
+                    trie.get(0)[col] = 0;
+                } else {
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                found.get(state).addAll(found.get(failure[state]));
+                for (int col = 0; col < alphabet.length; col++) {
+                    int next = trie.get(state)[col];
+                    int fallback = trie.get(failure[state])[col];
+                    if (next < 0) {
+                        trie.get(state)[col] = fallback;
+                    } else {
+                        failure[next] = fallback;
+                        queue.add(next);
+                    }
+                }
+            }
+
+            transitions = trie.toArray(new int[0][]);
+            outputs = new String[trie.size()][];
+            for (int state = 0; state < outputs.length; state++) {
+                List<String> out = found.get(state);
+                outputs[state] = out.isEmpty() ? null : new LinkedHashSet<>(out).toArray(new String[0]);
+            }
+        }
+
+        private int[] newRow() {
+            int[] row = new int[alphabet.length];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private int columnOf(char c) {
+            if (c < 128) {
+                return asciiColumns[c];
+            }
+            int column = Arrays.binarySearch(alphabet, c);
+            return column < 0 ? -1 : column;
+        }
+
+        /**
+         * Scans a name once and adds the keys of every pattern it contains
+         * @param text the (folded) name
+         * @param matched keys found so far, or null
+         * @return matched with the new keys added, or null if there are none
+         */
+        List<String> match(String text, List<String> matched) {
+            Set<String> hits = null;
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int col = columnOf(text.charAt(i));
+                state = col < 0 ? 0 : transitions[state][col];
+                if (outputs[state] != null) {
+                    if (hits == null) {
+                        hits = new LinkedHashSet<>();
+                    }
+                    hits.addAll(Arrays.asList(outputs[state]));
+                }
+            }
+            return hits == null ? matched : append(matched, hits.toArray(new String[0]));
+        }
+    }
+}
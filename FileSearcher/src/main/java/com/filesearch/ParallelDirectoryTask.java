@@ -0,0 +1,70 @@
+package com.filesearch;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelDirectoryTask walks a batch of directories on a ForkJoinPool.
+ * A task works through its own queue of directories and only forks part of
+ * that queue off as a new task when the pool is running short of work, so
+ * runs of small directories are handled inline instead of one task each.
+ */
+class ParallelDirectoryTask extends RecursiveAction {
+
+    /** Forks work off only while fewer than this many tasks are queued locally */
+    private static final int SURPLUS_THRESHOLD = 2;
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient DirectoryScanner scanner;
+    private final transient Deque<DirectoryWalker.Pending> pending;
+    private final int maxDepth;
+
+    /**
+     * Constructor for ParallelDirectoryTask
+     * @param scanner scans each directory
+     * @param directories the directories this task starts with
+     * @param maxDepth deepest level below the search root whose directories are scanned
+     */
+    ParallelDirectoryTask(DirectoryScanner scanner, Deque<DirectoryWalker.Pending> directories, int maxDepth) {
+        this.scanner = scanner;
+        this.pending = directories;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    protected void compute() {
+        List<ParallelDirectoryTask> forked = new ArrayList<>();
+        List<Path> subdirectories = new ArrayList<>();
+
+        while (!pending.isEmpty()) {
+            DirectoryWalker.Pending directory = pending.pollLast();
+            subdirectories.clear();
+            scanner.scan(directory.path, subdirectories);
+            if (directory.depth < maxDepth) {
+                for (Path subdirectory : subdirectories) {
+                    pending.addLast(new DirectoryWalker.Pending(subdirectory, directory.depth + 1));
+                }
+            }
+
+            // Hand half of the queue to an idle worker, keeping the rest local
+            if (pending.size() > 1 && getSurplusQueuedTaskCount() < SURPLUS_THRESHOLD) {
+                Deque<DirectoryWalker.Pending> split = new ArrayDeque<>();
+                for (int i = pending.size() / 2; i > 0; i--) {
+                    split.addLast(pending.pollFirst());
+                }
+                ParallelDirectoryTask task = new ParallelDirectoryTask(scanner, split, maxDepth);
+                task.fork();
+                forked.add(task);
+            }
+        }
+
+        for (int i = forked.size() - 1; i >= 0; i--) {
+            forked.get(i).join();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.filesearch;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SearchControl decides when one search stops before it has walked the
+ * whole tree: once it has reported its limit of matches, once its deadline
+ * has passed, or once it is cancelled. Every thread working on the search
+ * checks it between entries, so all of them stop within one entry of each
+ * other.
+ */
+final class SearchControl {
+
+    private final int limit;
+    private final long deadline;
+    private final boolean hasDeadline;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private volatile boolean stopped;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor for SearchControl
+     * @param limit most matches to report, Integer.MAX_VALUE for no limit
+     * @param deadline how long the search may run from now, or null for no deadline
+     */
+    SearchControl(int limit, Duration deadline) {
+        this.limit = limit;
+        this.hasDeadline = deadline != null;
+        this.deadline = hasDeadline ? System.nanoTime() + deadline.toNanos() : 0;
+    }
+
+    /**
+     * Claims a place in the results for one match; the match that reaches
+     * the limit stops the search
+     * @return true if the match is to be reported
+     */
+    boolean admit() {
+        if (stopped) {
+            return false;
+        }
+        int count = admitted.incrementAndGet();
+        if (count >= limit) {
+            stopped = true;
+        }
+        return count <= limit;
+    }
+
+    /**
+     * Checks whether the search is to stop, noticing a deadline that has passed
+     * @return true if no more directories or entries are to be read
+     */
+    boolean isStopped() {
+        if (!stopped && hasDeadline && System.nanoTime() - deadline >= 0) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Checks whether the search stopped early, without checking the deadline
+     * again: a search that finished its walk after the deadline passed, but
+     * without noticing, still walked the whole tree
+     * @return true if the search was stopped before the walk finished
+     */
+    boolean wasStopped() {
+        return stopped;
+    }
+
+    /**
+     * Stops the search from any thread
+     */
+    void cancel() {
+        cancelled = true;
+        stopped = true;
+    }
+
+    /**
+     * @return true if the search was cancelled
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+}
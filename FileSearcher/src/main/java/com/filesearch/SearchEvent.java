@@ -0,0 +1,39 @@
+package com.filesearch;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one search, from its start until its walk is done
+ */
+@Name("com.filesearch.Search")
+@Label("File Search")
+@Category("File Search")
+class SearchEvent extends Event {
+
+    @Label("Directory")
+    String directory;
+
+    @Label("Patterns")
+    String patterns;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Directories")
+    long directories;
+
+    @Label("Entries")
+    long entries;
+
+    @Label("Matches")
+    long matches;
+
+    @Label("Errors")
+    long errors;
+
+    @Label("Completed")
+    boolean completed;
+}
@@ -0,0 +1,63 @@
+package com.filesearch;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SearchHandle lets the caller of an asynchronous search stop it.
+ *
+ * Cancelling stops every worker of the query before its next entry, and
+ * the result still completes normally, with the files found until then and
+ * {@link SearchResult#isCompleted()} false. Cancelling the future returned
+ * by {@link #getResult()} instead also stops the workers, but discards
+ * what they found.
+ */
+public final class SearchHandle {
+
+    private final CompletableFuture<SearchResult> result;
+    private final FileSearcher searcher;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor for SearchHandle
+     * @param result completes when the query is done
+     * @param searcher runs the query; null if it never started walking
+     */
+    SearchHandle(CompletableFuture<SearchResult> result, FileSearcher searcher) {
+        this.result = result;
+        this.searcher = searcher;
+        if (searcher != null) {
+            result.whenComplete((done, failure) -> {
+                if (result.isCancelled()) {
+                    searcher.cancel();
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the query, keeping the files found so far; does nothing if it has finished
+     */
+    public void cancel() {
+        cancelled = true;
+        if (searcher != null) {
+            searcher.cancel();
+        }
+    }
+
+    /**
+     * Checks whether {@link #cancel()} was called
+     * @return true if the query was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the result of the query
+     * @return the result, completed exceptionally with an IOException if the
+     *         directory doesn't exist or cannot be accessed
+     */
+    public CompletableFuture<SearchResult> getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+package com.filesearch;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * SearchMetrics counts what searches do: directories and entries visited,
+ * names examined, matches, errors by type, and how long each directory
+ * takes to scan, as a {@link LatencyHistogram}. Scan times leave out the
+ * time matches spend with their consumer, such as a content check. They tell a slow mount
+ * (high scan latency), a huge directory (many entries per directory) and
+ * permission problems (AccessDeniedException errors) apart.
+ *
+ * Each directory's counts are added once its scan is done, so the cost per
+ * entry is a local increment. Counters are safe to update from any number
+ * of threads, and one instance may be shared by several searchers. The
+ * metrics can be registered as a platform MBean; each slow directory scan
+ * and each search are also recorded as JFR events.
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+
+    /** Domain of the names under which metrics are registered with JMX */
+    public static final String JMX_DOMAIN = "com.filesearch";
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder nameBytes = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram listingLatency = new LatencyHistogram();
+    private volatile int currentDepth;
+
+    /**
+     * Counts a search being started
+     */
+    void recordSearch() {
+        searches.increment();
+    }
+
+    /**
+     * Counts one scanned directory
+     * @param depth its depth below the search root
+     * @param entryCount number of entries examined
+     * @param nameLength total length of their names
+     * @param nanos time the scan took
+     */
+    void recordDirectory(int depth, int entryCount, long nameLength, long nanos) {
+        directories.increment();
+        entries.add(entryCount);
+        nameBytes.add(nameLength);
+        listingLatency.record(nanos);
+        currentDepth = depth;
+        maxDepth.accumulate(depth);
+    }
+
+    /**
+     * Counts one reported match
+     */
+    void recordMatch() {
+        matches.increment();
+    }
+
+    /**
+     * Counts one error by its type
+     * @param error the exception that was handled
+     */
+    void recordError(Throwable error) {
+        errors.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, so JMX clients
+     * can read them while searches run
+     * @param name distinguishes these metrics from others registered, such as the application's name
+     * @return the name they were registered under
+     * @throws JMException if the name is invalid or already in use
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Removes metrics registered under a name, if there are any
+     * @param name the name given to {@link #register}
+     * @throws JMException if the name is invalid
+     */
+    public static void unregister(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = objectName(name);
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=SearchMetrics,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getDirectoriesVisited() {
+        return directories.sum();
+    }
+
+    @Override
+    public long getEntriesVisited() {
+        return entries.sum();
+    }
+
+    @Override
+    public long getNameBytes() {
+        return nameBytes.sum();
+    }
+
+    @Override
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        long total = 0;
+        for (LongAdder count : errors.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> byType = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> count : errors.entrySet()) {
+            byType.put(count.getKey(), count.getValue().sum());
+        }
+        return byType;
+    }
+
+    @Override
+    public int getCurrentDepth() {
+        return currentDepth;
+    }
+
+    @Override
+    public int getMaxDepthReached() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getListingCount() {
+        return listingLatency.getCount();
+    }
+
+    @Override
+    public double getListingLatencyMean() {
+        return listingLatency.getMean();
+    }
+
+    @Override
+    public long getListingLatencyP50() {
+        return listingLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getListingLatencyP90() {
+        return listingLatency.getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getListingLatencyP99() {
+        return listingLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getListingLatencyMax() {
+        return listingLatency.getMax();
+    }
+
+    /**
+     * Gets any percentile of the time to scan a directory
+     * @param percentile the share of scans in percent, such as 99.9
+     * @return the time in nanoseconds that this share of scans stayed within
+     * @throws IllegalArgumentException if percentile is not between 0 and 100
+     */
+    public long getListingLatencyAtPercentile(double percentile) {
+        return listingLatency.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+        searches.reset();
+        directories.reset();
+        entries.reset();
+        nameBytes.reset();
+        matches.reset();
+        errors.clear();
+        maxDepth.reset();
+        listingLatency.reset();
+        currentDepth = 0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.filesearch;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link SearchMetrics}, as shown by JMX clients
+ * such as JConsole or VisualVM. Counts are totals since the metrics were
+ * created or last reset; latencies are in nanoseconds.
+ */
+public interface SearchMetricsMXBean {
+
+    /**
+     * @return number of searches started
+     */
+    long getSearches();
+
+    /**
+     * @return number of directories scanned
+     */
+    long getDirectoriesVisited();
+
+    /**
+     * @return number of directory entries examined, files and directories alike
+     */
+    long getEntriesVisited();
+
+    /**
+     * @return total length of the entry names examined
+     */
+    long getNameBytes();
+
+    /**
+     * @return number of matches reported
+     */
+    long getMatches();
+
+    /**
+     * @return number of errors of every type
+     */
+    long getErrors();
+
+    /**
+     * @return number of errors by exception type, such as AccessDeniedException
+     */
+    Map<String, Long> getErrorsByType();
+
+    /**
+     * @return depth below its search root of the directory scanned last
+     */
+    int getCurrentDepth();
+
+    /**
+     * @return deepest level below a search root scanned
+     */
+    int getMaxDepthReached();
+
+    /**
+     * @return number of directory scans timed
+     */
+    long getListingCount();
+
+    /**
+     * @return average time to scan a directory
+     */
+    double getListingLatencyMean();
+
+    /**
+     * @return median time to scan a directory
+     */
+    long getListingLatencyP50();
+
+    /**
+     * @return 90th percentile of the time to scan a directory
+     */
+    long getListingLatencyP90();
+
+    /**
+     * @return 99th percentile of the time to scan a directory
+     */
+    long getListingLatencyP99();
+
+    /**
+     * @return longest time to scan a directory
+     */
+    long getListingLatencyMax();
+
+    /**
+     * Sets every count back to 0
+     */
+    void reset();
+}
@@ -0,0 +1,291 @@
+package com.filesearch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SearchOptions holds the settings of one query to a {@link FileSearchService}.
+ *
+ * Instances are immutable and safe to share between threads: each
+ * {@code with} method returns a copy with one setting changed, so a base
+ * configuration can be refined per query.
+ */
+public final class SearchOptions {
+
+    private static final SearchOptions DEFAULTS = new SearchOptions(false, Integer.MAX_VALUE,
+            Collections.emptyList(), false, true, Collections.emptyList(), null, null, Integer.MAX_VALUE, null, null,
+            false);
+
+    private final boolean caseSensitive;
+    private final int maxDepth;
+    private final List<String> excludePatterns;
+    private final boolean readIgnoreFiles;
+    private final boolean followLinks;
+    private final List<String> contentPatterns;
+    private final MetadataFilter filter;
+    private final DirectoryCache listingCache;
+    private final int limit;
+    private final Duration deadline;
+    private final SearchMetrics metrics;
+    private final boolean searchArchives;
+
+    private SearchOptions(boolean caseSensitive, int maxDepth, List<String> excludePatterns,
+                          boolean readIgnoreFiles, boolean followLinks, List<String> contentPatterns,
+                          MetadataFilter filter, DirectoryCache listingCache, int limit, Duration deadline,
+                          SearchMetrics metrics, boolean searchArchives) {
+        this.caseSensitive = caseSensitive;
+        this.maxDepth = maxDepth;
+        this.excludePatterns = excludePatterns;
+        this.readIgnoreFiles = readIgnoreFiles;
+        this.followLinks = followLinks;
+        this.contentPatterns = contentPatterns;
+        this.filter = filter;
+        this.listingCache = listingCache;
+        this.limit = limit;
+        this.deadline = deadline;
+        this.metrics = metrics;
+        this.searchArchives = searchArchives;
+    }
+
+    /**
+     * Gets the default options: case-insensitive, unlimited depth, nothing
+     * excluded, links followed, names only
+     * @return the default options
+     */
+    public static SearchOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param caseSensitive true for case-sensitive matching
+     * @return a copy with the case sensitivity changed
+     */
+    public SearchOptions withCaseSensitive(boolean caseSensitive) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param maxDepth levels of subdirectories to search, Integer.MAX_VALUE for no limit
+     * @return a copy with the maximum depth changed
+     * @throws IllegalArgumentException if maxDepth is negative
+     */
+    public SearchOptions withMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth must not be negative: " + maxDepth);
+        }
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param patterns exclude patterns in .gitignore syntax
+     * @return a copy with the exclude patterns replaced
+     */
+    public SearchOptions withExcludePatterns(String... patterns) {
+        return new SearchOptions(caseSensitive, maxDepth, copyOf(patterns), readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param readIgnoreFiles true to honour .gitignore and .ignore files
+     * @return a copy with the ignore file setting changed
+     */
+    public SearchOptions withReadIgnoreFiles(boolean readIgnoreFiles) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param followLinks true to follow symbolic links
+     * @return a copy with the link setting changed
+     */
+    public SearchOptions withFollowLinks(boolean followLinks) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param patterns strings that matching files must contain
+     * @return a copy with the content patterns replaced
+     */
+    public SearchOptions withContentPatterns(String... patterns) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                copyOf(patterns), filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param filter metadata filter that matches must pass, or null for none
+     * @return a copy with the filter replaced
+     */
+    public SearchOptions withFilter(MetadataFilter filter) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param listingCache cache of directory listings, shared with other queries, or null for none
+     * @return a copy with the listing cache replaced
+     */
+    public SearchOptions withListingCache(DirectoryCache listingCache) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param limit most matches to report, Integer.MAX_VALUE for no limit; 1 stops at the first match
+     * @return a copy with the limit changed
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public SearchOptions withLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+        }
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param deadline how long the query may run from its submission, or null for no deadline
+     * @return a copy with the deadline changed
+     * @throws IllegalArgumentException if deadline is negative
+     */
+    public SearchOptions withDeadline(Duration deadline) {
+        if (deadline != null && deadline.isNegative()) {
+            throw new IllegalArgumentException("Deadline must not be negative: " + deadline);
+        }
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param metrics metrics the query adds to, shared with other queries, or null for its own
+     * @return a copy with the metrics replaced
+     */
+    public SearchOptions withMetrics(SearchMetrics metrics) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @param searchArchives true to search the entries of zip and jar archives
+     * @return a copy with the archive setting changed
+     */
+    public SearchOptions withSearchArchives(boolean searchArchives) {
+        return new SearchOptions(caseSensitive, maxDepth, excludePatterns, readIgnoreFiles, followLinks,
+                contentPatterns, filter, listingCache, limit, deadline, metrics, searchArchives);
+    }
+
+    /**
+     * @return true if matching is case-sensitive
+     */
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * @return levels of subdirectories searched, Integer.MAX_VALUE if unlimited
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the exclude patterns, unmodifiable
+     */
+    public List<String> getExcludePatterns() {
+        return excludePatterns;
+    }
+
+    /**
+     * @return true if ignore files are honoured
+     */
+    public boolean isReadIgnoreFiles() {
+        return readIgnoreFiles;
+    }
+
+    /**
+     * @return true if symbolic links are followed
+     */
+    public boolean isFollowLinks() {
+        return followLinks;
+    }
+
+    /**
+     * @return the content patterns, unmodifiable
+     */
+    public List<String> getContentPatterns() {
+        return contentPatterns;
+    }
+
+    /**
+     * @return the metadata filter, or null if there is none
+     */
+    public MetadataFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return the cache of directory listings, or null if there is none
+     */
+    public DirectoryCache getListingCache() {
+        return listingCache;
+    }
+
+    /**
+     * @return most matches reported, Integer.MAX_VALUE if unlimited
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return how long the query may run, or null if there is no deadline
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return the metrics queries add to, or null if each has its own
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return true if the entries of archives are searched
+     */
+    public boolean isSearchArchives() {
+        return searchArchives;
+    }
+
+    /**
+     * Creates a searcher configured with these options, confined to one query
+     * @return a new searcher
+     */
+    FileSearcher newSearcher() {
+        FileSearcher searcher = new FileSearcher(caseSensitive);
+        searcher.setMaxDepth(maxDepth);
+        searcher.setExcludePatterns(excludePatterns.toArray(new String[0]));
+        searcher.setReadIgnoreFiles(readIgnoreFiles);
+        searcher.setFollowLinks(followLinks);
+        searcher.setContentPatterns(contentPatterns.toArray(new String[0]));
+        searcher.setFilter(filter);
+        searcher.setListingCache(listingCache);
+        searcher.setLimit(limit);
+        searcher.setDeadline(deadline);
+        searcher.setSearchArchives(searchArchives);
+        if (metrics != null) {
+            searcher.setMetrics(metrics);
+        }
+        return searcher;
+    }
+
+    private static List<String> copyOf(String[] values) {
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(values)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.filesearch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SearchResult is the outcome of one query to a {@link FileSearchService}.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class SearchResult {
+
+    private final String directory;
+    private final List<String> files;
+    private final Map<String, Long> occurrenceCounts;
+    private final long prunedDirectories;
+    private final long repeatedDirectories;
+    private final long durationNanos;
+    private final boolean completed;
+
+    SearchResult(String directory, List<String> files, Map<String, Long> occurrenceCounts,
+                 long prunedDirectories, long repeatedDirectories, long durationNanos, boolean completed) {
+        this.directory = directory;
+        this.files = Collections.unmodifiableList(files);
+        this.occurrenceCounts = Collections.unmodifiableMap(occurrenceCounts);
+        this.prunedDirectories = prunedDirectories;
+        this.repeatedDirectories = repeatedDirectories;
+        this.durationNanos = durationNanos;
+        this.completed = completed;
+    }
+
+    /**
+     * @return the directory that was searched, as given
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return paths of the matching files, in the order they were found
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return number of matches per name or pattern, in the order they were searched for
+     */
+    public Map<String, Long> getOccurrenceCounts() {
+        return occurrenceCounts;
+    }
+
+    /**
+     * @return directories skipped because of exclude rules
+     */
+    public long getPrunedDirectoryCount() {
+        return prunedDirectories;
+    }
+
+    /**
+     * @return directories skipped because they had been reached through another path
+     */
+    public long getRepeatedDirectoryCount() {
+        return repeatedDirectories;
+    }
+
+    /**
+     * @return time from the query's submission to its completion, in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return true if the whole tree was searched; false if the query was
+     *         stopped by its limit, its deadline or a cancellation, in which
+     *         case the files are those found until then
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+}
@@ -0,0 +1,377 @@
+package com.filesearch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WatchedNameIndex keeps an in-memory index of the file names under a root
+ * and follows changes to the tree through a {@link WatchService}.
+ *
+ * Every directory under the root is registered for create and delete events
+ * (a rename arrives as a delete and a create). A background thread gathers
+ * events until the tree has been quiet for a short window, then re-checks
+ * each touched entry once, so a burst of changes to the same name costs a
+ * single attribute read. If the watch service drops events (OVERFLOW), the
+ * affected directory's subtree is rescanned. Lookups take the same lock as
+ * the updates, so they never see a subtree half removed or half read.
+ * A directory that cannot be registered, as happens once the system's limit
+ * of watches is reached, would go stale unnoticed: the index stops covering
+ * it, its subtree and the directories above it, so searches there walk.
+ * If applying a batch of events fails, the whole tree is read again; if
+ * that fails too, the index stops covering anything.
+ *
+ * Symbolic links are indexed by their own name and never descended into,
+ * so link cycles cannot trap the watcher. A {@link FileSearcher} therefore
+ * only answers from this index when it does not follow links either
+ * ({@link FileSearcher#setFollowLinks}); otherwise it walks the tree.
+ */
+public class WatchedNameIndex implements NameIndex, Closeable {
+
+    /** How long the tree must be quiet before a burst of events is applied */
+    static final long COALESCE_MILLIS = 20;
+
+    /** Longest a continuous stream of events is gathered before it is applied anyway */
+    static final long MAX_BATCH_MILLIS = 250;
+
+    private final Path root;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+    private final Map<Path, Set<Path>> children = new ConcurrentHashMap<>();
+    private final Map<String, Set<Path>> filesByName = new ConcurrentHashMap<>();
+    /** Indexed directories whose changes are not seen */
+    private final Set<Path> unwatched = ConcurrentHashMap.newKeySet();
+    /** Set when the index could not be brought back in line with the disk; guarded by this index */
+    private boolean failed;
+    private final AtomicLong batchesApplied = new AtomicLong();
+    private final Thread watcher;
+
+    /**
+     * Constructor for WatchedNameIndex; scans the tree and starts watching it
+     * @param rootDirectory the directory to index
+     * @throws IOException if the root is not a directory or cannot be watched
+     */
+    public WatchedNameIndex(Path rootDirectory) throws IOException {
+        this.root = rootDirectory.toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Directory does not exist or is not accessible: " + rootDirectory);
+        }
+        this.watchService = root.getFileSystem().newWatchService();
+        addDirectory(root);
+
+        this.watcher = new Thread(this::processEvents, "file-name-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Gets the directory this index covers
+     * @return absolute root directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the number of files in the index
+     * @return file count
+     */
+    public synchronized int getFileCount() {
+        int count = 0;
+        for (Set<Path> files : filesByName.values()) {
+            count += files.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of event bursts applied since the index was created
+     * @return applied batch count
+     */
+    public long getBatchesApplied() {
+        return batchesApplied.get();
+    }
+
+    @Override
+    public boolean followsLinks() {
+        return false;
+    }
+
+    @Override
+    public synchronized boolean covers(Path directory) {
+        Path normalized = directory.toAbsolutePath().normalize();
+        if (failed || !children.containsKey(normalized)) {
+            return false;
+        }
+        for (Path stale : unwatched) {
+            if (stale.startsWith(normalized) || normalized.startsWith(stale)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized List<String> lookup(Path directory, String[] fileNames, boolean caseSensitive) {
+        Path base = directory.toAbsolutePath().normalize();
+        Set<String> names = new LinkedHashSet<>();
+        for (String fileName : fileNames) {
+            names.add(FileSearcher.foldName(fileName.trim(), caseSensitive));
+        }
+
+        List<String> results = new ArrayList<>();
+        for (String name : names) {
+            Set<Path> files = filesByName.get(FileSearcher.foldCase(name));
+            if (files == null) {
+                continue;
+            }
+            for (Path file : files) {
+                if (caseSensitive && !file.getFileName().toString().equals(name)) {
+                    continue;
+                }
+                if (file.startsWith(base)) {
+                    results.add(file.toString());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stops watching the tree; the index keeps its last state, but a subtree
+     * rescanned afterwards is no longer covered
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    /**
+     * Drops a directory's subtree from the index and reads it again from disk
+     * @param directory the directory to rescan
+     */
+    synchronized void rescan(Path directory) {
+        if (directory.equals(root)) {
+            removeEntry(root);
+            addDirectory(root);
+            return;
+        }
+        Path parent = directory.getParent();
+        if (parent != null && children.containsKey(parent)) {
+            removeEntry(directory);
+            children.get(parent).remove(directory);
+            refreshEntry(parent, directory);
+        }
+    }
+
+    // ===== Event handling =====
+
+    private void processEvents() {
+        try {
+            while (true) {
+                Map<Path, Set<Path>> touched = new HashMap<>();
+                Set<Path> overflowed = new HashSet<>();
+
+                // Block for the first event, then keep gathering until the tree goes quiet
+                WatchKey key = watchService.take();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_MILLIS);
+                while (key != null) {
+                    collect(key, touched, overflowed);
+                    key = System.nanoTime() - deadline < 0
+                            ? watchService.poll(COALESCE_MILLIS, TimeUnit.MILLISECONDS)
+                            : null;
+                }
+                try {
+                    apply(touched, overflowed);
+                } catch (RuntimeException | Error e) {
+                    if (!recover()) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Index closed
+        }
+    }
+
+    /**
+     * Reads the whole tree again after a batch was applied only in part
+     * @return true if the index is consistent again, false if it no longer covers anything
+     */
+    private synchronized boolean recover() {
+        try {
+            rescan(root);
+            return true;
+        } catch (RuntimeException | Error e) {
+            failed = true;
+            return false;
+        }
+    }
+
+    private void collect(WatchKey key, Map<Path, Set<Path>> touched, Set<Path> overflowed) {
+        Path directory = watchedDirectories.get(key);
+        if (directory != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflowed.add(directory);
+                } else {
+                    touched.computeIfAbsent(directory, d -> new HashSet<>())
+                            .add(directory.resolve((Path) event.context()));
+                }
+            }
+        }
+        if (!key.reset() && directory != null) {
+            watchedDirectories.remove(key);
+            watchKeys.remove(directory, key);
+        }
+    }
+
+    private synchronized void apply(Map<Path, Set<Path>> touched, Set<Path> overflowed) {
+        for (Path directory : overflowed) {
+            rescan(directory);
+        }
+        for (Map.Entry<Path, Set<Path>> entry : touched.entrySet()) {
+            Path directory = entry.getKey();
+            if (overflowed.contains(directory) || !children.containsKey(directory)) {
+                continue;
+            }
+            for (Path path : entry.getValue()) {
+                refreshEntry(directory, path);
+            }
+        }
+        batchesApplied.incrementAndGet();
+    }
+
+    /**
+     * Brings one entry of a directory in line with the disk
+     */
+    private void refreshEntry(Path directory, Path path) {
+        BasicFileAttributes attributes = readAttributes(path);
+        boolean isDirectory = attributes != null && attributes.isDirectory();
+        boolean indexedDirectory = children.containsKey(path);
+
+        if (attributes == null || isDirectory != indexedDirectory) {
+            removeEntry(path);
+            children.get(directory).remove(path);
+        }
+        if (attributes != null && !children.get(directory).contains(path)) {
+            children.get(directory).add(path);
+            if (isDirectory) {
+                addDirectory(path);
+            } else {
+                addFile(path);
+            }
+        }
+    }
+
+    // ===== Index maintenance =====
+
+    /**
+     * Adds a directory and everything under it. Each directory is registered,
+     * then listed, so entries created in between are not missed; the tree is
+     * walked with an explicit stack, so its depth is not limited by the thread's
+     */
+    private void addDirectory(Path top) {
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.push(top);
+        while (!pending.isEmpty()) {
+            Path directory = pending.pop();
+            Set<Path> entries = ConcurrentHashMap.newKeySet();
+            children.put(directory, entries);
+            try {
+                WatchKey key = directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, directory);
+                watchKeys.put(directory, key);
+            } catch (IOException | ClosedWatchServiceException e) {
+                // Indexed as it is now, but no longer covered
+                unwatched.add(directory);
+            }
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attributes = readAttributes(entry);
+                    if (attributes == null) {
+                        continue;
+                    }
+                    entries.add(entry);
+                    if (attributes.isDirectory()) {
+                        pending.push(entry);
+                    } else {
+                        addFile(entry);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // Unreadable or vanished; an event will follow if it changes
+            }
+        }
+    }
+
+    private void addFile(Path file) {
+        filesByName.computeIfAbsent(FileSearcher.foldCase(file.getFileName().toString()),
+                name -> ConcurrentHashMap.newKeySet()).add(file);
+    }
+
+    /**
+     * Removes a file, or a directory and everything under it, from the index
+     */
+    private void removeEntry(Path top) {
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.push(top);
+        while (!pending.isEmpty()) {
+            Path path = pending.pop();
+            Set<Path> entries = children.remove(path);
+            if (entries == null) {
+                String name = FileSearcher.foldCase(path.getFileName().toString());
+                Set<Path> files = filesByName.get(name);
+                if (files != null) {
+                    files.remove(path);
+                }
+                continue;
+            }
+
+            unwatched.remove(path);
+            WatchKey key = watchKeys.remove(path);
+            if (key != null) {
+                watchedDirectories.remove(key);
+                key.cancel();
+            }
+            for (Path entry : entries) {
+                pending.push(entry);
+            }
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
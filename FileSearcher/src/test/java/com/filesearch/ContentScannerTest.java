@@ -0,0 +1,132 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Unit tests for ContentScanner and ContentMatcher classes
+ */
+class ContentScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A file of the given size filled with lines of dots, with text placed
+     * so that it starts at the given offset
+     */
+    private Path padded(String name, int size, int offset, String text) throws IOException {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i % 80 == 79 ? '\n' : '.');
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, content, offset, bytes.length);
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static ContentScanner scanner(boolean caseSensitive, String... patterns) {
+        return new ContentScanner(ContentMatcher.compile(patterns, caseSensitive));
+    }
+
+    @Test
+    void testSingleLiteral() throws IOException {
+        Path file = write("notes.txt", "first line\nsecond TODO line\n");
+
+        assertTrue(scanner(true, "TODO").contains(file));
+        assertFalse(scanner(true, "todo").contains(file));
+        assertTrue(scanner(false, "todo").contains(file));
+        assertTrue(scanner(true, "first").contains(file), "Match at the start");
+        assertTrue(scanner(true, "line\n").contains(file), "Match at the end");
+        assertFalse(scanner(true, "missing").contains(file));
+        assertFalse(scanner(true, "a much longer needle than the whole file holds").contains(file));
+    }
+
+    @Test
+    void testSeveralLiterals() throws IOException {
+        Path file = write("log.txt", "INFO started\nWARN disk at 91%\n");
+
+        assertTrue(scanner(true, "ERROR", "WARN", "FATAL").contains(file));
+        assertTrue(scanner(false, "x", "Disk At").contains(file));
+        assertFalse(scanner(true, "ERROR", "FATAL", "disk at 92").contains(file));
+        assertTrue(scanner(true, "straße", "91%").contains(file));
+        assertTrue(scanner(true, "straße", "91%").contains(write("utf8.txt", "Hauptstraße 1")), "Literals match as UTF-8");
+    }
+
+    @Test
+    void testRegularExpressions() throws IOException {
+        Path file = write("code.java", "int a = 1;\n// FIXME(alice) tidy up\nreturn a;\n");
+
+        assertTrue(scanner(true, "regex:FIXME\\(\\w+\\)").contains(file));
+        assertTrue(scanner(true, "regex:^return").contains(file), "Anchors apply per line");
+        assertFalse(scanner(true, "regex:^tidy").contains(file));
+        assertTrue(scanner(false, "regex:fixme", "nothing").contains(file));
+        assertTrue(scanner(true, "nothing", "regex:a;$").contains(file));
+        assertThrows(IllegalArgumentException.class, () -> ContentMatcher.compile(new String[]{"regex:("}, true));
+        assertThrows(IllegalArgumentException.class, () -> ContentMatcher.compile(new String[]{""}, true));
+    }
+
+    @Test
+    void testMatchesAcrossReadBoundaries() throws IOException {
+        int size = 3 * ContentScanner.BUFFER_SIZE;
+        for (int offset : new int[]{ContentScanner.BUFFER_SIZE - 3, 2 * ContentScanner.BUFFER_SIZE - 20, size - 6}) {
+            Path file = padded("boundary" + offset + ".txt", size, offset, "needle");
+            assertTrue(scanner(true, "needle").contains(file), "Literal at " + offset);
+            assertTrue(scanner(true, "pin", "needle").contains(file), "Literal set at " + offset);
+            assertTrue(scanner(true, "regex:ne+dle").contains(file), "Regex at " + offset);
+        }
+        assertFalse(scanner(true, "needles").contains(tempDir.resolve("boundary" + (size - 6) + ".txt")));
+    }
+
+    @Test
+    void testLiteralsLongerThanAReadAreRejected() throws IOException {
+        String longest = "x".repeat(ContentMatcher.MAX_LITERAL_LENGTH);
+        Path file = padded("long.txt", 200 * 1024, 100_000, longest);
+        Path other = padded("other.txt", 200 * 1024, 0, "");
+
+        // Bytes carried over between reads leave room for half a buffer of new content
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertTrue(scanner(true, longest).contains(file));
+            assertFalse(scanner(true, longest).contains(other));
+            assertFalse(scanner(true, "missing", longest).contains(other));
+        });
+
+        String tooLong = longest + "x";
+        assertThrows(IllegalArgumentException.class, () -> ContentMatcher.compile(new String[]{tooLong}, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> ContentMatcher.compile(new String[]{"short", tooLong}, false));
+    }
+
+    @Test
+    void testLargeFilesAreMapped() throws IOException {
+        int size = (int) ContentScanner.MAP_THRESHOLD + 4096;
+        Path file = padded("large.txt", size, size - 100, "needle");
+
+        assertTrue(scanner(true, "needle").contains(file));
+        assertTrue(scanner(true, "regex:^\\.*needle").contains(file));
+        assertFalse(scanner(true, "haystack").contains(file));
+    }
+
+    @Test
+    void testBinaryFilesAreSkipped() throws IOException {
+        byte[] content = "needle\0needle".getBytes(StandardCharsets.UTF_8);
+        Path binary = Files.write(tempDir.resolve("image.bin"), content);
+        Path text = write("text.txt", "needle");
+
+        assertFalse(scanner(true, "needle").contains(binary));
+        assertTrue(scanner(true, "needle").contains(text));
+        assertFalse(scanner(true, "needle").contains(tempDir.resolve("missing.txt")), "Unreadable files do not match");
+        assertFalse(scanner(true, "needle").contains(Files.write(tempDir.resolve("empty.txt"), new byte[0])));
+    }
+}
@@ -0,0 +1,171 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for DirectoryCache class
+ */
+class DirectoryCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** A time far enough back for listings not to be racy */
+    private static final FileTime OLD = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+
+    /**
+     * Creates root/a/b with a log file in each directory, 3 directories in all
+     */
+    private Path tree() throws IOException {
+        Path root = tempDir.resolve("root");
+        Files.createDirectories(root.resolve("a").resolve("b"));
+        Files.createFile(root.resolve("one.log"));
+        Files.createFile(root.resolve("a").resolve("two.log"));
+        Files.createFile(root.resolve("a").resolve("b").resolve("three.log"));
+        backdate(root);
+        return root;
+    }
+
+    private static void backdate(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    Files.setLastModifiedTime(path, OLD);
+                }
+            }
+        }
+    }
+
+    private static List<String> sorted(List<String> files) {
+        List<String> copy = new ArrayList<>(files);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    @Test
+    void testUnchangedDirectoriesAreServedFromCache() throws IOException {
+        Path root = tree();
+        DirectoryCache cache = new DirectoryCache(100, 1 << 20);
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setListingCache(cache);
+
+        List<String> first = sorted(searcher.searchFiles(root.toString(), new String[]{"*.log"}));
+        assertEquals(3, first.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.size());
+
+        List<String> second = sorted(searcher.searchFiles(root.toString(), new String[]{"*.LOG"}));
+        assertEquals(first, second);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+        assertEquals(3, searcher.countFileOccurrences("*.LOG"));
+
+        // The parallel walk and the lazy stream share the same scan
+        searcher.setThreads(4);
+        assertEquals(first, sorted(searcher.searchFiles(root.toString(), new String[]{"*.log"})));
+        try (Stream<Path> stream = searcher.search(root.toString(), "two.log")) {
+            assertEquals(1, stream.count());
+        }
+        assertEquals(9, cache.getHitCount());
+    }
+
+    @Test
+    void testChangedDirectoryIsReadAgain() throws IOException {
+        Path root = tree();
+        DirectoryCache cache = new DirectoryCache(100, 1 << 20);
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setListingCache(cache);
+        searcher.searchFiles(root.toString(), new String[]{"*.log"});
+
+        Files.createFile(root.resolve("a").resolve("four.log"));
+        Files.delete(root.resolve("a").resolve("b").resolve("three.log"));
+        List<String> found = searcher.searchFiles(root.toString(), new String[]{"*.log"});
+        assertEquals(3, found.size());
+        assertTrue(found.contains(root.resolve("a").resolve("four.log").toString()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+
+        // Just modified, so the new listings are not trusted yet
+        searcher.searchFiles(root.toString(), new String[]{"*.log"});
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void testCachedListingsStillFollowLinksAndApplyFilters() throws IOException {
+        Path root = tree();
+        Path outside = Files.createDirectories(tempDir.resolve("outside"));
+        Files.write(outside.resolve("big.log"), new byte[4000]);
+        Files.createSymbolicLink(root.resolve("link"), outside);
+        Files.createSymbolicLink(root.resolve("a").resolve("loop"), root);
+        backdate(root);
+        backdate(outside);
+
+        DirectoryCache cache = new DirectoryCache(100, 1 << 20);
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setListingCache(cache);
+        searcher.setFilter(MetadataFilter.largerThan(1000));
+        List<String> first = sorted(searcher.searchFiles(root.toString(), new String[]{"*.log"}));
+        assertEquals(List.of(root.resolve("link").resolve("big.log").toString()), first);
+        long repeated = searcher.getRepeatedDirectoryCount();
+        assertEquals(1, repeated);
+
+        assertEquals(first, sorted(searcher.searchFiles(root.toString(), new String[]{"*.log"})));
+        assertEquals(repeated, searcher.getRepeatedDirectoryCount());
+        assertEquals(4, cache.getHitCount());
+
+        // A file's size may change without touching its directory
+        Files.write(outside.resolve("big.log"), new byte[10]);
+        Files.setLastModifiedTime(outside, OLD);
+        assertTrue(searcher.searchFiles(root.toString(), new String[]{"*.log"}).isEmpty());
+
+        searcher.setFilter(null);
+        searcher.setFollowLinks(false);
+        assertEquals(3, searcher.searchFiles(root.toString(), new String[]{"*.log"}).size());
+        assertEquals(2, searcher.searchFiles(root.toString(), new String[]{"l*"}).size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedListingsAreEvicted() throws IOException {
+        Path root = tree();
+        DirectoryCache cache = new DirectoryCache(2, 1 << 20);
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setListingCache(cache);
+        searcher.searchFiles(root.toString(), new String[]{"*.log"});
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        // Each listing is bigger than the byte bound, so none is kept
+        DirectoryCache tiny = new DirectoryCache(100, 64);
+        searcher.setListingCache(tiny);
+        searcher.searchFiles(root.toString(), new String[]{"*.log"});
+        searcher.searchFiles(root.toString(), new String[]{"*.log"});
+        assertEquals(0, tiny.size());
+        assertEquals(0, tiny.getEstimatedBytes());
+        assertEquals(0, tiny.getHitCount());
+
+        DirectoryCache bytes = new DirectoryCache(100, 500);
+        searcher.setListingCache(bytes);
+        searcher.searchFiles(root.toString(), new String[]{"*.log"});
+        assertTrue(bytes.getEstimatedBytes() <= 500);
+        assertTrue(bytes.getEvictionCount() > 0);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new DirectoryCache(0, 100));
+    }
+}
@@ -0,0 +1,103 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for DirectoryWalker class
+ */
+class DirectoryWalkerTest {
+
+    /**
+     * Synthetic tree: "r" has children "r0".."r2", each of those has children
+     * "r00".."r02", and so on down to names of the given length
+     */
+    private static DirectoryScanner tree(int levels, List<String> visited) {
+        return (directory, subdirectories) -> {
+            String name = directory.toString();
+            visited.add(name);
+            if (name.length() <= levels) {
+                for (int i = 0; i < 3; i++) {
+                    subdirectories.add(Paths.get(name + i));
+                }
+            }
+        };
+    }
+
+    @Test
+    void testHundredThousandLevelsDeep() {
+        int depth = 100_000;
+        int[] visited = {0};
+
+        // A chain of single-child directories; paths stay short because the
+        // walker never looks at the hierarchy, only at what the scanner reports
+        DirectoryScanner chain = (directory, subdirectories) -> {
+            visited[0]++;
+            int level = Integer.parseInt(directory.toString());
+            if (level < depth) {
+                subdirectories.add(Paths.get(String.valueOf(level + 1)));
+            }
+        };
+
+        for (FileSearcher.TraversalOrder order : FileSearcher.TraversalOrder.values()) {
+            visited[0] = 0;
+            DirectoryWalker walker = new DirectoryWalker(Paths.get("0"), order, Integer.MAX_VALUE);
+            walker.walk(chain);
+            assertEquals(depth + 1, visited[0], order.toString());
+            assertEquals(1, walker.getPeakFrontier(), "Frontier must not grow with depth");
+        }
+    }
+
+    @Test
+    void testDepthFirstOrder() {
+        List<String> visited = new ArrayList<>();
+        new DirectoryWalker(Paths.get("r"), FileSearcher.TraversalOrder.DEPTH_FIRST, Integer.MAX_VALUE)
+                .walk(tree(2, visited));
+
+        assertEquals(Arrays.asList("r", "r0", "r00", "r01", "r02", "r1", "r10", "r11", "r12",
+                "r2", "r20", "r21", "r22"), visited);
+    }
+
+    @Test
+    void testBreadthFirstOrder() {
+        List<String> visited = new ArrayList<>();
+        new DirectoryWalker(Paths.get("r"), FileSearcher.TraversalOrder.BREADTH_FIRST, Integer.MAX_VALUE)
+                .walk(tree(2, visited));
+
+        assertEquals(Arrays.asList("r", "r0", "r1", "r2", "r00", "r01", "r02", "r10", "r11", "r12",
+                "r20", "r21", "r22"), visited);
+    }
+
+    @Test
+    void testMaxDepthStopsDescending() {
+        for (FileSearcher.TraversalOrder order : FileSearcher.TraversalOrder.values()) {
+            List<String> visited = new ArrayList<>();
+            new DirectoryWalker(Paths.get("r"), order, 1).walk(tree(5, visited));
+            assertEquals(4, visited.size(), order.toString());
+
+            visited.clear();
+            new DirectoryWalker(Paths.get("r"), order, 0).walk(tree(5, visited));
+            assertEquals(Arrays.asList("r"), visited, order.toString());
+        }
+    }
+
+    @Test
+    void testStepReadsOneDirectory() {
+        List<String> visited = new ArrayList<>();
+        DirectoryWalker walker = new DirectoryWalker(Paths.get("r"), FileSearcher.TraversalOrder.DEPTH_FIRST,
+                Integer.MAX_VALUE);
+        DirectoryScanner scanner = tree(2, visited);
+
+        assertTrue(walker.step(scanner));
+        assertTrue(walker.step(scanner));
+        assertEquals(Arrays.asList("r", "r0"), visited);
+
+        walker.clear();
+        assertFalse(walker.step(scanner));
+    }
+}
@@ -0,0 +1,96 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for DuplicateFinder class
+ */
+class DuplicateFinderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void testFindsIdenticalFilesOnly() throws IOException {
+        Path subDir = Files.createDirectories(tempDir.resolve("sub"));
+        byte[] small = "same small content".getBytes();
+        Files.write(tempDir.resolve("a.txt"), small);
+        Files.write(subDir.resolve("b.txt"), small);
+        Files.write(subDir.resolve("c.txt"), "diff small content".getBytes());
+
+        byte[] large = randomBytes(100_000, 1);
+        Files.write(tempDir.resolve("big1.bin"), large);
+        Files.write(subDir.resolve("big2.bin"), large);
+        Files.write(subDir.resolve("big3.bin"), large);
+
+        // Same size and same ends, different middle: only the full hash tells them apart
+        byte[] middle = large.clone();
+        middle[50_000] ^= 1;
+        Files.write(subDir.resolve("almost.bin"), middle);
+
+        Files.write(tempDir.resolve("empty1"), new byte[0]);
+        Files.write(tempDir.resolve("empty2"), new byte[0]);
+
+        DuplicateFinder finder = new DuplicateFinder(new FileSearcher(false));
+        finder.setThreads(3);
+        List<DuplicateFinder.Group> groups = finder.findDuplicates(tempDir.toString());
+
+        assertEquals(2, groups.size());
+        assertEquals(100_000, groups.get(0).getSize(), "Most wasted space first");
+        assertEquals(Arrays.asList(tempDir.resolve("big1.bin"), subDir.resolve("big2.bin"), subDir.resolve("big3.bin")),
+                groups.get(0).getFiles());
+        assertEquals(200_000, groups.get(0).getWastedBytes());
+        assertEquals(Arrays.asList(tempDir.resolve("a.txt"), subDir.resolve("b.txt")), groups.get(1).getFiles());
+        assertEquals(4, finder.getFullyHashedCount());
+    }
+
+    @Test
+    void testUniqueSizesAreNeverRead() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            Files.write(tempDir.resolve("file" + i + ".dat"), randomBytes(10_000 + i, i));
+        }
+        Files.write(tempDir.resolve("twin1.dat"), randomBytes(500, 99));
+        Files.write(tempDir.resolve("twin2.dat"), randomBytes(500, 99));
+
+        DuplicateFinder finder = new DuplicateFinder(new FileSearcher(false));
+        List<DuplicateFinder.Group> groups = finder.findDuplicates(tempDir.toString(), "*.dat");
+
+        assertEquals(1, groups.size());
+        assertEquals(2, finder.getCandidateCount());
+        assertEquals(1000, finder.getBytesRead(), "Only the two files sharing a size are read");
+        assertEquals(0, finder.getFullyHashedCount(), "Small files are settled by their ends");
+    }
+
+    @Test
+    void testLinksToTheSameFileAreNotDuplicates() throws IOException {
+        Path file = Files.write(tempDir.resolve("original.txt"), "content".getBytes());
+        try {
+            Files.createLink(tempDir.resolve("hardlink.txt"), file);
+            Files.createSymbolicLink(tempDir.resolve("symlink.txt"), file);
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+
+        DuplicateFinder finder = new DuplicateFinder(new FileSearcher(false));
+        assertTrue(finder.findDuplicates(tempDir.toString()).isEmpty());
+
+        Files.write(tempDir.resolve("copy.txt"), "content".getBytes());
+        assertEquals(2, finder.findDuplicates(tempDir.toString()).get(0).getFiles().size());
+        assertThrows(IllegalArgumentException.class, () -> finder.setThreads(0));
+    }
+}
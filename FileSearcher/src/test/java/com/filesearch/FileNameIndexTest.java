@@ -0,0 +1,166 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for FileNameIndex class
+ */
+class FileNameIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+    private Path indexFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = tempDir.resolve("root");
+        Files.createDirectories(root.resolve("a/deep"));
+        Files.createDirectories(root.resolve("b"));
+        Files.createFile(root.resolve("README.md"));
+        Files.createFile(root.resolve("a/readme.md"));
+        Files.createFile(root.resolve("a/deep/notes.txt"));
+        Files.createFile(root.resolve("b/readme.md"));
+        indexFile = tempDir.resolve("files.idx");
+    }
+
+    @Test
+    void testIndexedSearchMatchesLiveSearch() throws IOException {
+        FileNameIndex.Summary summary = FileNameIndex.build(root, indexFile);
+        assertEquals(4, summary.getDirectories());
+        assertEquals(4, summary.getFiles());
+
+        String[] names = {"readme.md", "notes.txt", "missing.txt"};
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                List<String> indexed = index.lookup(root, names, caseSensitive);
+                List<String> live = new FileSearcher(caseSensitive).searchFiles(root.toString(), names);
+                Collections.sort(indexed);
+                Collections.sort(live);
+                assertEquals(live, indexed, "caseSensitive=" + caseSensitive);
+            }
+        }
+    }
+
+    @Test
+    void testLinkToAncestorIsIndexedOnce() throws IOException {
+        Files.createSymbolicLink(root.resolve("a/deep/up"), root);
+        Files.createSymbolicLink(root.resolve("b/alias"), root.resolve("a"));
+
+        FileNameIndex.Summary summary = FileNameIndex.build(root, indexFile);
+        assertEquals(4, summary.getDirectories());
+        assertEquals(4, summary.getFiles());
+
+        String[] names = {"readme.md", "notes.txt"};
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            List<String> indexed = index.lookup(root, names, false);
+            List<String> live = new FileSearcher(false).searchFiles(root.toString(), names);
+            assertEquals(4, indexed.size());
+            assertEquals(live.size(), indexed.size());
+        }
+    }
+
+    @Test
+    void testNamesDifferingInCaseAreLookedUpOnce() throws IOException {
+        FileNameIndex.build(root, indexFile);
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            assertEquals(3, index.lookup(root, new String[] {"readme.md", "README.MD"}, false).size());
+            assertEquals(3, index.lookup(root, new String[] {"readme.md", "README.md"}, true).size());
+        }
+    }
+
+    @Test
+    void testLookupIsLimitedToSubdirectory() throws IOException {
+        FileNameIndex.build(root, indexFile);
+
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            List<String> results = index.lookup(root.resolve("a"), new String[] {"readme.md", "notes.txt"}, false);
+            Collections.sort(results);
+
+            List<String> expected = new ArrayList<>();
+            expected.add(root.resolve("a/deep/notes.txt").toString());
+            expected.add(root.resolve("a/readme.md").toString());
+            assertEquals(expected, results);
+        }
+    }
+
+    @Test
+    void testRefreshRereadsOnlyChangedDirectories() throws IOException {
+        FileNameIndex.build(root, indexFile);
+
+        Path changed = root.resolve("b");
+        FileTime before = Files.getLastModifiedTime(changed);
+        Files.createFile(changed.resolve("notes.txt"));
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(before.toMillis() + 5000));
+
+        FileNameIndex.Summary summary = FileNameIndex.refresh(indexFile);
+        assertEquals(4, summary.getDirectories());
+        assertEquals(1, summary.getDirectoriesListed());
+        assertEquals(5, summary.getFiles());
+
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            assertEquals(2, index.lookup(root, new String[] {"notes.txt"}, true).size());
+        }
+    }
+
+    @Test
+    void testUnreadableDirectoriesAreCountedAndRetried() throws IOException {
+        assertEquals(0, FileNameIndex.build(root, indexFile).getDirectoriesUnreadable());
+
+        Path locked = root.resolve("b");
+        try {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("---------"));
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        try {
+            if (Files.isReadable(locked)) {
+                // Permissions do not apply, as for root
+                return;
+            }
+            FileNameIndex.Summary summary = FileNameIndex.build(root, indexFile);
+            assertEquals(1, summary.getDirectoriesUnreadable());
+            assertEquals(3, summary.getFiles());
+
+            // Unchanged, but still unreadable: listed again and counted again
+            summary = FileNameIndex.refresh(indexFile);
+            assertEquals(1, summary.getDirectoriesListed());
+            assertEquals(1, summary.getDirectoriesUnreadable());
+        } finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+
+    @Test
+    void testSearchFallsBackToLiveWalkOutsideIndex() throws IOException {
+        FileNameIndex.build(root.resolve("a"), indexFile);
+
+        try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+            assertTrue(index.covers(root.resolve("a/deep")));
+            assertFalse(index.covers(root));
+            assertFalse(index.covers(root.resolve("b")));
+
+            List<String> results = index.search(root.toString(), new String[] {"readme.md"}, false);
+            assertEquals(3, results.size());
+        }
+    }
+
+    @Test
+    void testOpenRejectsNonIndexFile() throws IOException {
+        Files.write(indexFile, new byte[64]);
+        assertThrows(IOException.class, () -> FileNameIndex.open(indexFile));
+    }
+}
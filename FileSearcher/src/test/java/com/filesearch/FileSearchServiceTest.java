@@ -0,0 +1,257 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit and load tests for FileSearchService class
+ */
+class FileSearchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Creates width * width directories, each holding file.txt and
+     * f&lt;i&gt;.log named after its parent's index
+     */
+    private Path tree(String name, int width) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve(name));
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < width; j++) {
+                Path dir = Files.createDirectories(root.resolve("d" + i).resolve("e" + j));
+                Files.createFile(dir.resolve("file.txt"));
+                Files.createFile(dir.resolve("f" + i + ".log"));
+            }
+        }
+        return root;
+    }
+
+    private static List<String> sorted(List<String> files) {
+        List<String> copy = new ArrayList<>(files);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    @Test
+    void testSixtyFourConcurrentClients() throws Exception {
+        Path root = tree("load", 12);
+        SearchOptions base = SearchOptions.defaults();
+
+        // Expected answers from a plain searcher, one query shape per client
+        String[][] queries = new String[64][];
+        List<List<String>> expected = new ArrayList<>();
+        for (int client = 0; client < queries.length; client++) {
+            queries[client] = new String[]{"f" + (client % 12) + ".log", client % 2 == 0 ? "file.txt" : "none"};
+            expected.add(sorted(new FileSearcher(false).searchFiles(root.toString(), queries[client])));
+        }
+
+        try (FileSearchService service = new FileSearchService(4)) {
+            ExecutorService clients = Executors.newFixedThreadPool(queries.length);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<SearchResult>> results = new ArrayList<>();
+            for (int client = 0; client < queries.length; client++) {
+                String[] names = queries[client];
+                SearchOptions options = base.withMaxDepth(client % 3 == 0 ? 2 : Integer.MAX_VALUE);
+                results.add(clients.submit(() -> {
+                    start.await();
+                    return service.search(root.toString(), names, options);
+                }));
+            }
+            start.countDown();
+
+            for (int client = 0; client < queries.length; client++) {
+                SearchResult result = results.get(client).get();
+                assertEquals(expected.get(client), sorted(result.getFiles()), "Client " + client);
+                assertEquals(12, (long) result.getOccurrenceCounts().get("f" + (client % 12) + ".log"));
+                assertThrows(UnsupportedOperationException.class, () -> result.getFiles().clear());
+            }
+            clients.shutdown();
+            assertEquals(0, service.getActiveQueryCount());
+        }
+    }
+
+    @Test
+    void testSmallQueriesAreNotStarvedByHugeOne() throws Exception {
+        Path huge = tree("huge", 60);
+        Path small = tree("small", 2);
+        SearchMetrics hugeMetrics = new SearchMetrics();
+
+        // One worker runs slices strictly in turn, so the interleaving does not depend on timing
+        try (FileSearchService service = new FileSearchService(1)) {
+            CompletableFuture<SearchResult> hugeQuery = service.submit(huge.toString(), new String[]{"*"},
+                    SearchOptions.defaults().withContentPatterns("never there").withMetrics(hugeMetrics));
+            while (hugeMetrics.getDirectoriesVisited() == 0) {
+                Thread.yield();
+            }
+            long before = hugeMetrics.getDirectoriesVisited();
+
+            // Records how far the huge query got each time the small one tests a match
+            AtomicLong during = new AtomicLong();
+            MetadataFilter probe = new MetadataFilter() {
+                @Override
+                boolean test(Path entry, BasicFileAttributes attributes) {
+                    during.set(hugeMetrics.getDirectoriesVisited());
+                    return true;
+                }
+
+                @Override
+                int cost() {
+                    return 0;
+                }
+            };
+            SearchResult smallResult = service.search(small.toString(), new String[]{"file.txt"},
+                    SearchOptions.defaults().withFilter(probe));
+            assertEquals(4, smallResult.getFiles().size());
+
+            // The small query walks in three slices; the huge one has at most one slice
+            // outstanding when it arrives and gets one more turn between each of them
+            assertTrue(during.get() - before <= 4 * FileSearchService.SLICE_DIRECTORIES,
+                    "The huge query scanned " + (during.get() - before) + " directories ahead of the small one");
+            assertTrue(hugeQuery.get().getFiles().isEmpty());
+        }
+    }
+
+    @Test
+    void testLimitsAndCancellationKeepPartialResults() throws Exception {
+        Path root = tree("stop", 40);
+
+        try (FileSearchService service = new FileSearchService(4)) {
+            SearchResult limited = service.search(root.toString(), new String[]{"*.log"},
+                    SearchOptions.defaults().withLimit(10));
+            assertEquals(10, limited.getFiles().size());
+            assertFalse(limited.isCompleted());
+            assertTrue(service.search(root.toString(), new String[]{"f1.log"}, SearchOptions.defaults())
+                    .isCompleted());
+
+            SearchResult late = service.search(root.toString(), new String[]{"*.log"},
+                    SearchOptions.defaults().withDeadline(Duration.ZERO));
+            assertFalse(late.isCompleted());
+
+            // A cancelled query completes normally with what it found so far
+            SearchHandle handle = service.start(root.toString(), new String[]{"*"},
+                    SearchOptions.defaults().withContentPatterns("never there"));
+            handle.cancel();
+            SearchResult cancelled = handle.getResult().get();
+            assertTrue(handle.isCancelled());
+            assertFalse(cancelled.isCompleted());
+
+            // Cancelling the future instead discards the results but still stops the workers
+            SearchHandle discarded = service.start(root.toString(), new String[]{"*"},
+                    SearchOptions.defaults().withContentPatterns("never there"));
+            assertTrue(discarded.getResult().cancel(true));
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (service.getActiveQueryCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, service.getActiveQueryCount());
+        }
+    }
+
+    @Test
+    void testCloseFailsQueuedAndRunningQueries() throws Exception {
+        Path root = tree("busy", 40);
+        SearchOptions slow = SearchOptions.defaults().withContentPatterns("never there");
+        FileSearchService service = new FileSearchService(1);
+
+        List<CompletableFuture<SearchResult>> queries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queries.add(service.submit(root.toString(), new String[]{"*"}, slow));
+        }
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<SearchResult> blocked = caller.submit(() -> service.search(root.toString(), new String[]{"*"}, slow));
+        while (service.getActiveQueryCount() < 4) {
+            Thread.yield();
+        }
+
+        service.close();
+        for (CompletableFuture<SearchResult> query : queries) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> query.get(10, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IOException);
+        }
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> blocked.get(10, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IOException, "The blocked caller fails instead of hanging");
+        caller.shutdown();
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (service.getActiveQueryCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, service.getActiveQueryCount());
+        assertThrows(IOException.class, () -> service.search(root.toString(), new String[]{"*"}, slow));
+    }
+
+    @Test
+    void testErrorsThrownWhileScanningFailTheQuery() throws Exception {
+        Path root = tree("broken", 4);
+        MetadataFilter broken = new MetadataFilter() {
+            @Override
+            boolean test(Path entry, BasicFileAttributes attributes) {
+                throw new StackOverflowError();
+            }
+
+            @Override
+            int cost() {
+                return 0;
+            }
+        };
+
+        try (FileSearchService service = new FileSearchService(2)) {
+            CompletableFuture<SearchResult> query = service.submit(root.toString(), new String[]{"file.txt"},
+                    SearchOptions.defaults().withFilter(broken));
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> query.get(10, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof StackOverflowError);
+            assertThrows(StackOverflowError.class, () -> service.search(root.toString(), new String[]{"file.txt"},
+                    SearchOptions.defaults().withFilter(broken)));
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (service.getActiveQueryCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, service.getActiveQueryCount());
+            assertEquals(16, service.search(root.toString(), new String[]{"file.txt"}, SearchOptions.defaults())
+                    .getFiles().size());
+        }
+    }
+
+    @Test
+    void testOptionsAreImmutableAndErrorsStayPerQuery() throws Exception {
+        Path root = tree("opts", 2);
+        Files.createFile(root.resolve("ABC.TXT"));
+        SearchOptions insensitive = SearchOptions.defaults();
+        SearchOptions sensitive = insensitive.withCaseSensitive(true);
+        assertFalse(insensitive.isCaseSensitive());
+
+        try (FileSearchService service = new FileSearchService(2)) {
+            assertEquals(1, service.search(root.toString(), new String[]{"abc.txt"}, insensitive).getFiles().size());
+            assertTrue(service.search(root.toString(), new String[]{"abc.txt"}, sensitive).getFiles().isEmpty());
+            assertEquals(1, service.search(root.toString(), new String[]{"*.txt"},
+                    insensitive.withExcludePatterns("d*/")).getFiles().size());
+
+            CompletableFuture<SearchResult> missing = service.submit(tempDir.resolve("missing").toString(),
+                    new String[]{"x"}, insensitive);
+            ExecutionException failure = assertThrows(ExecutionException.class, missing::get);
+            assertTrue(failure.getCause() instanceof IOException);
+            assertThrows(IOException.class, () -> service.search("/nonexistent/dir", new String[]{"x"}, insensitive));
+            assertTrue(service.search(root.toString(), new String[]{}, insensitive).getFiles().isEmpty());
+        }
+    }
+}
@@ -279,6 +279,110 @@ class FileSearcherComprehensiveTest {
         assertTrue(results.get(0).contains("file25.txt"));
     }
     
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4, 16})
+    @DisplayName("Parallel search finds the same files as sequential search")
+    void testParallelSearchMatchesSequential(int threads) throws IOException {
+        Path testDir = createFixedComplexTestStructure();
+        String[] fileNames = {"common.txt", "config.xml", "data.json"};
+        
+        List<String> expected = caseSensitiveSearcher.searchFiles(testDir.toString(), fileNames);
+        
+        FileSearcher parallelSearcher = new FileSearcher(true);
+        parallelSearcher.setThreads(threads);
+        List<String> actual = parallelSearcher.searchFiles(testDir.toString(), fileNames);
+        
+        assertEquals(new java.util.HashSet<>(expected), new java.util.HashSet<>(actual));
+        assertEquals(expected.size(), actual.size(), "Parallel search should not report a file twice");
+        assertEquals(4, parallelSearcher.countFileOccurrences("common.txt"));
+        assertEquals(3, parallelSearcher.countFileOccurrences("config.xml"));
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Maximum depth limits sequential, parallel and streaming searches alike")
+    void testMaxDepthLimitsSearch(int threads) throws IOException {
+        Path testDir = tempDir.resolve("depth");
+        Path current = testDir;
+        for (int level = 0; level <= 5; level++) {
+            Files.createDirectories(current);
+            Files.createFile(current.resolve("level.txt"));
+            current = current.resolve("sub");
+        }
+        
+        FileSearcher searcher = new FileSearcher(true);
+        searcher.setThreads(threads);
+        searcher.setMaxDepth(2);
+        assertEquals(3, searcher.searchFiles(testDir.toString(), new String[] {"level.txt"}).size());
+        
+        searcher.setTraversalOrder(FileSearcher.TraversalOrder.BREADTH_FIRST);
+        try (java.util.stream.Stream<Path> hits = searcher.search(testDir.toString(), "level.txt")) {
+            assertEquals(3, hits.count());
+        }
+        
+        searcher.setMaxDepth(0);
+        assertEquals(1, searcher.searchFiles(testDir.toString(), new String[] {"level.txt"}).size());
+        assertThrows(IllegalArgumentException.class, () -> searcher.setMaxDepth(-1));
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Exclude rules and ignore files prune whole subtrees")
+    void testExcludedSubtreesArePruned(int threads) throws IOException {
+        Path testDir = tempDir.resolve("project");
+        for (String dir : new String[] {".git/objects", "node_modules/lib/node_modules", "src/main",
+                                        "src/build", "app/build", "app/keep"}) {
+            Files.createDirectories(testDir.resolve(dir));
+            Files.createFile(testDir.resolve(dir).resolve("index.js"));
+        }
+        Files.createFile(testDir.resolve("index.js"));
+        Files.write(testDir.resolve("app/.gitignore"), java.util.Arrays.asList("build/", "keep"));
+        
+        FileSearcher searcher = new FileSearcher(true);
+        searcher.setThreads(threads);
+        searcher.setExcludePatterns(".git", "node_modules/");
+        assertEquals(5, searcher.searchFiles(testDir.toString(), new String[] {"index.js"}).size());
+        assertEquals(2, searcher.getPrunedDirectoryCount());
+        
+        searcher.setReadIgnoreFiles(true);
+        List<String> results = searcher.searchFiles(testDir.toString(), new String[] {"index.js"});
+        assertEquals(3, results.size());
+        assertTrue(results.contains(testDir.resolve("src/build/index.js").toString()),
+                "Ignore files only apply below the directory holding them");
+        assertEquals(4, searcher.getPrunedDirectoryCount());
+        
+        searcher.setTraversalOrder(FileSearcher.TraversalOrder.BREADTH_FIRST);
+        try (java.util.stream.Stream<Path> hits = searcher.search(testDir.toString(), "index.js")) {
+            assertEquals(3, hits.count());
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Followed links reach each physical directory once, cycles included")
+    void testLinkCyclesAndAliasesAreScannedOnce(int threads) throws IOException {
+        Path testDir = tempDir.resolve("links");
+        Path real = Files.createDirectories(testDir.resolve("real/inner"));
+        Files.createFile(testDir.resolve("real/target.txt"));
+        Files.createFile(real.resolve("target.txt"));
+        Files.createSymbolicLink(real.resolve("loop"), testDir);
+        Files.createSymbolicLink(testDir.resolve("alias"), testDir.resolve("real"));
+        Files.createSymbolicLink(testDir.resolve("self"), testDir.resolve("self"));
+        
+        FileSearcher searcher = new FileSearcher(true);
+        searcher.setThreads(threads);
+        assertTrue(searcher.isFollowLinks(), "Links are followed by default");
+        List<String> results = searcher.searchFiles(testDir.toString(), new String[] {"target.txt"});
+        assertEquals(2, results.size(), "Each physical file is found through one path only");
+        assertEquals(2, searcher.getRepeatedDirectoryCount());
+        
+        searcher.setFollowLinks(false);
+        assertEquals(2, searcher.searchFiles(testDir.toString(), new String[] {"target.txt"}).size());
+        assertEquals(0, searcher.getRepeatedDirectoryCount());
+        assertEquals(1, searcher.searchFiles(testDir.toString(), new String[] {"alias"}).size(),
+                "Unfollowed links are matched by name like files");
+    }
+    
     @ParameterizedTest
     @ValueSource(strings = {"file1.txt", "config.xml", "readme.md", "data.json"})
     @DisplayName("Parameterized test for various file types")
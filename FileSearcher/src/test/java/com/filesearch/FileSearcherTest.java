@@ -5,11 +5,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Unit tests for FileSearcher class
@@ -80,6 +90,274 @@ class FileSearcherTest {
         assertEquals(1, caseSensitiveSearcher.countFileOccurrences("file2.xml"));
     }
     
+    @Test
+    void testSearchManyNamesInOnePass() throws IOException {
+        Path subDir = tempDir.resolve("subdir");
+        Files.createDirectories(subDir);
+        Files.createFile(tempDir.resolve("a.txt"));
+        Files.createFile(subDir.resolve("A.TXT"));
+        Files.createFile(subDir.resolve("b.txt"));
+        
+        // Repeated and differently-cased names should not produce duplicate hits
+        String[] fileNames = {"a.txt", "A.txt", " b.txt ", "missing.txt"};
+        List<String> results = caseInsensitiveSearcher.searchFiles(tempDir.toString(), fileNames);
+        
+        assertEquals(3, results.size());
+        assertEquals(2, caseInsensitiveSearcher.countFileOccurrences("a.TXT"));
+        assertEquals(1, caseInsensitiveSearcher.countFileOccurrences("b.txt"));
+        assertEquals(0, caseInsensitiveSearcher.countFileOccurrences("missing.txt"));
+    }
+    
+    @Test
+    void testEntryTypesFromSingleAttributeRead() throws IOException {
+        Path realDir = tempDir.resolve("real");
+        Files.createDirectories(realDir);
+        Files.createFile(realDir.resolve("target.txt"));
+        
+        // A directory named like the target must not be reported as a file
+        Files.createDirectories(tempDir.resolve("nested").resolve("target.txt"));
+        
+        // Broken links are reported by name like regular files
+        Files.createSymbolicLink(tempDir.resolve("target.txt"), tempDir.resolve("missing"));
+        
+        String[] fileNames = {"target.txt"};
+        List<String> results = caseSensitiveSearcher.searchFiles(tempDir.toString(), fileNames);
+        
+        assertEquals(2, results.size());
+        assertTrue(results.contains(realDir.resolve("target.txt").toAbsolutePath().toString()));
+        assertTrue(results.contains(tempDir.resolve("target.txt").toAbsolutePath().toString()));
+    }
+    
+    @Test
+    void testStreamingSearchIsLazy() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            Path dir = tempDir.resolve("dir" + i);
+            Files.createDirectories(dir);
+            Files.createFile(dir.resolve("hit.txt"));
+        }
+        
+        try (Stream<Path> hits = caseSensitiveSearcher.search(tempDir.toString(), "hit.txt")) {
+            assertTrue(hits.findFirst().isPresent());
+        }
+        // Only the directories needed for the first hit were read
+        assertEquals(1, caseSensitiveSearcher.countFileOccurrences("hit.txt"));
+        
+        try (Stream<Path> hits = caseSensitiveSearcher.search(tempDir.toString(), "hit.txt")) {
+            assertEquals(5, hits.count());
+        }
+    }
+    
+    @Test
+    void testCallbackSearchReportsEveryMatch() throws IOException {
+        Path subDir = tempDir.resolve("subdir");
+        Files.createDirectories(subDir);
+        Files.createFile(tempDir.resolve("test.txt"));
+        Files.createFile(subDir.resolve("test.txt"));
+        
+        List<Path> matches = new ArrayList<>();
+        caseSensitiveSearcher.search(tempDir.toString(), new String[] {"test.txt"}, matches::add);
+        
+        assertEquals(2, matches.size());
+        assertEquals(2, caseSensitiveSearcher.countFileOccurrences("test.txt"));
+        assertTrue(caseSensitiveSearcher.getSearchResults().isEmpty(), "Callback search should not accumulate results");
+    }
+    
+    @Test
+    void testSearchPatternsInOnePass() throws IOException {
+        Path subDir = tempDir.resolve("logs");
+        Files.createDirectories(subDir);
+        Files.createFile(tempDir.resolve("app.log"));
+        Files.createFile(subDir.resolve("SERVER.LOG"));
+        Files.createFile(subDir.resolve("config-dev.yaml"));
+        Files.createFile(subDir.resolve("core.1234"));
+        Files.createFile(subDir.resolve("core.dump"));
+        
+        String[] patterns = {"*.log", "config-*.yaml", "^core\\.\\d+$", "app.log"};
+        List<String> results = caseInsensitiveSearcher.searchFiles(tempDir.toString(), patterns);
+        
+        assertEquals(4, results.size(), "A file matching two patterns is reported once");
+        assertEquals(2, caseInsensitiveSearcher.countFileOccurrences("*.LOG"));
+        assertEquals(1, caseInsensitiveSearcher.countFileOccurrences("config-*.yaml"));
+        assertEquals(1, caseInsensitiveSearcher.countFileOccurrences("^core\\.\\d+$"));
+        assertEquals(1, caseInsensitiveSearcher.countFileOccurrences("app.log"));
+    }
+    
+    @Test
+    void testOccurrenceHistogram() throws IOException {
+        Path subDir = tempDir.resolve("subdir");
+        Files.createDirectories(subDir);
+        Files.createFile(tempDir.resolve("a.txt"));
+        Files.createFile(subDir.resolve("A.TXT"));
+        Files.createFile(subDir.resolve("b.txt"));
+        
+        String[] fileNames = {"B.txt", "a.txt", "A.TXT", "missing.txt"};
+        caseInsensitiveSearcher.setThreads(4);
+        caseInsensitiveSearcher.searchFiles(tempDir.toString(), fileNames);
+        
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("b.txt", 1L);
+        expected.put("a.txt", 2L);
+        expected.put("missing.txt", 0L);
+        assertEquals(expected, caseInsensitiveSearcher.getOccurrenceCounts());
+        assertEquals(new ArrayList<>(expected.keySet()),
+                new ArrayList<>(caseInsensitiveSearcher.getOccurrenceCounts().keySet()), "Counts keep search order");
+        assertEquals(0, caseInsensitiveSearcher.countFileOccurrences("never.searched"));
+    }
+    
+    @Test
+    void testContentSearch() throws IOException {
+        Path subDir = tempDir.resolve("subdir");
+        Files.createDirectories(subDir);
+        Files.write(tempDir.resolve("a.log"), "INFO ok\nERROR disk full\n".getBytes());
+        Files.write(subDir.resolve("b.log"), "INFO ok\n".getBytes());
+        Files.write(subDir.resolve("c.txt"), "ERROR in a text file\n".getBytes());
+        Files.write(subDir.resolve("d.bin"), "ERROR\0".getBytes());
+        
+        caseSensitiveSearcher.setContentPatterns("ERROR");
+        List<String> results = caseSensitiveSearcher.searchFiles(tempDir.toString(), new String[]{"*.log"});
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).endsWith("a.log"));
+        assertEquals(1, caseSensitiveSearcher.countFileOccurrences("*.log"), "Only content matches are counted");
+        
+        caseSensitiveSearcher.setThreads(4);
+        assertEquals(2, caseSensitiveSearcher.searchFiles(tempDir.toString(), new String[]{"*"}).size(),
+                "The star pattern searches every file; binary files are skipped");
+        
+        caseInsensitiveSearcher.setContentPatterns("regex:^error disk");
+        try (Stream<Path> stream = caseInsensitiveSearcher.search(tempDir.toString(), "*")) {
+            assertEquals(1, stream.count());
+        }
+        
+        caseSensitiveSearcher.setContentPatterns();
+        assertEquals(2, caseSensitiveSearcher.searchFiles(tempDir.toString(), new String[]{"*.log"}).size());
+    }
+    
+    @Test
+    void testLimitFirstMatchAndDeadlineStopEarly() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            Files.createFile(Files.createDirectories(tempDir.resolve("dir" + i)).resolve("hit.txt"));
+        }
+        String[] names = {"hit.txt"};
+        
+        caseSensitiveSearcher.setLimit(5);
+        assertEquals(5, caseSensitiveSearcher.searchFiles(tempDir.toString(), names).size());
+        assertEquals(5, caseSensitiveSearcher.countFileOccurrences("hit.txt"));
+        assertFalse(caseSensitiveSearcher.isCompleted());
+        try (Stream<Path> stream = caseSensitiveSearcher.search(tempDir.toString(), "hit.txt")) {
+            assertEquals(5, stream.count());
+        }
+        
+        // Parallel workers stop too, and never report more than the limit
+        caseSensitiveSearcher.setThreads(4);
+        assertEquals(5, caseSensitiveSearcher.searchFiles(tempDir.toString(), names).size());
+        caseSensitiveSearcher.setFirstMatchOnly(true);
+        assertEquals(1, caseSensitiveSearcher.searchFiles(tempDir.toString(), names).size());
+        assertFalse(caseSensitiveSearcher.isCompleted());
+        
+        caseSensitiveSearcher.setFirstMatchOnly(false);
+        caseSensitiveSearcher.setLimit(Integer.MAX_VALUE);
+        assertEquals(20, caseSensitiveSearcher.searchFiles(tempDir.toString(), names).size());
+        assertTrue(caseSensitiveSearcher.isCompleted());
+        
+        caseSensitiveSearcher.setDeadline(Duration.ZERO);
+        assertTrue(caseSensitiveSearcher.searchFiles(tempDir.toString(), names).isEmpty());
+        assertFalse(caseSensitiveSearcher.isCompleted());
+        caseSensitiveSearcher.setDeadline(Duration.ofMinutes(1));
+        assertEquals(20, caseSensitiveSearcher.searchFiles(tempDir.toString(), names).size());
+        assertTrue(caseSensitiveSearcher.isCompleted());
+        
+        assertThrows(IllegalArgumentException.class, () -> caseSensitiveSearcher.setLimit(0));
+    }
+    
+    @Test
+    void testCancelStopsAllWorkers() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            Files.createFile(Files.createDirectories(tempDir.resolve("dir" + i)).resolve("hit.txt"));
+        }
+        caseSensitiveSearcher.setThreads(4);
+        AtomicInteger found = new AtomicInteger();
+        caseSensitiveSearcher.search(tempDir.toString(), new String[]{"hit.txt"}, file -> {
+            if (found.incrementAndGet() == 3) {
+                caseSensitiveSearcher.cancel();
+            }
+        });
+        
+        // Workers that had already claimed a match when the search was cancelled still report it
+        assertTrue(found.get() >= 3 && found.get() <= 3 + 4, "Found " + found.get());
+        assertFalse(caseSensitiveSearcher.isCompleted());
+        
+        assertEquals(200, caseSensitiveSearcher.searchFiles(tempDir.toString(), new String[]{"hit.txt"}).size());
+        assertTrue(caseSensitiveSearcher.isCompleted());
+    }
+    
+    @Test
+    void testSearchInsideNestedArchives() throws IOException {
+        Map<String, byte[]> inner = new LinkedHashMap<>();
+        inner.put("docs/readme.md", new byte[5]);
+        Map<String, byte[]> outer = new LinkedHashMap<>();
+        outer.put("com/acme/Main.class", new byte[100]);
+        outer.put("lib/inner.zip", zip(inner));
+        outer.put("readme.md", new byte[10]);
+        Path lib = Files.createDirectories(tempDir.resolve("lib"));
+        Files.write(lib.resolve("app.jar"), zip(outer));
+        Files.write(lib.resolve("broken.war"), "not a zip".getBytes());
+        Files.createFile(tempDir.resolve("README.md"));
+        String[] names = {"readme.md", "*.class", "*.zip"};
+        
+        // Archives are plain files unless they are searched
+        assertEquals(List.of(tempDir.resolve("README.md").toString()),
+                caseInsensitiveSearcher.searchFiles(tempDir.toString(), names));
+        
+        caseInsensitiveSearcher.setSearchArchives(true);
+        String jar = lib.resolve("app.jar").toString();
+        List<String> expected = List.of(tempDir.resolve("README.md").toString(),
+                jar + "!/com/acme/Main.class", jar + "!/lib/inner.zip",
+                jar + "!/lib/inner.zip!/docs/readme.md", jar + "!/readme.md");
+        for (int threads : new int[]{1, 4}) {
+            caseInsensitiveSearcher.setThreads(threads);
+            List<String> results = caseInsensitiveSearcher.searchFiles(tempDir.toString(), names);
+            results.sort(null);
+            assertEquals(expected, results);
+            assertEquals(3, caseInsensitiveSearcher.countFileOccurrences("readme.md"));
+        }
+        // The damaged archive was counted as an error each time and skipped
+        assertEquals(Long.valueOf(2), caseInsensitiveSearcher.getMetrics().getErrorsByType().get("ProviderNotFoundException"));
+        
+        try (Stream<Path> classes = caseInsensitiveSearcher.search(tempDir.toString(), "*.class")) {
+            assertEquals(List.of(Path.of(jar + "!/com/acme/Main.class")), classes.collect(Collectors.toList()));
+        }
+        
+        // Sizes come from the central directory
+        caseInsensitiveSearcher.setFilter(MetadataFilter.size(100, 100));
+        assertEquals(List.of(jar + "!/com/acme/Main.class"),
+                caseInsensitiveSearcher.searchFiles(tempDir.toString(), names));
+    }
+    
+    /**
+     * Creates a zip archive in memory
+     */
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+    
+    @Test
+    void testFoldCaseMatchesEqualsIgnoreCase() {
+        String[] names = {"readme.txt", "README.TXT", "straße", "STRASSE", "\u0130nfo", "info", "\u03c3", "\u03a3", "\u03c2"};
+        for (String a : names) {
+            for (String b : names) {
+                assertEquals(a.equalsIgnoreCase(b), FileSearcher.foldCase(a).equals(FileSearcher.foldCase(b)), a + " vs " + b);
+            }
+        }
+    }
+    
     @Test
     void testSearchNonExistentFile() throws IOException {
         Files.createFile(tempDir.resolve("existing.txt"));
@@ -0,0 +1,93 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit tests for IgnoreRules class
+ */
+class IgnoreRulesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private boolean ignored(IgnoreRules rules, String relative, boolean isDirectory) {
+        Path entry = tempDir.resolve(relative);
+        return rules.isIgnored(entry, entry.getFileName().toString(), isDirectory);
+    }
+
+    @Test
+    void testNamePatternsMatchAtAnyDepth() {
+        IgnoreRules rules = IgnoreRules.of(tempDir, Arrays.asList("node_modules", "*.tmp", "build/"));
+
+        assertTrue(ignored(rules, "node_modules", true));
+        assertTrue(ignored(rules, "a/b/node_modules", true));
+        assertTrue(ignored(rules, "a/x.tmp", false));
+        assertTrue(ignored(rules, "a/build", true));
+        assertFalse(ignored(rules, "a/build", false), "Trailing slash matches directories only");
+        assertFalse(ignored(rules, "a/x.tmp.txt", false));
+    }
+
+    @Test
+    void testSlashAnchorsToBase() {
+        IgnoreRules rules = IgnoreRules.of(tempDir, Arrays.asList("/target", "docs/*.md", "**/gen/**", "a/**/z"));
+
+        assertTrue(ignored(rules, "target", true));
+        assertFalse(ignored(rules, "sub/target", true));
+        assertTrue(ignored(rules, "docs/readme.md", false));
+        assertFalse(ignored(rules, "docs/api/readme.md", false), "A single star does not cross directories");
+        assertTrue(ignored(rules, "x/gen/y/file.java", false));
+        assertFalse(ignored(rules, "x/gen", true));
+        assertTrue(ignored(rules, "a/z", true));
+        assertTrue(ignored(rules, "a/b/c/z", true));
+    }
+
+    @Test
+    void testLastMatchWinsAndNegationReincludes() {
+        IgnoreRules rules = IgnoreRules.of(tempDir, Arrays.asList("# comment", "", "*.log", "!keep.log", "\\#hash"));
+
+        assertTrue(ignored(rules, "debug.log", false));
+        assertFalse(ignored(rules, "keep.log", false));
+        assertTrue(ignored(rules, "#hash", false));
+        assertFalse(ignored(rules, "comment", false));
+    }
+
+    @Test
+    void testNestedIgnoreFilesInherit() throws IOException {
+        Path sub = Files.createDirectories(tempDir.resolve("sub"));
+        Files.write(sub.resolve(".gitignore"), Arrays.asList("!important.log", "/local"));
+        Files.write(sub.resolve(".ignore"), Arrays.asList("cache"));
+
+        Files.write(tempDir.resolve(".gitignore"), Arrays.asList("*.log"));
+        IgnoreRules outer = IgnoreRules.of(tempDir, Collections.emptyList()).forDirectory(tempDir);
+        IgnoreRules inner = outer.forDirectory(sub);
+
+        Path plain = Files.createDirectories(sub.resolve("plain"));
+        assertSame(inner, inner.forDirectory(plain), "Directories without ignore files share rules");
+        assertTrue(ignored(inner, "sub/other.log", false));
+        assertFalse(ignored(inner, "sub/important.log", false));
+        assertTrue(ignored(inner, "sub/local", true));
+        assertFalse(ignored(inner, "sub/deeper/local", true), "Anchored to the directory of the ignore file");
+        assertTrue(ignored(inner, "sub/deeper/cache", true));
+        assertFalse(ignored(outer, "cache", true));
+    }
+
+    @Test
+    void testSearchExcludesOverrideIgnoreFiles() throws IOException {
+        Files.write(tempDir.resolve(".gitignore"), Arrays.asList("!build/", "!*.tmp", "dist/"));
+
+        IgnoreRules rules = IgnoreRules.of(tempDir, Arrays.asList("build/", "*.tmp", "!dist/")).forDirectory(tempDir);
+
+        assertTrue(ignored(rules, "build", true), "An ignore file cannot re-include what the search excluded");
+        assertTrue(ignored(rules, "sub/scratch.tmp", false));
+        assertFalse(ignored(rules, "dist", true), "A search pattern re-including wins over an ignore file");
+        assertFalse(ignored(rules, "src", true));
+    }
+}
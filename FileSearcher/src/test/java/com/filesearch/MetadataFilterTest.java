@@ -0,0 +1,171 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for MetadataFilter class
+ */
+class MetadataFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file(String name, int size, Instant modified) throws IOException {
+        Path file = Files.write(tempDir.resolve(name), new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+        return file;
+    }
+
+    private static List<String> names(List<String> paths) {
+        List<String> names = new ArrayList<>();
+        for (String path : paths) {
+            names.add(Path.of(path).getFileName().toString());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    void testSizeAndTimeFiltersDuringSearch() throws IOException {
+        Instant now = Instant.now();
+        file("big-new.log", 5000, now);
+        file("big-old.log", 5000, now.minus(Duration.ofDays(3)));
+        file("small-new.log", 10, now);
+        file("big-new.txt", 5000, now);
+
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setFilter(MetadataFilter.largerThan(1000).and(MetadataFilter.modifiedWithin(Duration.ofDays(1))));
+        assertEquals(List.of("big-new.log"), names(searcher.searchFiles(tempDir.toString(), new String[]{"*.log"})));
+        assertEquals(1, searcher.countFileOccurrences("*.log"));
+
+        searcher.setFilter(MetadataFilter.smallerThan(100).or(MetadataFilter.modified(null, now.minus(Duration.ofDays(2)))));
+        assertEquals(List.of("big-old.log", "small-new.log"),
+                names(searcher.searchFiles(tempDir.toString(), new String[]{"*.log"})));
+
+        searcher.setFilter(MetadataFilter.size(10, 10).negate());
+        searcher.setThreads(4);
+        assertEquals(3, searcher.searchFiles(tempDir.toString(), new String[]{"*"}).size());
+    }
+
+    @Test
+    void testDirectoriesAreReportedOnlyWhenAskedFor() throws IOException {
+        Files.createDirectories(tempDir.resolve("logs").resolve("logs"));
+        Files.createFile(tempDir.resolve("logs").resolve("app.log"));
+        Files.createFile(tempDir.resolve("logs").resolve("logs").resolve("logs"));
+
+        FileSearcher searcher = new FileSearcher(true);
+        assertEquals(1, searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).size());
+
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.DIRECTORY));
+        assertEquals(2, searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).size());
+
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.DIRECTORY, MetadataFilter.Type.FILE));
+        assertEquals(3, searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).size());
+    }
+
+    @Test
+    void testNegatedTypesReportDirectoriesOnlyWhenTheyPass() throws IOException {
+        Files.createDirectories(tempDir.resolve("logs").resolve("logs"));
+        Files.createFile(tempDir.resolve("logs").resolve("logs").resolve("logs"));
+
+        FileSearcher searcher = new FileSearcher(true);
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.FILE).negate());
+        assertEquals(2, searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).size());
+
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.DIRECTORY).negate());
+        assertEquals(1, searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).size());
+        assertFalse(MetadataFilter.type(MetadataFilter.Type.DIRECTORY).negate().matchesDirectories());
+
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.FILE).and(MetadataFilter.largerThan(0)).negate());
+        assertEquals(3, searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).size());
+
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.values()).negate());
+        assertTrue(searcher.searchFiles(tempDir.toString(), new String[]{"logs"}).isEmpty());
+    }
+
+    @Test
+    void testLinksMatchTheirOwnTypeWhenNotFollowed() throws IOException {
+        Path target = Files.createFile(tempDir.resolve("target.txt"));
+        try {
+            Files.createSymbolicLink(tempDir.resolve("link.txt"), target);
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+
+        FileSearcher searcher = new FileSearcher(true);
+        searcher.setFilter(MetadataFilter.type(MetadataFilter.Type.SYMLINK));
+        assertTrue(searcher.searchFiles(tempDir.toString(), new String[]{"*.txt"}).isEmpty());
+
+        searcher.setFollowLinks(false);
+        assertEquals(List.of("link.txt"), names(searcher.searchFiles(tempDir.toString(), new String[]{"*.txt"})));
+    }
+
+    @Test
+    void testOwnerFilter() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("owned.txt"));
+        String owner;
+        try {
+            owner = Files.getOwner(file).getName();
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+
+        FileSearcher searcher = new FileSearcher(true);
+        searcher.setFilter(MetadataFilter.ownedBy(owner).and(MetadataFilter.type(MetadataFilter.Type.FILE)));
+        assertEquals(1, searcher.searchFiles(tempDir.toString(), new String[]{"owned.txt"}).size());
+
+        searcher.setFilter(MetadataFilter.ownedBy(owner + "-nobody"));
+        assertTrue(searcher.searchFiles(tempDir.toString(), new String[]{"owned.txt"}).isEmpty());
+    }
+
+    @Test
+    void testCombinationsTestCheapestFirstAndShortCircuit() throws IOException {
+        Path file = Files.write(tempDir.resolve("data.bin"), new byte[100]);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        List<String> tested = new ArrayList<>();
+        MetadataFilter owner = recording("owner", 3, false, tested);
+        MetadataFilter time = recording("time", 2, true, tested);
+        MetadataFilter type = recording("type", 0, false, tested);
+
+        assertFalse(owner.and(time).and(type).test(file, attributes));
+        assertEquals(List.of("type"), tested, "The cheapest part fails first and ends the test");
+
+        tested.clear();
+        assertTrue(owner.or(type).or(time).test(file, attributes));
+        assertEquals(List.of("type", "time"), tested);
+
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.size(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.type());
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.smallerThan(0));
+        assertThrows(IllegalArgumentException.class, () -> MetadataFilter.largerThan(Long.MAX_VALUE));
+    }
+
+    private static MetadataFilter recording(String name, int cost, boolean result, List<String> tested) {
+        return new MetadataFilter() {
+            @Override
+            boolean test(Path entry, BasicFileAttributes attributes) {
+                tested.add(name);
+                return result;
+            }
+
+            @Override
+            int cost() {
+                return cost;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests for NameMatcher class
+ */
+class NameMatcherTest {
+
+    private static final String[] NAMES = {
+        "app.log", "APP.LOG", ".log", "app.log.1", "archive.tar.gz", "config-dev.yaml",
+        "config.yaml", "core.1234", "core.dump", "Makefile", "readme.md", "a", "x{y}.txt"
+    };
+
+    @Test
+    void testLiteralsStayOnHashPath() {
+        NameMatcher matcher = NameMatcher.compile(new String[] {"readme.md", " Makefile "}, false);
+        assertTrue(matcher.isLiteralOnly());
+        assertArrayEquals(new String[] {"makefile"}, matcher.match("MAKEFILE"));
+        assertNull(matcher.match("readme.txt"));
+    }
+
+    @Test
+    void testExtensionGlobsUseSuffixTable() {
+        NameMatcher matcher = NameMatcher.compile(new String[] {"*.log", "*.tar.gz", "*.gz"}, true);
+        assertFalse(matcher.isLiteralOnly());
+        assertArrayEquals(new String[] {"*.log"}, matcher.match("app.log"));
+        assertArrayEquals(new String[] {"*.log"}, matcher.match(".log"));
+        assertNull(matcher.match("APP.LOG"));
+        assertNull(matcher.match("app.log.1"));
+        assertEquals(set("*.tar.gz", "*.gz"), set(matcher.match("archive.tar.gz")));
+    }
+
+    @Test
+    void testSubstringGlobsShareOneAutomaton() {
+        NameMatcher matcher = NameMatcher.compile(new String[] {"*he*", "*she*", "*hers*", "*é*"}, false);
+        assertEquals(set("*he*", "*she*", "*hers*"), set(matcher.match("USHERS")));
+        assertEquals(set("*é*"), set(matcher.match("CAFÉ")));
+        assertNull(matcher.match("his"));
+    }
+
+    @Test
+    void testRegexPatterns() {
+        NameMatcher matcher = NameMatcher.compile(new String[] {"^core\\.\\d+$", "regex:dump"}, true);
+        assertArrayEquals(new String[] {"^core\\.\\d+$"}, matcher.match("core.1234"));
+        assertArrayEquals(new String[] {"regex:dump"}, matcher.match("core.dump"));
+        assertNull(matcher.match("core.12a"));
+        assertThrows(IllegalArgumentException.class, () -> NameMatcher.compile(new String[] {"^core("}, true));
+    }
+
+    @Test
+    void testGlobsAgreeWithPathMatcher() {
+        String[] globs = {"config-*.yaml", "*.log", "core.?*", "[a-c]*", "[!a-m]*", "*.{yaml,md}",
+            "x\\{y}.txt", "*", "?", "*log*"};
+        for (String glob : globs) {
+            PathMatcher expected = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            NameMatcher matcher = NameMatcher.compile(new String[] {"glob:" + glob}, true);
+            for (String name : NAMES) {
+                assertEquals(expected.matches(Paths.get(name)), matcher.match(name) != null,
+                        glob + " vs " + name);
+            }
+        }
+    }
+
+    @Test
+    void testAllPatternKindsInOneMatcher() {
+        NameMatcher matcher = NameMatcher.compile(
+                new String[] {"app.log", "*.log", "*app*", "^app\\.", "a*.log"}, false);
+        assertEquals(set("app.log", "*.log", "*app*", "^app\\.", "a*.log"), set(matcher.match("App.Log")));
+        assertEquals(set("*app*"), set(matcher.match("myapp.txt")));
+    }
+
+    private static Set<String> set(String... values) {
+        return values == null ? null : new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,223 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Unit tests for SearchMetrics and LatencyHistogram classes
+ */
+class SearchMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Creates root/a/b with two files in each directory and a broken link in root
+     */
+    private Path tree() throws IOException {
+        Path root = tempDir.resolve("root");
+        Path b = Files.createDirectories(root.resolve("a").resolve("b"));
+        for (Path dir : List.of(root, root.resolve("a"), b)) {
+            Files.createFile(dir.resolve("x.txt"));
+            Files.createFile(dir.resolve("y.log"));
+        }
+        Files.createSymbolicLink(root.resolve("broken"), tempDir.resolve("missing"));
+        return root;
+    }
+
+    @Test
+    void testSearchCountsDirectoriesEntriesAndErrors() throws IOException {
+        Path root = tree();
+        FileSearcher searcher = new FileSearcher(false);
+        SearchMetrics metrics = searcher.getMetrics();
+        assertEquals(4, searcher.searchFiles(root.toString(), new String[]{"*.txt", "broken"}).size());
+
+        assertEquals(1, metrics.getSearches());
+        assertEquals(3, metrics.getDirectoriesVisited());
+        // root: x.txt y.log a broken; a: x.txt y.log b; b: x.txt y.log
+        assertEquals(9, metrics.getEntriesVisited());
+        assertEquals(3 * ("x.txt".length() + "y.log".length()) + "a".length() + "b".length() + "broken".length(),
+                metrics.getNameBytes());
+        assertEquals(4, metrics.getMatches());
+        assertEquals(2, metrics.getMaxDepthReached());
+        assertEquals(3, metrics.getListingCount());
+        assertTrue(metrics.getListingLatencyMax() > 0);
+        assertTrue(metrics.getListingLatencyP50() <= metrics.getListingLatencyP99());
+
+        // The broken link was followed and its target could not be read, once to type it, once to match it
+        assertEquals(Map.of("NoSuchFileException", 2L), metrics.getErrorsByType());
+        assertEquals(2, metrics.getErrors());
+
+        // Searchers sharing metrics add to them
+        FileSearcher other = new FileSearcher(false);
+        other.setMetrics(metrics);
+        other.setThreads(4);
+        other.searchFiles(root.toString(), new String[]{"*.txt"});
+        assertEquals(2, metrics.getSearches());
+        assertEquals(6, metrics.getDirectoriesVisited());
+
+        metrics.reset();
+        assertEquals(0, metrics.getEntriesVisited());
+        assertEquals(0, metrics.getListingLatencyP99());
+        assertTrue(metrics.getErrorsByType().isEmpty());
+    }
+
+    @Test
+    void testHistogramPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        Random random = new Random(42);
+        for (int i = 0; i < values.length; i++) {
+            // Log-uniform between 1 µs and 1 s, like directory scan times
+            values[i] = (long) Math.pow(10, 3 + 6 * random.nextDouble());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getValueAtPercentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * 1.04, percentile + ": " + estimate + " vs " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values.length, histogram.getCount());
+
+        // Small values are exact and every value lands in a bucket that holds it
+        for (long value : new long[]{0, 1, 63, 64, 65, 1000, 1L << 40, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestEquivalentValue(index - 1) < value);
+        }
+        assertEquals(63, LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(63)));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+
+    @Test
+    void testMetricsPublishedOverJmx() throws Exception {
+        Path root = tree();
+        FileSearcher searcher = new FileSearcher(false);
+        ObjectName name = searcher.getMetrics().register("SearchMetricsTest");
+        try {
+            searcher.searchFiles(root.toString(), new String[]{"*.log"});
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(3L, server.getAttribute(name, "DirectoriesVisited"));
+            assertEquals(3L, server.getAttribute(name, "Matches"));
+            assertTrue((Long) server.getAttribute(name, "ListingLatencyP99") > 0);
+            assertNotNull(server.getAttribute(name, "ErrorsByType"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "DirectoriesVisited"));
+        } finally {
+            SearchMetrics.unregister("SearchMetricsTest");
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    void testListingLatencyLeavesOutSlowConsumers() throws IOException {
+        Path root = tree();
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.search(root.toString(), new String[]{"*.txt"}, file -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        SearchMetrics metrics = searcher.getMetrics();
+        assertEquals(3, metrics.getMatches());
+        assertTrue(metrics.getListingLatencyMax() < Duration.ofMillis(200).toNanos(),
+                "The consumer's time was counted as listing latency: " + metrics.getListingLatencyMax());
+    }
+
+    @Test
+    void testSearchesAreRecordedAsJfrEvents() throws Exception {
+        Path root = tree();
+        Path file = tempDir.resolve("search.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.filesearch.Search");
+            recording.enable("com.filesearch.DirectoryScan").withThreshold(Duration.ZERO);
+            recording.start();
+            FileSearcher searcher = new FileSearcher(false);
+            searcher.setLimit(1);
+            searcher.searchFiles(root.toString(), new String[]{"*.log"});
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent search = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.filesearch.Search"))
+                .findFirst().orElseThrow();
+        assertEquals(root.toString(), search.getString("directory"));
+        assertEquals(1, search.getLong("matches"));
+        assertFalse(search.getBoolean("completed"));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName()
+                .equals("com.filesearch.DirectoryScan") && root.toString().equals(event.getString("directory"))));
+    }
+
+    @Test
+    void testConcurrentSearchesSharingMetricsReportTheirOwnCounts() throws Exception {
+        Path root = tree();
+        Path file = tempDir.resolve("shared.jfr");
+        SearchMetrics shared = new SearchMetrics();
+        try (Recording recording = new Recording()) {
+            recording.enable("com.filesearch.Search");
+            recording.start();
+            Thread[] clients = new Thread[8];
+            for (int i = 0; i < clients.length; i++) {
+                FileSearcher searcher = new FileSearcher(false);
+                searcher.setMetrics(shared);
+                clients[i] = new Thread(() -> {
+                    try {
+                        for (int j = 0; j < 5; j++) {
+                            searcher.searchFiles(root.toString(), new String[]{"*.log"});
+                        }
+                        // Nothing to look for: no event is begun
+                        searcher.searchFiles(root.toString(), new String[]{});
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+                clients[i].start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> searches = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getEventType().getName().equals("com.filesearch.Search")) {
+                searches.add(event);
+            }
+        }
+        assertEquals(40, searches.size());
+        for (RecordedEvent search : searches) {
+            assertEquals(3, search.getLong("directories"));
+            assertEquals(9, search.getLong("entries"));
+            assertEquals(3, search.getLong("matches"));
+        }
+        assertEquals(120, shared.getMatches());
+    }
+}
@@ -0,0 +1,183 @@
+package com.filesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for WatchedNameIndex class
+ */
+class WatchedNameIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private WatchedNameIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(tempDir.resolve("a/deep"));
+        Files.createFile(tempDir.resolve("config.xml"));
+        Files.createFile(tempDir.resolve("a/CONFIG.XML"));
+        Files.createFile(tempDir.resolve("a/deep/config.xml"));
+        index = new WatchedNameIndex(tempDir);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void testInitialScanMatchesLiveSearch() throws IOException {
+        String[] names = {"config.xml", "missing.txt"};
+        for (boolean caseSensitive : new boolean[] {true, false}) {
+            List<String> indexed = index.lookup(tempDir, names, caseSensitive);
+            List<String> live = new FileSearcher(caseSensitive).searchFiles(tempDir.toString(), names);
+            Collections.sort(indexed);
+            Collections.sort(live);
+            assertEquals(live, indexed, "caseSensitive=" + caseSensitive);
+        }
+        assertEquals(1, index.lookup(tempDir.resolve("a/deep"), names, false).size());
+    }
+
+    @Test
+    void testCreatedFilesAndDirectoriesAreIndexed() throws IOException {
+        Path created = tempDir.resolve("new/nested");
+        Files.createDirectories(created);
+        Files.createFile(created.resolve("config.xml"));
+
+        awaitUntil(() -> index.lookup(tempDir, new String[] {"config.xml"}, true).size() == 3);
+        assertTrue(index.covers(created));
+    }
+
+    @Test
+    void testDeletedAndRenamedEntriesAreDropped() throws IOException {
+        Files.move(tempDir.resolve("config.xml"), tempDir.resolve("renamed.xml"));
+        Files.delete(tempDir.resolve("a/deep/config.xml"));
+        Files.delete(tempDir.resolve("a/deep"));
+
+        awaitUntil(() -> index.lookup(tempDir, new String[] {"config.xml"}, false).size() == 1
+                && index.lookup(tempDir, new String[] {"renamed.xml"}, false).size() == 1);
+        assertFalse(index.covers(tempDir.resolve("a/deep")));
+    }
+
+    @Test
+    void testRescanRebuildsSubtree() throws IOException {
+        index.close();
+        Files.createFile(tempDir.resolve("a/deep/extra.txt"));
+        Files.delete(tempDir.resolve("a/CONFIG.XML"));
+
+        index.rescan(tempDir.resolve("a"));
+
+        assertEquals(1, index.lookup(tempDir, new String[] {"extra.txt"}, true).size());
+        assertEquals(2, index.lookup(tempDir, new String[] {"config.xml"}, false).size());
+        assertEquals(3, index.getFileCount());
+    }
+
+    @Test
+    void testDirectoriesThatCannotBeWatchedAreNotCovered() throws IOException {
+        // Once the watch service is closed, no directory read again can be registered
+        index.close();
+        index.rescan(tempDir.resolve("a"));
+
+        assertFalse(index.covers(tempDir.resolve("a")));
+        assertFalse(index.covers(tempDir.resolve("a/deep")));
+        assertFalse(index.covers(tempDir), "A search from above would read the stale subtree");
+        assertEquals(2, index.lookup(tempDir.resolve("a"), new String[] {"config.xml"}, false).size());
+
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setFollowLinks(false);
+        searcher.setIndex(index);
+        assertEquals(3, searcher.searchFiles(tempDir.toString(), new String[] {"config.xml"}).size());
+        assertTrue(searcher.getMetrics().getDirectoriesVisited() > 0);
+    }
+
+    @Test
+    void testLookupsNeverSeeHalfRescannedTree() throws Exception {
+        index.close();
+        for (int i = 0; i < 200; i++) {
+            Files.createFile(Files.createDirectories(tempDir.resolve("many/dir" + i)).resolve("config.xml"));
+        }
+        index.rescan(tempDir);
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread rescans = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                index.rescan(tempDir);
+            }
+            done.set(true);
+        });
+        rescans.start();
+        String[] names = {"config.xml", "CONFIG.XML"};
+        while (!done.get()) {
+            assertEquals(203, index.lookup(tempDir, names, false).size());
+        }
+        rescans.join();
+    }
+
+    @Test
+    void testFileSearcherServesCoveredRootsFromIndex() throws IOException {
+        FileSearcher searcher = new FileSearcher(false);
+        searcher.setFollowLinks(false);
+        searcher.setIndex(index);
+
+        List<String> results = searcher.searchFiles(tempDir.resolve("a").toString(), new String[] {"config.xml"});
+        assertEquals(2, results.size());
+        assertEquals(2, searcher.countFileOccurrences("Config.xml"));
+        assertEquals(0, searcher.getMetrics().getDirectoriesVisited());
+    }
+
+    @Test
+    void testSearchersFollowingLinksWalkInstead() throws IOException {
+        Path outside = Files.createDirectories(tempDir.resolveSibling(tempDir.getFileName() + "-outside"));
+        Files.createFile(outside.resolve("config.xml"));
+        try {
+            Files.createSymbolicLink(tempDir.resolve("linked"), outside);
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+        index.rescan(tempDir);
+
+        try {
+            // Following links, the files behind the link are found by a walk
+            FileSearcher following = new FileSearcher(false);
+            following.setIndex(index);
+            assertEquals(4, following.searchFiles(tempDir.toString(), new String[] {"config.xml"}).size());
+            assertTrue(following.getMetrics().getDirectoriesVisited() > 0);
+
+            // Not following them, the index answers as a walk would
+            FileSearcher notFollowing = new FileSearcher(false);
+            notFollowing.setFollowLinks(false);
+            notFollowing.setIndex(index);
+            assertEquals(3, notFollowing.searchFiles(tempDir.toString(), new String[] {"config.xml"}).size());
+            assertEquals(0, notFollowing.getMetrics().getDirectoriesVisited());
+        } finally {
+            Files.delete(outside.resolve("config.xml"));
+            Files.delete(outside);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "index did not catch up with the file system");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.permutations;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * GenerationTracker instruments a single generation call: it times the call,
+ * measures the calling thread's allocation, updates {@link PermutationMetrics}
+ * and emits a {@link PermutationGenerationEvent}.
+ *
+ * Events are only created once Flight Recorder is running: initialising
+ * the JFR event classes costs a few hundred milliseconds, which would
+ * otherwise be paid by the first generation call of every process.
+ */
+class GenerationTracker {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final PermutationMetrics metrics;
+    private final PermutationGenerationEvent event;
+    private final long startNanos;
+    private final long startBytes;
+    private long discarded;
+    private boolean finished;
+
+    private GenerationTracker(PermutationMetrics metrics, String engine, String input, boolean includeDuplicates) {
+        this.metrics = metrics;
+        this.event = FlightRecorder.isInitialized() ? new PermutationGenerationEvent() : null;
+        if (event != null && event.isEnabled()) {
+            event.engine = engine;
+            event.inputLength = input.length();
+            event.includeDuplicates = includeDuplicates;
+        }
+        this.startBytes = allocatedBytes();
+        this.startNanos = System.nanoTime();
+        metrics.generationStarted();
+        if (event != null) {
+            event.begin();
+        }
+    }
+
+    /**
+     * Starts tracking a generation call
+     * @param engine name of the engine producing the permutations
+     * @param input the input string
+     * @param includeDuplicates whether duplicates are kept
+     * @return tracker to finish once the result is ready
+     */
+    static GenerationTracker start(String engine, String input, boolean includeDuplicates) {
+        return new GenerationTracker(PermutationMetrics.getInstance(), engine, input, includeDuplicates);
+    }
+
+    /**
+     * Records permutations dropped by deduplication
+     * @param count number of duplicates discarded
+     */
+    void discarded(long count) {
+        discarded += count;
+    }
+
+    /**
+     * Completes tracking for a successful call
+     * @param produced number of permutations returned
+     */
+    void finish(long produced) {
+        long nanos = System.nanoTime() - startNanos;
+        long allocated = Math.max(0, allocatedBytes() - startBytes);
+        finished = true;
+        metrics.generationFinished(produced, discarded, allocated, nanos);
+
+        if (event != null && event.shouldCommit()) {
+            event.produced = produced;
+            event.duplicatesDiscarded = discarded;
+            event.bytesAllocated = allocated;
+            event.commit();
+        }
+    }
+
+    /**
+     * Ends tracking; counts the call as failed if {@link #finish(long)} was not reached
+     */
+    void close() {
+        if (!finished) {
+            finished = true;
+            metrics.generationFailed();
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (ALLOCATION_BEAN == null) {
+            return 0;
+        }
+        return ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,216 @@
+package com.permutations;
+
+import java.util.Arrays;
+
+/**
+ * MultisetRanker maps the distinct permutations of a fixed multiset of
+ * characters to and from their position (rank) in lexicographic order.
+ * Ranks run from 0 to {@link #getTotal()} - 1.
+ */
+public class MultisetRanker {
+
+    private final char[] alphabet;
+    private final int[] counts;
+    private final int length;
+    private final long total;
+
+    /**
+     * Constructor for MultisetRanker
+     * @param input any arrangement of the multiset to rank
+     * @throws IllegalArgumentException if input is null
+     */
+    public MultisetRanker(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input string cannot be null");
+        }
+
+        char[] sorted = input.toCharArray();
+        Arrays.sort(sorted);
+
+        // Collapse the sorted characters into distinct symbols and their counts
+        char[] symbols = new char[sorted.length];
+        int[] symbolCounts = new int[sorted.length];
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || symbols[distinct - 1] != sorted[i]) {
+                symbols[distinct++] = sorted[i];
+            }
+            symbolCounts[distinct - 1]++;
+        }
+
+        this.alphabet = Arrays.copyOf(symbols, distinct);
+        this.counts = Arrays.copyOf(symbolCounts, distinct);
+        this.length = sorted.length;
+        this.total = countArrangements(counts);
+    }
+
+    /**
+     * Gets the number of distinct permutations of the multiset
+     * @return number of distinct permutations, or Long.MAX_VALUE if it does not fit in a long
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Checks whether every rank of this multiset fits in a long
+     * @return true if {@link #rank(CharSequence)} can be used
+     */
+    public boolean isRankable() {
+        return total != Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the distinct characters of the multiset in ascending order
+     * @return sorted distinct characters
+     */
+    public char[] getAlphabet() {
+        return alphabet.clone();
+    }
+
+    /**
+     * Gets the length of every permutation of the multiset
+     * @return permutation length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Computes the lexicographic rank of a permutation of the multiset
+     * @param permutation a permutation of the multiset
+     * @return rank in the range [0, total)
+     * @throws IllegalArgumentException if permutation is not an arrangement of the multiset
+     * @throws IllegalStateException if the ranks do not fit in a long
+     */
+    public long rank(CharSequence permutation) {
+        if (!isRankable()) {
+            throw new IllegalStateException("Too many permutations to rank: " + length + " characters");
+        }
+        if (permutation.length() != length) {
+            throw new IllegalArgumentException("Not a permutation of the multiset: " + permutation);
+        }
+
+        int[] remaining = counts.clone();
+        long arrangements = total;
+        long rank = 0;
+
+        for (int i = 0; i < length; i++) {
+            int slots = length - i;
+            int symbol = indexOf(permutation.charAt(i));
+            if (symbol < 0 || remaining[symbol] == 0) {
+                throw new IllegalArgumentException("Not a permutation of the multiset: " + permutation);
+            }
+
+            // Skip every arrangement that starts with a smaller symbol here
+            for (int s = 0; s < symbol; s++) {
+                if (remaining[s] > 0) {
+                    rank += share(arrangements, remaining[s], slots);
+                }
+            }
+
+            arrangements = share(arrangements, remaining[symbol], slots);
+            remaining[symbol]--;
+        }
+
+        return rank;
+    }
+
+    /**
+     * Builds the permutation with the given lexicographic rank
+     * @param rank rank in the range [0, total)
+     * @return the permutation at that rank
+     * @throws IllegalArgumentException if rank is out of range
+     */
+    public String unrank(long rank) {
+        if (rank < 0 || rank >= total) {
+            throw new IllegalArgumentException("Rank out of range: " + rank);
+        }
+
+        int[] remaining = counts.clone();
+        char[] result = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            for (int s = 0; s < alphabet.length; s++) {
+                if (remaining[s] == 0) {
+                    continue;
+                }
+
+                // Count the arrangements of the rest once this symbol is placed
+                remaining[s]--;
+                long block = countArrangements(remaining);
+
+                if (rank < block) {
+                    result[i] = alphabet[s];
+                    break;
+                }
+
+                remaining[s]++;
+                rank -= block;
+            }
+        }
+
+        return new String(result);
+    }
+
+    /**
+     * Finds the index of a character in the sorted alphabet
+     * @param c the character
+     * @return index of c, or a negative value if c is not in the multiset
+     */
+    int indexOf(char c) {
+        return Arrays.binarySearch(alphabet, c);
+    }
+
+    /**
+     * Gets how often a symbol occurs in the multiset
+     * @param symbol index of the symbol in the alphabet
+     * @return its number of occurrences
+     */
+    int countOf(int symbol) {
+        return counts[symbol];
+    }
+
+    /**
+     * Number of arrangements starting with a symbol that occurs count times
+     * among the given number of slots, i.e. arrangements * count / slots.
+     * The division is exact; dividing by the gcd first keeps it from overflowing.
+     */
+    private static long share(long arrangements, int count, int slots) {
+        int gcd = gcd(count, slots);
+        return arrangements / (slots / gcd) * (count / gcd);
+    }
+
+    /**
+     * Counts the distinct arrangements of a multiset, saturating at Long.MAX_VALUE
+     * @param counts occurrences of each symbol
+     * @return multinomial coefficient sum(counts)! / prod(counts!)
+     */
+    private static long countArrangements(int[] counts) {
+        long result = 1;
+        int placed = 0;
+        for (int count : counts) {
+            for (int k = 1; k <= count; k++) {
+                placed++;
+                // Placing the k-th copy multiplies by placed / k, and the product stays exact
+                int gcd = gcd(placed, k);
+                long factor = placed / gcd;
+                long divided = result / (k / gcd);
+                if (divided > Long.MAX_VALUE / factor) {
+                    return Long.MAX_VALUE;
+                }
+                result = divided * factor;
+            }
+        }
+        return result;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -1,5 +1,10 @@
 package com.permutations;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Scanner;
 
@@ -14,8 +19,13 @@ public class PermutationApp {
      * @param args command line arguments
      */
     public static void main(String[] args) {
+        // Expose generation metrics to JMX clients such as JConsole
+        PermutationMetrics.registerMBean();
+        
         // If command line arguments are provided, use them
-        if (args.length >= 1) {
+        if (args.length >= 1 && args[0].equalsIgnoreCase("-convert")) {
+            handleConvert(args);
+        } else if (args.length >= 1) {
             handleCommandLine(args);
         } else {
             // Otherwise, start interactive mode
@@ -33,6 +43,10 @@ public class PermutationApp {
             boolean includeDuplicates = true; // Default to include duplicates
             boolean performanceTest = false;
             String algorithm = "recursive"; // Default algorithm
+            String archiveFile = null;
+            long offset = 0;
+            int limit = -1;
+            int topK = -1;
             
             // Parse command line options
             for (int i = 1; i < args.length; i++) {
@@ -53,6 +67,18 @@ public class PermutationApp {
                     case "-rec":
                         algorithm = "recursive";
                         break;
+                    case "-archive":
+                        archiveFile = args[++i];
+                        break;
+                    case "-offset":
+                        offset = parseCount(args[i], args[++i]);
+                        break;
+                    case "-limit":
+                        limit = (int) Math.min(parseCount(args[i], args[++i]), Integer.MAX_VALUE);
+                        break;
+                    case "-topk":
+                        topK = (int) Math.min(parseCount(args[i], args[++i]), Integer.MAX_VALUE);
+                        break;
                     case "-help":
                     case "-h":
                         printUsage();
@@ -60,11 +86,57 @@ public class PermutationApp {
                 }
             }
             
+            boolean query = topK >= 0 || offset > 0 || limit >= 0;
+            if (query && ("iterative".equals(algorithm) || archiveFile != null)) {
+                // Windows are unranked in recursive or lexicographic order; Heap's order cannot be entered midway
+                throw new IllegalArgumentException("-offset, -limit and -topk use recursive order (lexicographic with"
+                        + " -unique) and cannot be combined with -iterative or -archive");
+            }
+            
             if (performanceTest) {
                 runPerformanceTests(input, includeDuplicates);
+            } else if (query) {
+                queryAndDisplayPermutations(input, includeDuplicates, offset, limit, topK);
             } else {
-                generateAndDisplayPermutations(input, includeDuplicates, algorithm);
+                generateAndDisplayPermutations(input, includeDuplicates, algorithm, archiveFile);
+            }
+            
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+        }
+    }
+    
+    /**
+     * Parses the count given to -offset, -limit or -topk
+     * @param option the option the count belongs to
+     * @param value the count as given
+     * @return the count
+     * @throws IllegalArgumentException if the count is not a number or is negative
+     */
+    private static long parseCount(String option, String value) {
+        long count = Long.parseLong(value);
+        if (count < 0) {
+            throw new IllegalArgumentException(option + " must not be negative: " + value);
+        }
+        return count;
+    }
+    
+    /**
+     * Handles the -convert command: text file of permutations to archive
+     * @param args command line arguments
+     */
+    private static void handleConvert(String[] args) {
+        try {
+            if (args.length < 3) {
+                throw new IllegalArgumentException("-convert requires an input and an output file");
             }
+            Path textFile = Paths.get(args[1]);
+            Path archiveFile = Paths.get(args[2]);
+            
+            long count = PermutationArchive.convertText(textFile, archiveFile, PermutationArchive.Order.UNSPECIFIED);
+            System.out.println("Converted " + count + " permutations to " + archiveFile);
+            printArchiveReport(archiveFile, Files.size(textFile));
             
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
@@ -131,7 +203,7 @@ public class PermutationApp {
             algorithm = "recursive";
         }
         
-        generateAndDisplayPermutations(input, includeDuplicates, algorithm);
+        generateAndDisplayPermutations(input, includeDuplicates, algorithm, null);
     }
     
     /**
@@ -153,8 +225,10 @@ public class PermutationApp {
      * @param input the input string
      * @param includeDuplicates whether to include duplicates
      * @param algorithm the algorithm to use
+     * @param archiveFile file to archive the permutations to, or null
      */
-    private static void generateAndDisplayPermutations(String input, boolean includeDuplicates, String algorithm) {
+    private static void generateAndDisplayPermutations(String input, boolean includeDuplicates, String algorithm,
+                                                       String archiveFile) {
         StringPermutations generator = new StringPermutations();
         
         try {
@@ -179,22 +253,125 @@ public class PermutationApp {
             System.out.println("Generated " + permutations.size() + " permutations");
             System.out.printf("Time taken: %.3f ms%n", duration);
             
-            // Show first 20 permutations to avoid overwhelming output
-            int maxDisplay = Math.min(20, permutations.size());
-            System.out.println("\nFirst " + maxDisplay + " permutations:");
-            for (int i = 0; i < maxDisplay; i++) {
-                System.out.println((i + 1) + ". " + permutations.get(i));
+            displayPermutations(permutations, 0);
+            
+            if (archiveFile != null) {
+                writeArchive(input, permutations, algorithm, Paths.get(archiveFile));
             }
             
-            if (permutations.size() > maxDisplay) {
-                System.out.println("... and " + (permutations.size() - maxDisplay) + " more");
+        } catch (Exception e) {
+            System.err.println("Error generating permutations: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Generates and displays a window of permutations: a top-k query when
+     * topK is set, otherwise the range [offset, offset + limit)
+     * @param input the input string
+     * @param includeDuplicates whether to include duplicates
+     * @param offset number of permutations to skip
+     * @param limit maximum number of permutations, or -1 for no limit
+     * @param topK number of smallest permutations to return, or -1
+     */
+    private static void queryAndDisplayPermutations(String input, boolean includeDuplicates,
+                                                    long offset, int limit, int topK) {
+        StringPermutations generator = new StringPermutations();
+        
+        try {
+            System.out.println("\nGenerating permutations for: \"" + input + "\"");
+            if (topK >= 0) {
+                System.out.println("Query: " + topK + " lexicographically smallest");
+            } else {
+                System.out.println("Query: offset " + offset + (limit >= 0 ? ", limit " + limit : ""));
             }
+            System.out.println("Include duplicates: " + includeDuplicates);
+            System.out.println("Order: " + (includeDuplicates && topK < 0
+                    ? "recursive (lexicographic over character positions)"
+                    : "lexicographic"));
+            System.out.println("=" .repeat(50));
+            
+            long startTime = System.nanoTime();
+            List<String> permutations = topK >= 0
+                    ? generator.generateSmallestPermutations(input, includeDuplicates, topK)
+                    : generator.generatePermutationsRange(input, includeDuplicates, offset,
+                                                          limit >= 0 ? limit : Integer.MAX_VALUE);
+            double duration = (System.nanoTime() - startTime) / 1_000_000.0;
+            
+            System.out.println("Generated " + permutations.size() + " permutations");
+            System.out.printf("Time taken: %.3f ms%n", duration);
+            
+            displayPermutations(permutations, topK >= 0 ? 0 : offset);
             
         } catch (Exception e) {
             System.err.println("Error generating permutations: " + e.getMessage());
         }
     }
     
+    /**
+     * Shows the first 20 permutations to avoid overwhelming output
+     * @param permutations the permutations to show
+     * @param firstIndex zero-based position of the first permutation in the full sequence
+     */
+    private static void displayPermutations(List<String> permutations, long firstIndex) {
+        int maxDisplay = Math.min(20, permutations.size());
+        System.out.println("\nFirst " + maxDisplay + " permutations:");
+        for (int i = 0; i < maxDisplay; i++) {
+            System.out.println((firstIndex + i + 1) + ". " + permutations.get(i));
+        }
+        
+        if (permutations.size() > maxDisplay) {
+            System.out.println("... and " + (permutations.size() - maxDisplay) + " more");
+        }
+    }
+    
+    /**
+     * Writes generated permutations to an archive and reports the result
+     * @param input the input string
+     * @param permutations the generated permutations
+     * @param algorithm the algorithm that produced them
+     * @param archiveFile the archive to write
+     * @throws IOException if the archive cannot be written
+     */
+    private static void writeArchive(String input, List<String> permutations, String algorithm, Path archiveFile)
+            throws IOException {
+        PermutationArchive.Order order = algorithm.equals("iterative")
+                ? PermutationArchive.Order.MINIMAL_CHANGE
+                : PermutationArchive.Order.UNSPECIFIED;
+        
+        long textBytes = 0;
+        try (PermutationArchive.Writer writer = new PermutationArchive.Writer(
+                archiveFile, input, order, PermutationArchive.DEFAULT_BLOCK_SIZE)) {
+            for (String permutation : permutations) {
+                writer.write(permutation);
+                textBytes += permutation.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+        
+        System.out.println("\nArchived to: " + archiveFile);
+        printArchiveReport(archiveFile, textBytes);
+    }
+    
+    /**
+     * Prints the compression ratio and decode throughput of an archive
+     * @param archiveFile the archive to report on
+     * @param textBytes size of the same permutations as plain text
+     * @throws IOException if the archive cannot be read
+     */
+    private static void printArchiveReport(Path archiveFile, long textBytes) throws IOException {
+        long archiveBytes = Files.size(archiveFile);
+        long[] decoded = new long[1];
+        
+        long startTime = System.nanoTime();
+        try (PermutationArchive.Reader reader = new PermutationArchive.Reader(archiveFile)) {
+            reader.forEach(permutation -> decoded[0]++);
+        }
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        
+        System.out.println("Text size: " + textBytes + " bytes, archive size: " + archiveBytes + " bytes");
+        System.out.printf("Compression ratio: %.2fx%n", (double) textBytes / archiveBytes);
+        System.out.printf("Decode throughput: %.0f permutations/s%n", decoded[0] / Math.max(seconds, 1e-9));
+    }
+    
     /**
      * Runs performance comparison tests
      * @param input the input string
@@ -210,6 +387,21 @@ public class PermutationApp {
         System.out.println("• Iterative: O(n!) time, O(n!) space");
         System.out.println("• For large strings (n > 10), both methods become impractical");
         System.out.println("• Iterative methods avoid recursion stack overflow but still have factorial complexity");
+        
+        printMetrics(StringPermutations.getMetrics());
+    }
+    
+    /**
+     * Prints the generation metrics collected so far
+     * @param metrics the metrics to print
+     */
+    private static void printMetrics(PermutationMetricsMBean metrics) {
+        System.out.println("\nGeneration metrics (also available over JMX as " + PermutationMetrics.OBJECT_NAME + "):");
+        System.out.println("  Generations completed: " + metrics.getGenerationsCompleted());
+        System.out.println("  Permutations produced: " + metrics.getPermutationsProduced());
+        System.out.println("  Duplicates discarded:  " + metrics.getDuplicatesDiscarded());
+        System.out.println("  Bytes allocated:       " + metrics.getBytesAllocated());
+        System.out.printf("  Throughput:            %.0f permutations/s%n", metrics.getPermutationsPerSecond());
     }
     
     /**
@@ -223,11 +415,20 @@ public class PermutationApp {
         System.out.println("  -performance, -perf Run performance comparison");
         System.out.println("  -recursive          Use recursive algorithm (default)");
         System.out.println("  -iterative          Use iterative algorithm");
+        System.out.println("  -archive <file>     Also write the permutations to a binary archive");
+        System.out.println("  -offset <n>         Skip the first n permutations in recursive order, lexicographic with -unique");
+        System.out.println("                      (jumps directly, no generation)");
+        System.out.println("  -limit <n>          Stop after n permutations");
+        System.out.println("  -topk <n>           Show the n lexicographically smallest permutations");
         System.out.println("  -help, -h           Show this help message");
         System.out.println("\nExamples:");
         System.out.println("  java -jar StringPermutations.jar abc");
         System.out.println("  java -jar StringPermutations.jar aab -nodupes");
         System.out.println("  java -jar StringPermutations.jar abc -performance");
+        System.out.println("  java -jar StringPermutations.jar abcdefgh -iterative -archive perms.bin");
+        System.out.println("  java -jar StringPermutations.jar -convert perms.txt perms.bin");
+        System.out.println("  java -jar StringPermutations.jar abcdefghijkl -offset 1000000 -limit 100");
+        System.out.println("  java -jar StringPermutations.jar mississippi -unique -topk 50");
         System.out.println("  java -jar StringPermutations.jar (for interactive mode)");
     }
 }
\ No newline at end of file
@@ -0,0 +1,423 @@
+package com.permutations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * PermutationArchive reads and writes a compact binary archive of permutations.
+ *
+ * Layout: a header (magic, version, order, count, length, alphabet, block size),
+ * a sequence of blocks, a block index and an 8-byte trailer pointing at the index.
+ * Each permutation is stored as alphabet indices. The first entry of a block is
+ * stored in full; later entries are either front-coded against the previous one
+ * (shared prefix length, then the differing suffix) or, when only two positions
+ * changed, as a single swap. The block index allows seeking to any rank by
+ * decoding at most one block.
+ */
+public class PermutationArchive {
+
+    /**
+     * Order in which the permutations of an archive were written
+     */
+    public enum Order {
+        UNSPECIFIED,
+        LEXICOGRAPHIC,
+        MINIMAL_CHANGE
+    }
+
+    /** Default number of permutations per block */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    /** Longest permutation an archive can hold; longer tags are reserved */
+    public static final int MAX_LENGTH = 254;
+
+    private static final int MAGIC = 0x50524D41; // "PRMA"
+    private static final byte VERSION = 1;
+    private static final int COUNT_OFFSET = 6;
+    private static final int SWAP_TAG = 0xFF;
+
+    private PermutationArchive() {
+    }
+
+    /**
+     * Converts a text file with one permutation per line into an archive
+     * @param textFile the text file to read
+     * @param archiveFile the archive to write
+     * @param order the order the permutations appear in
+     * @return number of permutations converted
+     * @throws IOException if either file cannot be accessed
+     * @throws IllegalArgumentException if the lines are not permutations of one string
+     */
+    public static long convertText(Path textFile, Path archiveFile, Order order) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("No permutations in " + textFile);
+            }
+
+            try (Writer writer = new Writer(archiveFile, line, order, DEFAULT_BLOCK_SIZE)) {
+                do {
+                    writer.write(line);
+                    line = reader.readLine();
+                } while (line != null);
+                return writer.getCount();
+            }
+        }
+    }
+
+    /**
+     * Streaming writer for a permutation archive
+     */
+    public static class Writer implements Closeable {
+
+        private final Path file;
+        private final char[] alphabet;
+        private final MultisetRanker symbols;
+        private final int length;
+        private final int blockSize;
+        private final CountingOutputStream counter;
+        private final DataOutputStream out;
+        private final List<Long> blockOffsets = new ArrayList<>();
+        private final byte[] previous;
+        private final byte[] current;
+        private final int[] used;
+        private long count;
+        private boolean closed;
+
+        /**
+         * Constructor for Writer
+         * @param file the archive file to create
+         * @param sample any permutation of the multiset being archived
+         * @param order the order the permutations will be written in
+         * @param blockSize number of permutations per block
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path file, String sample, Order order, int blockSize) throws IOException {
+            if (sample == null) {
+                throw new IllegalArgumentException("Input string cannot be null");
+            }
+            if (sample.length() > MAX_LENGTH) {
+                throw new IllegalArgumentException("Permutations longer than " + MAX_LENGTH + " cannot be archived");
+            }
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+            }
+
+            this.file = file;
+            this.symbols = new MultisetRanker(sample);
+            this.alphabet = symbols.getAlphabet();
+            this.length = sample.length();
+            this.blockSize = blockSize;
+            this.previous = new byte[length];
+            this.current = new byte[length];
+            this.used = new int[alphabet.length];
+            this.counter = new CountingOutputStream(Files.newOutputStream(file));
+            this.out = new DataOutputStream(new BufferedOutputStream(counter, 1 << 16));
+
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(order.ordinal());
+            out.writeLong(0); // count, patched on close
+            out.writeShort(length);
+            out.writeShort(alphabet.length);
+            for (char c : alphabet) {
+                out.writeChar(c);
+            }
+            out.writeInt(blockSize);
+        }
+
+        /**
+         * Appends a permutation to the archive
+         * @param permutation a permutation of the archived multiset
+         * @throws IOException if writing fails
+         */
+        public void write(String permutation) throws IOException {
+            if (permutation.length() != length) {
+                throw new IllegalArgumentException("Not a permutation of the archived string: " + permutation);
+            }
+            Arrays.fill(used, 0);
+            for (int i = 0; i < length; i++) {
+                int symbol = symbols.indexOf(permutation.charAt(i));
+                if (symbol < 0 || ++used[symbol] > symbols.countOf(symbol)) {
+                    throw new IllegalArgumentException("Not a permutation of the archived string: " + permutation);
+                }
+                current[i] = (byte) symbol;
+            }
+
+            if (count % blockSize == 0) {
+                out.flush();
+                blockOffsets.add(counter.getCount());
+                writeFrontCoded(0);
+            } else {
+                writeDelta();
+            }
+
+            System.arraycopy(current, 0, previous, 0, length);
+            count++;
+        }
+
+        /**
+         * Chooses the shorter of a swap or a front-coded entry
+         */
+        private void writeDelta() throws IOException {
+            int prefix = 0;
+            while (prefix < length && current[prefix] == previous[prefix]) {
+                prefix++;
+            }
+
+            // A swap costs 3 bytes against 1 + (length - prefix) for front coding;
+            // use it when exactly two positions changed and it is shorter
+            if (length - prefix > 2) {
+                int second = -1;
+                int differences = 1;
+                for (int i = prefix + 1; i < length && differences <= 2; i++) {
+                    if (current[i] != previous[i]) {
+                        second = i;
+                        differences++;
+                    }
+                }
+                if (differences == 2 && current[prefix] == previous[second] && current[second] == previous[prefix]) {
+                    out.writeByte(SWAP_TAG);
+                    out.writeByte(prefix);
+                    out.writeByte(second);
+                    return;
+                }
+            }
+
+            writeFrontCoded(prefix);
+        }
+
+        private void writeFrontCoded(int prefix) throws IOException {
+            out.writeByte(prefix);
+            out.write(current, prefix, length - prefix);
+        }
+
+        /**
+         * Gets the number of permutations written so far
+         * @return permutation count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Writes the block index and trailer and fills in the header count
+         * @throws IOException if writing fails
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            out.flush();
+            long indexOffset = counter.getCount();
+            out.writeInt(blockOffsets.size());
+            for (long offset : blockOffsets) {
+                out.writeLong(offset);
+            }
+            out.writeLong(indexOffset);
+            out.close();
+
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.seek(COUNT_OFFSET);
+                raf.writeLong(count);
+            }
+        }
+    }
+
+    /**
+     * Reader for a permutation archive, supporting streaming and random access by rank
+     */
+    public static class Reader implements Closeable {
+
+        private final RandomAccessFile raf;
+        private final Order order;
+        private final long count;
+        private final int length;
+        private final char[] alphabet;
+        private final int blockSize;
+        private final long[] blockOffsets;
+
+        /**
+         * Constructor for Reader
+         * @param file the archive file to open
+         * @throws IOException if the file cannot be read or is not an archive
+         */
+        public Reader(Path file) throws IOException {
+            this.raf = new RandomAccessFile(file.toFile(), "r");
+            try {
+                if (raf.readInt() != MAGIC || raf.readByte() != VERSION) {
+                    throw new IOException("Not a permutation archive: " + file);
+                }
+                this.order = Order.values()[raf.readByte()];
+                this.count = raf.readLong();
+                this.length = raf.readUnsignedShort();
+                this.alphabet = new char[raf.readUnsignedShort()];
+                for (int i = 0; i < alphabet.length; i++) {
+                    alphabet[i] = raf.readChar();
+                }
+                this.blockSize = raf.readInt();
+
+                raf.seek(raf.length() - Long.BYTES);
+                raf.seek(raf.readLong());
+                this.blockOffsets = new long[raf.readInt()];
+                for (int i = 0; i < blockOffsets.length; i++) {
+                    blockOffsets[i] = raf.readLong();
+                }
+            } catch (IOException | RuntimeException e) {
+                raf.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Gets the number of permutations in the archive
+         * @return permutation count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the length of each permutation
+         * @return permutation length
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Gets the order the permutations were written in
+         * @return archive order
+         */
+        public Order getOrder() {
+            return order;
+        }
+
+        /**
+         * Reads the permutation at a given rank, decoding at most one block
+         * @param rank position in the archive, starting at 0
+         * @return the permutation
+         * @throws IOException if reading fails
+         */
+        public String get(long rank) throws IOException {
+            if (rank < 0 || rank >= count) {
+                throw new IndexOutOfBoundsException("Rank out of range: " + rank);
+            }
+            int block = (int) (rank / blockSize);
+            DataInputStream in = openAt(blockOffsets[block]);
+            byte[] current = new byte[length];
+            for (long i = (long) block * blockSize; i <= rank; i++) {
+                readEntry(in, current);
+            }
+            return decode(current, new char[length]);
+        }
+
+        /**
+         * Streams every permutation in archive order
+         * @param action callback for each permutation
+         * @throws IOException if reading fails
+         */
+        public void forEach(Consumer<String> action) throws IOException {
+            if (count == 0) {
+                return;
+            }
+            DataInputStream in = openAt(blockOffsets[0]);
+            byte[] current = new byte[length];
+            char[] chars = new char[length];
+            for (long i = 0; i < count; i++) {
+                readEntry(in, current);
+                action.accept(decode(current, chars));
+            }
+        }
+
+        private DataInputStream openAt(long offset) throws IOException {
+            raf.seek(offset);
+            return new DataInputStream(new BufferedInputStream(Channels.newInputStream(raf.getChannel()), 1 << 16));
+        }
+
+        private void readEntry(DataInputStream in, byte[] current) throws IOException {
+            int tag = in.readUnsignedByte();
+            if (tag == SWAP_TAG) {
+                int i = in.readUnsignedByte();
+                int j = in.readUnsignedByte();
+                byte temp = current[i];
+                current[i] = current[j];
+                current[j] = temp;
+            } else if (tag <= length) {
+                in.readFully(current, tag, length - tag);
+            } else {
+                throw new EOFException("Corrupt archive entry tag: " + tag);
+            }
+        }
+
+        private String decode(byte[] current, char[] chars) {
+            for (int i = 0; i < length; i++) {
+                chars[i] = alphabet[current[i] & 0xFF];
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+
+    /**
+     * Output stream that tracks how many bytes reached the underlying stream
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
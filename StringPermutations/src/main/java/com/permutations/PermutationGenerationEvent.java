@@ -0,0 +1,39 @@
+package com.permutations;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event covering one permutation generation call.
+ * The event duration spans from generation start to end.
+ */
+@Name("com.permutations.Generation")
+@Label("Permutation Generation")
+@Category("Permutations")
+@Description("Generation of all permutations of one input string")
+class PermutationGenerationEvent extends Event {
+
+    @Label("Engine")
+    @Description("Generation engine chosen for the call")
+    String engine;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Include Duplicates")
+    boolean includeDuplicates;
+
+    @Label("Permutations Produced")
+    long produced;
+
+    @Label("Duplicates Discarded")
+    long duplicatesDiscarded;
+
+    @Label("Bytes Allocated")
+    @DataAmount
+    long bytesAllocated;
+}
@@ -0,0 +1,146 @@
+package com.permutations;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * PermutationMetrics is a process-wide registry of generation counters.
+ * Counters are striped LongAdders so concurrent generations do not contend
+ * on a single cache line; reads sum the stripes and are not atomic snapshots.
+ */
+public class PermutationMetrics implements PermutationMetricsMBean {
+
+    /** JMX name the metrics are registered under */
+    public static final String OBJECT_NAME = "com.permutations:type=PermutationMetrics";
+
+    private static final PermutationMetrics INSTANCE = new PermutationMetrics();
+
+    private final LongAdder generationsStarted = new LongAdder();
+    private final LongAdder generationsCompleted = new LongAdder();
+    private final LongAdder activeGenerations = new LongAdder();
+    private final LongAdder permutationsProduced = new LongAdder();
+    private final LongAdder duplicatesDiscarded = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder bytesAllocated = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+
+    PermutationMetrics() {
+    }
+
+    /**
+     * Gets the shared metrics registry
+     * @return the process-wide instance
+     */
+    public static PermutationMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the shared registry with the platform MBean server.
+     * Calling this more than once has no further effect.
+     * @throws IllegalStateException if registration fails
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register permutation metrics: " + e.getMessage(), e);
+        }
+    }
+
+    void generationStarted() {
+        generationsStarted.increment();
+        activeGenerations.increment();
+    }
+
+    void generationFinished(long produced, long discarded, long allocated, long nanos) {
+        activeGenerations.decrement();
+        generationsCompleted.increment();
+        permutationsProduced.add(produced);
+        duplicatesDiscarded.add(discarded);
+        bytesAllocated.add(allocated);
+        generationNanos.add(nanos);
+    }
+
+    void generationFailed() {
+        activeGenerations.decrement();
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    @Override
+    public long getGenerationsStarted() {
+        return generationsStarted.sum();
+    }
+
+    @Override
+    public long getGenerationsCompleted() {
+        return generationsCompleted.sum();
+    }
+
+    @Override
+    public long getActiveGenerations() {
+        return activeGenerations.sum();
+    }
+
+    @Override
+    public long getPermutationsProduced() {
+        return permutationsProduced.sum();
+    }
+
+    @Override
+    public long getDuplicatesDiscarded() {
+        return duplicatesDiscarded.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public long getBytesAllocated() {
+        return bytesAllocated.sum();
+    }
+
+    /**
+     * Throughput over the time spent inside completed generations
+     * @return permutations produced per second of generation time
+     */
+    @Override
+    public double getPermutationsPerSecond() {
+        long nanos = generationNanos.sum();
+        return nanos == 0 ? 0.0 : permutationsProduced.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public void reset() {
+        generationsStarted.reset();
+        generationsCompleted.reset();
+        permutationsProduced.reset();
+        duplicatesDiscarded.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        bytesAllocated.reset();
+        generationNanos.reset();
+    }
+}
@@ -0,0 +1,27 @@
+package com.permutations;
+
+/**
+ * JMX management interface for permutation generation metrics
+ */
+public interface PermutationMetricsMBean {
+
+    long getGenerationsStarted();
+
+    long getGenerationsCompleted();
+
+    long getActiveGenerations();
+
+    long getPermutationsProduced();
+
+    long getDuplicatesDiscarded();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getBytesAllocated();
+
+    double getPermutationsPerSecond();
+
+    void reset();
+}
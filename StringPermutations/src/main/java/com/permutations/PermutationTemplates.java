@@ -0,0 +1,173 @@
+package com.permutations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * PermutationTemplates caches the permutations of short inputs as packed
+ * index tables, so a generator runs once per input shape and later calls
+ * only substitute characters into the table.
+ *
+ * The output of every generator in this package depends only on which
+ * positions of the input hold equal characters. An input is reduced to a
+ * shape: with duplicates kept, position i becomes symbol i; without them,
+ * each character becomes the index of its first appearance among the
+ * distinct characters. A template stores the generator's output for the
+ * shape as one byte per character, n bytes per permutation, together with
+ * the number of duplicates the generator discarded, so every expansion
+ * reports the same counts as a generation would.
+ */
+class PermutationTemplates {
+
+    /** Longest input served from templates: 8! rows of 8 bytes is 315 KiB */
+    static final int MAX_LENGTH = 8;
+
+    /** Upper bound on cached template bytes; larger working sets are built per call */
+    static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * The output of a generator for one shape
+     */
+    static final class Output {
+        final List<String> permutations;
+        final long discarded;
+
+        /**
+         * Constructor for Output
+         * @param permutations the permutations, free of duplicates if they are excluded
+         * @param discarded number of duplicates generated and then removed
+         */
+        Output(List<String> permutations, long discarded) {
+            this.permutations = permutations;
+            this.discarded = discarded;
+        }
+    }
+
+    /**
+     * A cached output: packed rows and the duplicates discarded building them
+     */
+    private static final class Template {
+        final byte[] rows;
+        final long discarded;
+
+        Template(byte[] rows, long discarded) {
+            this.rows = rows;
+            this.discarded = discarded;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final PermutationMetrics metrics;
+
+    PermutationTemplates(PermutationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Checks whether an input is short enough to be served from a template
+     * @param input the input string
+     * @return true if templates apply
+     */
+    static boolean supports(String input) {
+        return !input.isEmpty() && input.length() <= MAX_LENGTH;
+    }
+
+    /**
+     * Produces the permutations of an input from the template for its shape
+     * @param engine name of the generator, part of the cache key
+     * @param input the input string, at most {@link #MAX_LENGTH} characters
+     * @param includeDuplicates whether duplicate permutations are kept
+     * @param generator the generator to run on a shape when no template is cached;
+     *                  its output must already be free of duplicates if they are excluded
+     * @param tracker receives the number of duplicates the generator discarded
+     * @return the permutations, in the generator's order
+     */
+    List<String> expand(String engine, String input, boolean includeDuplicates,
+                        Function<String, Output> generator, GenerationTracker tracker) {
+        int n = input.length();
+        char[] shape = new char[n];
+        char[] symbols = new char[n];
+        int distinct = 0;
+
+        for (int i = 0; i < n; i++) {
+            char c = input.charAt(i);
+            int id = includeDuplicates ? -1 : indexOf(symbols, distinct, c);
+            if (id < 0) {
+                id = distinct;
+                symbols[distinct++] = c;
+            }
+            shape[i] = (char) id;
+        }
+
+        String shapeKey = new String(shape);
+        Template template = lookup(engine + ':' + shapeKey, shapeKey, generator);
+        tracker.discarded(template.discarded);
+
+        byte[] rows = template.rows;
+        List<String> permutations = new ArrayList<>(rows.length / n);
+        char[] buffer = new char[n];
+        for (int row = 0; row < rows.length; row += n) {
+            for (int j = 0; j < n; j++) {
+                buffer[j] = symbols[rows[row + j]];
+            }
+            permutations.add(new String(buffer));
+        }
+        return permutations;
+    }
+
+    /**
+     * Gets the cached template for a key, building it on a miss
+     */
+    private Template lookup(String key, String shape, Function<String, Output> generator) {
+        Template template = templates.get(key);
+        if (template != null) {
+            metrics.cacheHit();
+            return template;
+        }
+
+        metrics.cacheMiss();
+        Output output = generator.apply(shape);
+        template = new Template(pack(output.permutations), output.discarded);
+
+        // Keep the cache bounded; a racing builder of the same key just wastes one build
+        int size = template.rows.length;
+        if (cachedBytes.addAndGet(size) <= MAX_CACHED_BYTES) {
+            Template existing = templates.putIfAbsent(key, template);
+            if (existing != null) {
+                cachedBytes.addAndGet(-size);
+                return existing;
+            }
+        } else {
+            cachedBytes.addAndGet(-size);
+        }
+        return template;
+    }
+
+    /**
+     * Packs permutations of a shape into one byte per symbol
+     */
+    private static byte[] pack(List<String> permutations) {
+        int n = permutations.get(0).length();
+        byte[] template = new byte[permutations.size() * n];
+        int offset = 0;
+        for (String permutation : permutations) {
+            for (int j = 0; j < n; j++) {
+                template[offset++] = (byte) permutation.charAt(j);
+            }
+        }
+        return template;
+    }
+
+    private static int indexOf(char[] symbols, int count, char c) {
+        for (int i = 0; i < count; i++) {
+            if (symbols[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
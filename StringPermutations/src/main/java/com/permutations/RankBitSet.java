@@ -0,0 +1,74 @@
+package com.permutations;
+
+/**
+ * RankBitSet is a fixed-size bit set over a rank space, backed by a long array.
+ * Unlike java.util.BitSet it is addressed by long, so it can cover
+ * up to 64 * Integer.MAX_VALUE ranks at one bit each.
+ */
+public class RankBitSet {
+
+    private static final long MAX_BITS = 64L * Integer.MAX_VALUE;
+
+    private final long[] words;
+    private final long size;
+
+    /**
+     * Constructor for RankBitSet
+     * @param size number of ranks to cover
+     * @throws IllegalArgumentException if size is negative or too large
+     */
+    public RankBitSet(long size) {
+        if (size < 0 || size > MAX_BITS) {
+            throw new IllegalArgumentException("Unsupported rank space size: " + size);
+        }
+        this.size = size;
+        this.words = new long[(int) ((size + 63) >>> 6)];
+    }
+
+    /**
+     * Checks whether a rank space fits in a RankBitSet
+     * @param size number of ranks
+     * @return true if a RankBitSet of that size can be created
+     */
+    public static boolean supports(long size) {
+        return size >= 0 && size <= MAX_BITS;
+    }
+
+    /**
+     * Marks a rank as seen
+     * @param rank the rank to mark
+     * @return true if the rank was not marked before
+     */
+    public boolean add(long rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("Rank out of range: " + rank);
+        }
+        int word = (int) (rank >>> 6);
+        long mask = 1L << rank;
+        if ((words[word] & mask) != 0) {
+            return false;
+        }
+        words[word] |= mask;
+        return true;
+    }
+
+    /**
+     * Checks whether a rank has been marked
+     * @param rank the rank to check
+     * @return true if marked
+     */
+    public boolean contains(long rank) {
+        if (rank < 0 || rank >= size) {
+            return false;
+        }
+        return (words[(int) (rank >>> 6)] & (1L << rank)) != 0;
+    }
+
+    /**
+     * Gets the number of ranks covered
+     * @return size of the rank space
+     */
+    public long size() {
+        return size;
+    }
+}
@@ -1,9 +1,12 @@
 package com.permutations;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * StringPermutations class provides both recursive and iterative methods
@@ -11,6 +14,8 @@ import java.util.Set;
  */
 public class StringPermutations {
     
+    private static final PermutationTemplates TEMPLATES = new PermutationTemplates(PermutationMetrics.getInstance());
+    
     /**
      * Generates all permutations of a string using recursive approach
      * @param input the input string
@@ -23,20 +28,28 @@ public class StringPermutations {
             throw new IllegalArgumentException("Input string cannot be null");
         }
         
-        List<String> permutations = new ArrayList<>();
-        if (input.isEmpty()) {
-            permutations.add("");
-            return permutations;
+        if (PermutationTemplates.supports(input)) {
+            return expandTemplate("recursive", input, includeDuplicates, shape -> {
+                List<String> permutations = new ArrayList<>();
+                generatePermutationsRecursiveHelper("", shape, permutations, includeDuplicates);
+                return dedupe(permutations, includeDuplicates);
+            });
         }
         
-        generatePermutationsRecursiveHelper("", input, permutations, includeDuplicates);
-        
-        // Remove duplicates if required
-        if (!includeDuplicates) {
-            return removeDuplicates(permutations);
+        GenerationTracker tracker = GenerationTracker.start("recursive", input, includeDuplicates);
+        try {
+            List<String> permutations = new ArrayList<>();
+            if (input.isEmpty()) {
+                permutations.add("");
+                return finish(tracker, permutations, includeDuplicates);
+            }
+            
+            generatePermutationsRecursiveHelper("", input, permutations, includeDuplicates);
+            
+            return finish(tracker, permutations, includeDuplicates);
+        } finally {
+            tracker.close();
         }
-        
-        return permutations;
     }
     
     /**
@@ -90,6 +103,25 @@ public class StringPermutations {
             throw new IllegalArgumentException("Input string cannot be null");
         }
         
+        if (PermutationTemplates.supports(input)) {
+            return expandTemplate("iterative", input, includeDuplicates,
+                    shape -> dedupe(heapPermutations(shape), includeDuplicates));
+        }
+        
+        GenerationTracker tracker = GenerationTracker.start("iterative", input, includeDuplicates);
+        try {
+            return finish(tracker, heapPermutations(input), includeDuplicates);
+        } finally {
+            tracker.close();
+        }
+    }
+    
+    /**
+     * Generates all permutations, duplicates included, in Heap's algorithm order
+     * @param input the input string
+     * @return List of all permutations
+     */
+    private List<String> heapPermutations(String input) {
         List<String> permutations = new ArrayList<>();
         if (input.isEmpty()) {
             permutations.add("");
@@ -127,11 +159,6 @@ public class StringPermutations {
             }
         }
         
-        // Remove duplicates if required
-        if (!includeDuplicates) {
-            return removeDuplicates(permutations);
-        }
-        
         return permutations;
     }
     
@@ -146,13 +173,29 @@ public class StringPermutations {
             throw new IllegalArgumentException("Input string cannot be null");
         }
         
-        List<String> permutations = new ArrayList<>();
-        if (input.isEmpty()) {
-            permutations.add("");
-            return permutations;
+        if (PermutationTemplates.supports(input)) {
+            return expandTemplate("insertion", input, includeDuplicates,
+                    shape -> dedupe(insertionPermutations(shape), includeDuplicates));
         }
         
-        // Start with first character
+        GenerationTracker tracker = GenerationTracker.start("insertion", input, includeDuplicates);
+        try {
+            return finish(tracker, insertionPermutations(input), includeDuplicates);
+        } finally {
+            tracker.close();
+        }
+    }
+    
+    /**
+     * Generates all permutations, duplicates included, by inserting each
+     * character at every position of the permutations built so far
+     * @param input the input string
+     * @return List of all permutations
+     */
+    private List<String> insertionPermutations(String input) {
+        List<String> permutations = new ArrayList<>();
+        
+        // Start with the empty permutation
         permutations.add("");
         
         // Build permutations character by character
@@ -170,22 +213,276 @@ public class StringPermutations {
             permutations = newPermutations;
         }
         
-        // Remove duplicates if required
-        if (!includeDuplicates) {
-            return removeDuplicates(permutations);
+        return permutations;
+    }
+    
+    /**
+     * Generates a window of permutations without producing the ones before it.
+     * With duplicates, the order is that of {@link #generatePermutationsRecursive}
+     * (lexicographic over character positions); without duplicates it is
+     * lexicographic over the characters themselves. The start of the window is
+     * reached directly by unranking, and generation stops after limit results.
+     * @param input the input string
+     * @param includeDuplicates true to include duplicate permutations, false to remove duplicates
+     * @param offset number of permutations to skip
+     * @param limit maximum number of permutations to return
+     * @return List of at most limit permutations
+     * @throws IllegalArgumentException if input is null or offset or limit is negative
+     */
+    public List<String> generatePermutationsRange(String input, boolean includeDuplicates, long offset, int limit) {
+        validateQuery(input, offset, limit);
+        
+        GenerationTracker tracker = GenerationTracker.start("range", input, includeDuplicates);
+        try {
+            List<String> permutations = includeDuplicates
+                    ? positionalRange(input, offset, limit)
+                    : lexicographicRange(input, offset, limit);
+            tracker.finish(permutations.size());
+            return permutations;
+        } finally {
+            tracker.close();
         }
+    }
+    
+    /**
+     * Generates the k lexicographically smallest permutations, stopping once k are found.
+     * With duplicates, each distinct permutation is repeated as many times as
+     * the full list would contain it.
+     * @param input the input string
+     * @param includeDuplicates true to include duplicate permutations, false to remove duplicates
+     * @param k number of permutations to return
+     * @return List of at most k permutations in ascending order
+     * @throws IllegalArgumentException if input is null or k is negative
+     */
+    public List<String> generateSmallestPermutations(String input, boolean includeDuplicates, int k) {
+        validateQuery(input, 0, k);
+        
+        GenerationTracker tracker = GenerationTracker.start("top-k", input, includeDuplicates);
+        try {
+            List<String> permutations = new ArrayList<>();
+            long copies = includeDuplicates ? multiplicity(input) : 1;
+            for (String permutation : lexicographicRange(input, 0, k)) {
+                for (long c = 0; c < copies && permutations.size() < k; c++) {
+                    permutations.add(permutation);
+                }
+                if (permutations.size() == k) {
+                    break;
+                }
+            }
+            tracker.finish(permutations.size());
+            return permutations;
+        } finally {
+            tracker.close();
+        }
+    }
+    
+    private void validateQuery(String input, long offset, int limit) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input string cannot be null");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative: " + offset);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative: " + limit);
+        }
+    }
+    
+    /**
+     * Permutations of character positions in lexicographic order, starting at a rank
+     */
+    private List<String> positionalRange(String input, long offset, int limit) {
+        int n = input.length();
+        List<String> permutations = new ArrayList<>(Math.min(limit, 1024));
+        if (limit == 0 || (n <= 20 && offset >= factorial(n))) {
+            return permutations;
+        }
+        
+        // Decode the offset in the factorial number system
+        int[] indices = new int[n];
+        boolean[] used = new boolean[n];
+        long remaining = offset;
+        for (int i = 0; i < n; i++) {
+            long block = saturatedFactorial(n - 1 - i);
+            int digit = (int) (remaining / block);
+            remaining %= block;
+            for (int j = 0; j < n; j++) {
+                if (!used[j] && digit-- == 0) {
+                    indices[i] = j;
+                    used[j] = true;
+                    break;
+                }
+            }
+        }
+        
+        char[] chars = new char[n];
+        do {
+            for (int i = 0; i < n; i++) {
+                chars[i] = input.charAt(indices[i]);
+            }
+            permutations.add(new String(chars));
+        } while (permutations.size() < limit && nextPermutation(indices));
         
         return permutations;
     }
     
     /**
-     * Removes duplicate strings from the list while preserving order
+     * Distinct permutations in lexicographic order of characters, starting at a rank
+     */
+    private List<String> lexicographicRange(String input, long offset, int limit) {
+        MultisetRanker ranker = new MultisetRanker(input);
+        List<String> permutations = new ArrayList<>(Math.min(limit, 1024));
+        if (limit == 0 || offset >= ranker.getTotal()) {
+            return permutations;
+        }
+        
+        char[] chars = ranker.unrank(offset).toCharArray();
+        int[] symbols = new int[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            symbols[i] = chars[i];
+        }
+        
+        do {
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) symbols[i];
+            }
+            permutations.add(new String(chars));
+        } while (permutations.size() < limit && nextPermutation(symbols));
+        
+        return permutations;
+    }
+    
+    /**
+     * Advances an array to its next permutation in lexicographic order;
+     * equal elements yield each distinct arrangement once
+     * @param values the array to advance in place
+     * @return false if values was already the last permutation
+     */
+    private boolean nextPermutation(int[] values) {
+        int i = values.length - 2;
+        while (i >= 0 && values[i] >= values[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        
+        int j = values.length - 1;
+        while (values[j] <= values[i]) {
+            j--;
+        }
+        swap(values, i, j);
+        
+        for (int left = i + 1, right = values.length - 1; left < right; left++, right--) {
+            swap(values, left, right);
+        }
+        return true;
+    }
+    
+    /**
+     * Number of times each distinct permutation appears among all n! permutations
+     */
+    private long multiplicity(String input) {
+        char[] sorted = input.toCharArray();
+        Arrays.sort(sorted);
+        
+        // Product of the factorials of each character's count, saturating
+        long copies = 1;
+        int run = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            run = (i > 0 && sorted[i] == sorted[i - 1]) ? run + 1 : 1;
+            copies = copies > Long.MAX_VALUE / run ? Long.MAX_VALUE : copies * run;
+        }
+        return copies;
+    }
+    
+    /**
+     * Factorial that saturates at Long.MAX_VALUE instead of overflowing
+     */
+    private long saturatedFactorial(int n) {
+        return n <= 20 ? factorial(n) : Long.MAX_VALUE;
+    }
+    
+    /**
+     * Serves a short input from the shared template for its shape
+     * @param engine name of the generator
+     * @param input the input string
+     * @param includeDuplicates whether duplicates are kept
+     * @param generator builds the (deduplicated if required) output for a shape on a cache miss
+     * @return List of all permutations
+     */
+    private List<String> expandTemplate(String engine, String input, boolean includeDuplicates,
+                                        Function<String, PermutationTemplates.Output> generator) {
+        GenerationTracker tracker = GenerationTracker.start(engine + "-template", input, includeDuplicates);
+        try {
+            List<String> permutations = TEMPLATES.expand(engine, input, includeDuplicates, generator, tracker);
+            tracker.finish(permutations.size());
+            return permutations;
+        } finally {
+            tracker.close();
+        }
+    }
+    
+    /**
+     * Removes duplicates if required, counting those removed
+     * @param permutations the generated permutations
+     * @param includeDuplicates whether duplicates are kept
+     * @return the permutations, deduplicated unless includeDuplicates is set
+     */
+    private PermutationTemplates.Output dedupe(List<String> permutations, boolean includeDuplicates) {
+        int generated = permutations.size();
+        List<String> unique = includeDuplicates ? permutations : removeDuplicates(permutations);
+        return new PermutationTemplates.Output(unique, generated - unique.size());
+    }
+    
+    /**
+     * Removes duplicates if required and records the call's metrics
+     * @param tracker the tracker for the current call
+     * @param permutations the generated permutations
+     * @param includeDuplicates whether duplicates are kept
+     * @return the final list of permutations
+     */
+    private List<String> finish(GenerationTracker tracker, List<String> permutations, boolean includeDuplicates) {
+        if (!includeDuplicates) {
+            int generated = permutations.size();
+            permutations = removeDuplicates(permutations);
+            tracker.discarded(generated - permutations.size());
+        }
+        tracker.finish(permutations.size());
+        return permutations;
+    }
+    
+    /**
+     * Removes duplicate strings from the list while preserving order.
+     * Every entry is a permutation of the same multiset, so each one is mapped
+     * to its multiset rank and marked in a bit set: one bit per distinct
+     * permutation instead of a hash set holding a copy of every string.
+     * The list is compacted in place, keeping first occurrences.
      * @param list the list with potential duplicates
      * @return list without duplicates
      */
     private List<String> removeDuplicates(List<String> list) {
-        Set<String> set = new HashSet<>(list);
-        return new ArrayList<>(set);
+        if (list.size() < 2) {
+            return list;
+        }
+        
+        MultisetRanker ranker = new MultisetRanker(list.get(0));
+        if (!ranker.isRankable() || !RankBitSet.supports(ranker.getTotal())) {
+            // Rank space too large for a bit set; fall back to hashing
+            return new ArrayList<>(new LinkedHashSet<>(list));
+        }
+        
+        RankBitSet seen = new RankBitSet(ranker.getTotal());
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            String permutation = list.get(i);
+            if (seen.add(ranker.rank(permutation))) {
+                list.set(kept++, permutation);
+            }
+        }
+        list.subList(kept, list.size()).clear();
+        
+        return list;
     }
     
     /**
@@ -200,6 +497,27 @@ public class StringPermutations {
         chars[j] = temp;
     }
     
+    /**
+     * Gets the metrics shared by all generators; register them with
+     * {@link PermutationMetrics#registerMBean()} to expose them over JMX
+     * @return the process-wide generation metrics
+     */
+    public static PermutationMetrics getMetrics() {
+        return PermutationMetrics.getInstance();
+    }
+    
+    /**
+     * Swaps two elements in an int array
+     * @param values the array
+     * @param i first index
+     * @param j second index
+     */
+    private void swap(int[] values, int i, int j) {
+        int temp = values[i];
+        values[i] = values[j];
+        values[j] = temp;
+    }
+    
     /**
      * Calculates factorial of a number (n!)
      * @param n the number
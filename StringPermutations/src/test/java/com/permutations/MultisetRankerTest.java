@@ -0,0 +1,76 @@
+package com.permutations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JUnit tests for MultisetRanker and rank-based deduplication
+ */
+class MultisetRankerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a", "ab", "aab", "abcab", "mississ"})
+    @DisplayName("Rank and unrank agree with lexicographic order")
+    void testRankMatchesSortedOrder(String input) {
+        StringPermutations permutations = new StringPermutations();
+        List<String> sorted = new ArrayList<>(permutations.generatePermutationsRecursive(input, false));
+        Collections.sort(sorted);
+
+        MultisetRanker ranker = new MultisetRanker(input);
+        assertEquals(sorted.size(), ranker.getTotal());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, ranker.rank(sorted.get(i)));
+            assertEquals(sorted.get(i), ranker.unrank(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Rank rejects strings that are not permutations of the multiset")
+    void testRankRejectsForeignString() {
+        MultisetRanker ranker = new MultisetRanker("aab");
+        assertThrows(IllegalArgumentException.class, () -> ranker.rank("abb"));
+        assertThrows(IllegalArgumentException.class, () -> ranker.rank("ab"));
+    }
+
+    @Test
+    @DisplayName("Total saturates when the rank space does not fit in a long")
+    void testTotalSaturates() {
+        assertEquals(548828480360160000L, new MultisetRanker("aabbccddeeffgghhiijjkk").getTotal());
+        assertFalse(new MultisetRanker("abcdefghijklmnopqrstu").isRankable());
+    }
+
+    @Test
+    @DisplayName("Deduplication keeps first occurrences in generation order")
+    void testDeduplicationPreservesGenerationOrder() {
+        StringPermutations permutations = new StringPermutations();
+        List<String> all = permutations.generatePermutationsIterative("aabc", true);
+        List<String> unique = permutations.generatePermutationsIterative("aabc", false);
+
+        List<String> expected = new ArrayList<>();
+        for (String permutation : all) {
+            if (!expected.contains(permutation)) {
+                expected.add(permutation);
+            }
+        }
+        assertEquals(expected, unique);
+    }
+
+    @Test
+    @DisplayName("RankBitSet reports first and repeated marks")
+    void testRankBitSet() {
+        RankBitSet bits = new RankBitSet(130);
+        assertTrue(bits.add(129));
+        assertFalse(bits.add(129));
+        assertTrue(bits.contains(129));
+        assertFalse(bits.contains(64));
+        assertThrows(IndexOutOfBoundsException.class, () -> bits.add(130));
+    }
+}
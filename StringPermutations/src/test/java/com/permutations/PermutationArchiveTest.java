@@ -0,0 +1,114 @@
+package com.permutations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JUnit tests for the PermutationArchive format
+ */
+class PermutationArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final StringPermutations permutations = new StringPermutations();
+
+    @Test
+    @DisplayName("Archive round-trips minimal-change order and seeks by rank")
+    void testRoundTripHeapOrder() throws IOException {
+        List<String> expected = permutations.generatePermutationsIterative("abcdefg", true);
+        Path archive = writeArchive("abcdefg", expected, PermutationArchive.Order.MINIMAL_CHANGE);
+
+        try (PermutationArchive.Reader reader = new PermutationArchive.Reader(archive)) {
+            assertEquals(expected.size(), reader.getCount());
+            assertEquals(PermutationArchive.Order.MINIMAL_CHANGE, reader.getOrder());
+
+            List<String> actual = new ArrayList<>();
+            reader.forEach(actual::add);
+            assertEquals(expected, actual);
+
+            for (int rank : new int[] {0, 99, 100, 2521, expected.size() - 1}) {
+                assertEquals(expected.get(rank), reader.get(rank));
+            }
+        }
+
+        // Seven characters take 8 bytes per line as text
+        assertTrue(Files.size(archive) < expected.size() * 8L / 2, "Archive should be well under half the text size");
+    }
+
+    @Test
+    @DisplayName("Archive round-trips permutations with repeated characters")
+    void testRoundTripWithDuplicates() throws IOException {
+        List<String> expected = permutations.generatePermutationsRecursive("aabbcd", true);
+        Path archive = writeArchive("aabbcd", expected, PermutationArchive.Order.UNSPECIFIED);
+
+        try (PermutationArchive.Reader reader = new PermutationArchive.Reader(archive)) {
+            List<String> actual = new ArrayList<>();
+            reader.forEach(actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    @DisplayName("Text output converts to an equivalent archive")
+    void testConvertText() throws IOException {
+        List<String> expected = permutations.generatePermutationsRecursive("abcd", true);
+        Path text = tempDir.resolve("perms.txt");
+        Files.write(text, expected);
+
+        Path archive = tempDir.resolve("perms.bin");
+        assertEquals(24, PermutationArchive.convertText(text, archive, PermutationArchive.Order.UNSPECIFIED));
+
+        try (PermutationArchive.Reader reader = new PermutationArchive.Reader(archive)) {
+            assertEquals("dcba", reader.get(23));
+        }
+    }
+
+    @Test
+    @DisplayName("Writer rejects strings that are not permutations of the sample")
+    void testWriterRejectsForeignString() throws IOException {
+        try (PermutationArchive.Writer writer = new PermutationArchive.Writer(
+                tempDir.resolve("bad.bin"), "abc", PermutationArchive.Order.UNSPECIFIED, 16)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write("abd"));
+            assertThrows(IllegalArgumentException.class, () -> writer.write("aab"));
+        }
+        try (PermutationArchive.Writer writer = new PermutationArchive.Writer(
+                tempDir.resolve("bad2.bin"), "aab", PermutationArchive.Order.UNSPECIFIED, 16)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write("bba"));
+            writer.write("aba");
+            assertEquals(1, writer.getCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A swap near the end is stored when shorter than front coding")
+    void testSwapOfLastThreePositions() throws IOException {
+        Path swapped = writeArchive("abcd", List.of("abcd", "adcb"), PermutationArchive.Order.UNSPECIFIED);
+        Path repeated = writeArchive("dcba", List.of("abcd", "abcd"), PermutationArchive.Order.UNSPECIFIED);
+
+        // The repeated entry takes one byte; the swap three, where front coding would take four
+        assertEquals(2, Files.size(swapped) - Files.size(repeated));
+        try (PermutationArchive.Reader reader = new PermutationArchive.Reader(swapped)) {
+            assertEquals("adcb", reader.get(1));
+        }
+    }
+
+    private Path writeArchive(String input, List<String> values, PermutationArchive.Order order) throws IOException {
+        Path archive = tempDir.resolve(input + ".bin");
+        try (PermutationArchive.Writer writer = new PermutationArchive.Writer(archive, input, order, 100)) {
+            for (String value : values) {
+                writer.write(value);
+            }
+        }
+        return archive;
+    }
+}
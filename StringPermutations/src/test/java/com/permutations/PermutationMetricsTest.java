@@ -0,0 +1,59 @@
+package com.permutations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+/**
+ * JUnit tests for generation metrics
+ */
+class PermutationMetricsTest {
+
+    @Test
+    @DisplayName("Generation calls update produced and discarded counters")
+    void testCountersTrackGeneration() {
+        PermutationMetrics metrics = StringPermutations.getMetrics();
+        long completed = metrics.getGenerationsCompleted();
+        long produced = metrics.getPermutationsProduced();
+        long discarded = metrics.getDuplicatesDiscarded();
+
+        new StringPermutations().generatePermutationsIterative("aab", false);
+
+        assertEquals(completed + 1, metrics.getGenerationsCompleted());
+        assertEquals(produced + 3, metrics.getPermutationsProduced());
+        assertEquals(discarded + 3, metrics.getDuplicatesDiscarded());
+    }
+
+    @Test
+    @DisplayName("Template hits report the duplicates their generation discarded")
+    void testTemplateHitsCountDiscardedDuplicates() {
+        PermutationMetrics metrics = StringPermutations.getMetrics();
+        StringPermutations permutations = new StringPermutations();
+
+        // Same shape as "ppqr": built on the first call, expanded from the template on the second
+        permutations.generatePermutationsIterative("ppqr", false);
+        long hits = metrics.getCacheHits();
+        long discarded = metrics.getDuplicatesDiscarded();
+        assertEquals(12, permutations.generatePermutationsIterative("ddef", false).size());
+        assertEquals(hits + 1, metrics.getCacheHits());
+        assertEquals(discarded + 12, metrics.getDuplicatesDiscarded());
+
+        // The recursive generator skips duplicates as it goes, so it discards none
+        permutations.generatePermutationsRecursive("ddef", false);
+        assertEquals(discarded + 12, metrics.getDuplicatesDiscarded());
+    }
+
+    @Test
+    @DisplayName("Metrics can be registered over JMX more than once")
+    void testRegisterMBean() throws Exception {
+        PermutationMetrics.registerMBean();
+        PermutationMetrics.registerMBean();
+
+        ObjectName name = new ObjectName(PermutationMetrics.OBJECT_NAME);
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
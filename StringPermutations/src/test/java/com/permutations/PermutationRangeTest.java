@@ -0,0 +1,61 @@
+package com.permutations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * JUnit tests for offset, limit and top-k permutation queries
+ */
+class PermutationRangeTest {
+
+    private final StringPermutations permutations = new StringPermutations();
+
+    @Test
+    @DisplayName("Range with duplicates matches a slice of the recursive order")
+    void testRangeMatchesRecursiveOrder() {
+        List<String> all = permutations.generatePermutationsRecursive("aabcd", true);
+        for (int offset = 0; offset < all.size(); offset += 17) {
+            List<String> expected = all.subList(offset, Math.min(all.size(), offset + 10));
+            assertEquals(expected, permutations.generatePermutationsRange("aabcd", true, offset, 10));
+        }
+        assertTrue(permutations.generatePermutationsRange("aabcd", true, all.size(), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Range without duplicates is a slice of the sorted unique permutations")
+    void testUniqueRangeIsLexicographic() {
+        List<String> unique = new ArrayList<>(new TreeSet<>(permutations.generatePermutationsRecursive("mississ", false)));
+        assertEquals(unique.subList(40, 60), permutations.generatePermutationsRange("mississ", false, 40, 20));
+    }
+
+    @Test
+    @DisplayName("Top-k repeats each permutation by its multiplicity when duplicates are included")
+    void testTopK() {
+        assertEquals(List.of("aab", "aab", "aba"), permutations.generateSmallestPermutations("baa", true, 3));
+        assertEquals(List.of("aab", "aba", "baa"), permutations.generateSmallestPermutations("baa", false, 50));
+    }
+
+    @Test
+    @DisplayName("A limit of 20 on a 12-character input does not generate the full list")
+    void testLimitTerminatesEarly() {
+        List<String> result = assertTimeout(Duration.ofMillis(500),
+                () -> permutations.generatePermutationsRange("abcdefghijkl", true, 1_000_000, 20));
+
+        assertEquals(20, result.size());
+        assertEquals("abejkfldhicg", result.get(0));
+    }
+
+    @Test
+    @DisplayName("Negative offsets and limits are rejected")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> permutations.generatePermutationsRange("abc", true, -1, 5));
+        assertThrows(IllegalArgumentException.class, () -> permutations.generateSmallestPermutations("abc", true, -5));
+    }
+}
@@ -0,0 +1,65 @@
+package com.permutations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * JUnit tests for template-backed generation of short inputs
+ */
+class PermutationTemplatesTest {
+
+    private final StringPermutations permutations = new StringPermutations();
+
+    @Test
+    @DisplayName("Template output for distinct sorted input is in lexicographic order")
+    void testRecursiveTemplateOrder() {
+        List<String> result = permutations.generatePermutationsRecursive("abcdefgh", true);
+        List<String> sorted = new ArrayList<>(result);
+        Collections.sort(sorted);
+
+        assertEquals(40320, result.size());
+        assertEquals(sorted, result);
+    }
+
+    @Test
+    @DisplayName("Inputs with the same shape reuse one template")
+    void testSameShapeHitsCache() {
+        PermutationMetrics metrics = StringPermutations.getMetrics();
+        permutations.generatePermutationsIterative("xxyz", false);
+        long hits = metrics.getCacheHits();
+
+        List<String> result = permutations.generatePermutationsIterative("ppqr", false);
+
+        assertEquals(hits + 1, metrics.getCacheHits());
+        assertEquals(12, result.size());
+        assertEquals(12, new HashSet<>(result).size());
+        assertEquals("ppqr", result.get(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"aab", "abca", "aabbcc", "mississ"})
+    @DisplayName("Unique permutations match the expected count for every engine")
+    void testUniqueCounts(String input) {
+        long expected = permutations.estimateUniquePermutations(input);
+        assertEquals(expected, permutations.generatePermutationsRecursive(input, false).size());
+        assertEquals(expected, permutations.generatePermutationsIterative(input, false).size());
+        assertEquals(expected, permutations.generatePermutationsIterativeAlt(input, false).size());
+    }
+
+    @Test
+    @DisplayName("Inputs longer than the template limit still generate correctly")
+    void testLongInputBypassesTemplates() {
+        List<String> result = permutations.generatePermutationsRecursive("aaaaaaaab", false);
+        assertEquals(9, result.size());
+        assertEquals("aaaaaaaab", result.get(0));
+    }
+}